@@ -0,0 +1,394 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClerkLoadTest simulates many front-desk clerks using the application at once:
+ * Each clerk is a thread that picks operations from a weighted mix and runs them through the
+ * services the windows use (BookingEngine, Repositories, PatientSearchIndex)
+ * Booking conflicts and optimistic-locking conflicts are expected outcomes and counted apart from errors
+ * Every interval, throughput, latency percentiles, errors, conflicts, connection pool waits and
+ * heap use are appended to a CSV interval log, so a long soak run shows drift over time
+ * At the end the whole-run figures are printed, and can be written and compared like DaoBenchmark results
+ *
+ * Without -Dhms.db.writer.url it runs against an embedded H2 database seeded by DaoBenchmark;
+ * with it, against that database's existing rows.
+ *
+ * Usage (H2 on the classpath):
+ * java -cp out:h2.jar hospitalmanagementsystem.ClerkLoadTest [clerks] [seconds] [intervals.csv] [summary.csv] [baseline.csv]
+ *
+ * -Dhms.load.rows sets the rows seeded (10k), -Dhms.load.intervalSeconds the log interval (5),
+ * -Dhms.load.thinkMillis a clerk's mean pause between operations (0) and -Dhms.load.mix the mix, e.g.
+ * book=20,reschedule=10,searchAppointments=35,patientLookup=15,patientSearch=15,patientUpdate=5
+ */
+
+public class ClerkLoadTest {
+
+    private static final String EMBEDDED_URL = "jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String DEFAULT_MIX =
+            "book=20,reschedule=10,searchAppointments=35,patientLookup=15,patientSearch=15,patientUpdate=5";
+    private static final int ROWS = Integer.getInteger("hms.load.rows", 10_000);
+    private static final int INTERVAL_SECONDS = Integer.getInteger("hms.load.intervalSeconds", 5);
+    private static final int THINK_MILLIS = Integer.getInteger("hms.load.thinkMillis", 0);
+
+    private static final String LOG_HEADER = "elapsedSeconds,operation,ops,opsPerSecond,errors,conflicts,"
+            + "p50Micros,p90Micros,p99Micros,p999Micros,maxMicros,poolWaitMeanMicros,poolTimeouts,heapUsedMB";
+
+    @FunctionalInterface
+    private interface Action {
+        void run(ThreadLocalRandom random);
+    }
+
+    private enum Outcome { OK, CONFLICT, ERROR }
+
+    // Latencies and outcome counts of one operation, over one interval or the whole run
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder(), conflicts = new LongAdder();
+
+        void record(long nanos, Outcome outcome) {
+            latency.recordNanos(nanos);
+            if (outcome == Outcome.ERROR) errors.increment();
+            else if (outcome == Outcome.CONFLICT) conflicts.increment();
+        }
+    }
+
+    // One entry of the mix. The reporter swaps the interval stats; a call finishing during the
+    // swap may land in the interval just written, which only shifts it by one interval.
+    private static final class Operation {
+        final String name;
+        final int weight;
+        final Action action;
+        final AtomicReference<Stats> interval = new AtomicReference<>(new Stats());
+        final Stats total = new Stats();
+
+        Operation(String name, int weight, Action action) {
+            this.name = name;
+            this.weight = weight;
+            this.action = action;
+        }
+
+        void record(long nanos, Outcome outcome) {
+            interval.get().record(nanos, outcome);
+            total.record(nanos, outcome);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final List<Operation> operations = new ArrayList<>();
+    private final Operation all = new Operation("all", 0, null);
+    private final int totalWeight;
+    private final Map<String, LongAdder> errorKinds = new ConcurrentHashMap<>();
+    private final int patientCount, doctorCount;
+    private final AtomicInteger lastAppointmentID;
+    private final LocalDate today = LocalDate.now();
+    private volatile boolean stopping;
+
+    // Interval bookkeeping, only touched by the reporting thread
+    private long lastReportNanos, lastBorrows, lastTimeouts;
+    private double lastWaitMillis;
+    private long elapsedNanos;
+
+    public ClerkLoadTest(ConnectionPool pool, String mix) throws SQLException {
+        this.pool = pool;
+        this.patientCount = maxID("patients", "PatientID");
+        this.doctorCount = maxID("doctors", "DoctorID");
+        this.lastAppointmentID = new AtomicInteger(maxID("appointments", "AppointmentID"));
+        if (patientCount == 0 || doctorCount == 0 || lastAppointmentID.get() == 0) {
+            throw new IllegalStateException("The database needs patients, doctors and appointments to run against");
+        }
+
+        Map<String, Action> known = actions();
+        int weights = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Action action = known.get(parts[0].trim());
+            if (parts.length != 2 || action == null) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "'; operations are " + known.keySet());
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                operations.add(new Operation(parts[0].trim(), weight, action));
+                weights += weight;
+            }
+        }
+        if (weights == 0) throw new IllegalArgumentException("Empty mix: " + mix);
+        this.totalWeight = weights;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clerks = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        Path intervalLog = args.length > 2 ? Paths.get(args[2]) : Paths.get("clerk-load.csv");
+        Path summary = args.length > 3 ? Paths.get(args[3]) : null;
+        Path baseline = args.length > 4 ? Paths.get(args[4]) : null;
+
+        // system properties override hms.properties, so a local config cannot point the run elsewhere
+        boolean embedded = System.getProperty("hms.db.writer.url") == null;
+        if (embedded) {
+            System.setProperty("hms.db.writer.url", EMBEDDED_URL);
+            System.setProperty("hms.db.readers", "");
+            System.setProperty("hms.db.user", "sa");
+            System.setProperty("hms.db.password", "");
+            if (System.getProperty("hms.db.pool.max") == null) System.setProperty("hms.db.pool.max", "20");
+        }
+
+        ConnectionPool pool = ConnectionPool.getInstance();
+        if (embedded) {
+            DaoBenchmark setup = new DaoBenchmark(pool);
+            setup.createSchema();
+            setup.seed(ROWS);
+        }
+        HospitalManagementSystem.startServices().join();
+
+        ClerkLoadTest test = new ClerkLoadTest(pool, System.getProperty("hms.load.mix", DEFAULT_MIX));
+        System.out.printf("%d clerks for %d s, think time %d ms, interval log %s%n", clerks, seconds, THINK_MILLIS, intervalLog);
+        test.run(clerks, seconds, intervalLog);
+
+        List<DaoBenchmark.Result> results = test.summarize();
+        if (summary != null) DaoBenchmark.write(summary, results);
+        if (baseline != null) DaoBenchmark.compare(baseline, results);
+        System.exit(0);
+    }
+
+    // ======================= OPERATIONS =======================
+
+    // What a clerk does, keyed by the names used in the mix
+
+    private Map<String, Action> actions() {
+        Map<String, Action> actions = new LinkedHashMap<>();
+
+        actions.put("book", random -> {
+            int appointmentID = BookingEngine.getInstance().book(new Appointment(patient(random), doctor(random),
+                    today.plusDays(1 + random.nextInt(60)), "Checkup", "Scheduled"));
+            lastAppointmentID.accumulateAndGet(appointmentID, Math::max);
+        });
+
+        actions.put("reschedule", random -> {
+            Optional<Appointment> found = Repositories.appointments().findById(1 + random.nextInt(lastAppointmentID.get()));
+            if (!found.isPresent()) return;
+            Appointment a = found.get();
+            BookingEngine.getInstance().reschedule(new Appointment(a.getAppointmentID(), a.getPatientID(), a.getDoctorID(),
+                    today.plusDays(1 + random.nextInt(60)), a.getDescription(), a.getAppointmentStatus(), a.getVersion()));
+        });
+
+        actions.put("searchAppointments", random -> {
+            LocalDate from = today.plusDays(random.nextInt(30));
+            Repositories.appointments().searchViews(new AppointmentSearch()
+                    .doctor(doctor(random))
+                    .from(from)
+                    .to(from.plusDays(7))
+                    .sort(AppointmentSearch.Sort.DATE)
+                    .limit(50));
+        });
+
+        actions.put("patientLookup", random -> Repositories.patients().findById(patient(random)));
+
+        // names as DaoBenchmark seeds them
+        actions.put("patientSearch", random -> PatientSearchIndex.getInstance().search(random.nextBoolean()
+                ? "Last" + random.nextInt(5000)
+                : "First" + random.nextInt(patientCount)));
+
+        actions.put("patientUpdate", random -> {
+            Optional<Patient> found = Repositories.patients().findById(patient(random));
+            if (!found.isPresent()) return;
+            Patient p = found.get();
+            Repositories.patients().update(new Patient(p.getPatientID(), p.getFirstName(), p.getLastName(), p.getDob(),
+                    p.getGender(), "083" + (1_000_000 + random.nextInt(9_000_000)), p.getAddress(),
+                    p.getAdmissionDate(), p.getVersion()));
+        });
+
+        return actions;
+    }
+
+    private int patient(ThreadLocalRandom random) {
+        return 1 + random.nextInt(patientCount);
+    }
+
+    private int doctor(ThreadLocalRandom random) {
+        return 1 + random.nextInt(doctorCount);
+    }
+
+    private int maxID(String table, String column) throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(" + column + ") FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // ======================= CLERKS =======================
+
+    // Starts the clerks, writes one set of log rows per interval and stops them after the given time
+
+    void run(int clerks, int seconds, Path intervalLog) throws IOException, InterruptedException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(clerks, r -> {
+            Thread t = new Thread(r, "clerk-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (PrintWriter log = new PrintWriter(Files.newBufferedWriter(intervalLog))) {
+            log.println(LOG_HEADER);
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            lastReportNanos = start;
+            lastBorrows = pool.getBorrowCount();
+            lastWaitMillis = pool.getTotalWaitMillis();
+            lastTimeouts = pool.getTimeoutCount();
+            for (int i = 0; i < clerks; i++) threads.execute(this::clerk);
+
+            long next = start;
+            do {
+                next = Math.min(next + TimeUnit.SECONDS.toNanos(INTERVAL_SECONDS), end);
+                TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+                if (next == end) {
+                    stopping = true;
+                    threads.shutdown();
+                    threads.awaitTermination(30, TimeUnit.SECONDS);
+                }
+                writeInterval(log, start);
+            } while (next < end);
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private void clerk() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!stopping) {
+            runOnce(pick(random), random);
+            if (THINK_MILLIS > 0) {
+                try {
+                    Thread.sleep(random.nextInt(2 * THINK_MILLIS + 1));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) return operation;
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private void runOnce(Operation operation, ThreadLocalRandom random) {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.OK;
+        try {
+            operation.action.run(random);
+        } catch (BookingConflictException | OptimisticLockException e) {
+            outcome = Outcome.CONFLICT;
+        } catch (RuntimeException e) {
+            outcome = Outcome.ERROR;
+            errorKinds.computeIfAbsent(operation.name + ": " + kindOf(e), k -> new LongAdder()).increment();
+        }
+        long nanos = System.nanoTime() - start;
+        operation.record(nanos, outcome);
+        all.record(nanos, outcome);
+    }
+
+    // The exception class and that of its root cause, e.g. "DataAccessException (JdbcSQLTimeoutException)"
+    private static String kindOf(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+        String kind = error.getClass().getSimpleName();
+        return root == error ? kind : kind + " (" + root.getClass().getSimpleName() + ")";
+    }
+
+    // ======================= REPORTING =======================
+
+    private void writeInterval(PrintWriter log, long start) {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportNanos) / 1e9;
+        double elapsed = (now - start) / 1e9;
+        lastReportNanos = now;
+
+        for (Operation operation : operations) {
+            writeRow(log, elapsed, operation.name, operation.interval.getAndSet(new Stats()), seconds, "", "", "");
+        }
+
+        long borrows = pool.getBorrowCount(), timeouts = pool.getTimeoutCount();
+        double waitMillis = pool.getTotalWaitMillis();
+        double meanWaitMicros = borrows == lastBorrows ? 0 : (waitMillis - lastWaitMillis) * 1000 / (borrows - lastBorrows);
+        Runtime runtime = Runtime.getRuntime();
+        long heapMB = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+
+        Stats total = all.interval.getAndSet(new Stats());
+        writeRow(log, elapsed, all.name, total, seconds,
+                String.format(Locale.ROOT, "%.1f", meanWaitMicros), String.valueOf(timeouts - lastTimeouts), String.valueOf(heapMB));
+        log.flush();
+
+        System.out.printf("%7.0f s %10.1f ops/s   p99 %8d us   errors %5d   conflicts %5d   pool wait %7.1f us   heap %5d MB%n",
+                elapsed, total.latency.getCount() / seconds, total.latency.percentileMicros(0.99),
+                total.errors.sum(), total.conflicts.sum(), meanWaitMicros, heapMB);
+
+        lastBorrows = borrows;
+        lastWaitMillis = waitMillis;
+        lastTimeouts = timeouts;
+    }
+
+    private static void writeRow(PrintWriter log, double elapsed, String name, Stats stats, double seconds,
+                                 String poolWait, String poolTimeouts, String heapMB) {
+        LatencyHistogram latency = stats.latency;
+        long ops = latency.getCount();
+        log.printf(Locale.ROOT, "%.1f,%s,%d,%.1f,%d,%d,%d,%d,%d,%d,%d,%s,%s,%s%n",
+                elapsed, name, ops, ops / seconds, stats.errors.sum(), stats.conflicts.sum(),
+                latency.percentileMicros(0.50), latency.percentileMicros(0.90), latency.percentileMicros(0.99),
+                latency.percentileMicros(0.999), latency.percentileMicros(1.0), poolWait, poolTimeouts, heapMB);
+    }
+
+    // Prints the whole-run figures and returns them as DaoBenchmark results (operation names prefixed with "load.")
+    List<DaoBenchmark.Result> summarize() {
+        List<DaoBenchmark.Result> results = new ArrayList<>();
+        List<Operation> rows = new ArrayList<>(operations);
+        rows.add(all);
+
+        System.out.printf("%n%-22s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "ops", "ops/s", "errors", "conflicts", "p50 (us)", "p99 (us)", "p99.9 (us)", "max (us)");
+        for (Operation operation : rows) {
+            Stats total = operation.total;
+            long ops = total.latency.getCount();
+            long p50 = total.latency.percentileMicros(0.50), p99 = total.latency.percentileMicros(0.99);
+            System.out.printf("%-22s %10d %10.1f %8d %10d %10d %10d %10d %10d%n", operation.name, ops, ops / (elapsedNanos / 1e9),
+                    total.errors.sum(), total.conflicts.sum(), p50, p99,
+                    total.latency.percentileMicros(0.999), total.latency.percentileMicros(1.0));
+            results.add(new DaoBenchmark.Result("load." + operation.name, (int) Math.min(Integer.MAX_VALUE, ops),
+                    elapsedNanos, 1, p50 * 1000, p99 * 1000));
+        }
+
+        if (!errorKinds.isEmpty()) {
+            System.out.println("\nErrors");
+            new TreeMap<>(errorKinds).forEach((kind, count) -> System.out.printf("  %-60s %8d%n", kind, count.sum()));
+        }
+        OperationStats waits = QueryMetrics.getInstance().stats("connection.acquire");
+        System.out.printf("%nConnection waits: %d borrows, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d timeouts%n",
+                pool.getBorrowCount(), waits.getP50Millis(), waits.getP99Millis(), pool.getMaxWaitMillis(), pool.getTimeoutCount());
+        return results;
+    }
+}
@@ -0,0 +1,282 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * DaoBenchmark measures the repository layer against a real JDBC database:
+ * Single insert, batch insert, lookup by ID (uncached and cached), search (plain and joined with names) and full-table listing
+ * Seeds the tables with a configurable number of rows (10k by default, 1M for the large run)
+ * Reports throughput and p50/p99 latency per operation
+ * Writes the results as CSV and compares them with a previous run to catch regressions
+ *
+ * Usage (the JDBC driver must be on the classpath, e.g. H2 in MySQL mode):
+ * java -cp out:h2.jar -Dhms.bench.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1 \
+ *      hospitalmanagementsystem.DaoBenchmark [rows] [results.csv] [baseline.csv]
+ */
+
+public class DaoBenchmark {
+
+    private static final String URL = System.getProperty("hms.bench.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private static final String USER = System.getProperty("hms.bench.user", "sa");
+    private static final String PASSWORD = System.getProperty("hms.bench.password", "");
+    private static final int WARMUP_SECONDS = Integer.getInteger("hms.bench.warmupSeconds", 2);
+    private static final int MEASURE_SECONDS = Integer.getInteger("hms.bench.measureSeconds", 5);
+    private static final int BATCH_SIZE = 500;
+
+    private final ConnectionPool pool;
+    private final Random random = new Random(42);
+    private final LocalDate baseDate = LocalDate.of(2025, 1, 1);
+    private int patientCount, doctorCount, appointmentCount;
+
+    public DaoBenchmark(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Path results = args.length > 1 ? Paths.get(args[1]) : null;
+        Path baseline = args.length > 2 ? Paths.get(args[2]) : null;
+
+        ConnectionPool pool = new ConnectionPool(URL, USER, PASSWORD, 1, 4, 30_000, 300_000, 600_000);
+        try {
+            DaoBenchmark benchmark = new DaoBenchmark(pool);
+            benchmark.createSchema();
+            benchmark.seed(rows);
+
+            List<Result> measured = benchmark.runAll();
+            print(rows, measured);
+            System.out.printf("Statement cache: %.1f%% hits (%d hits, %d misses)%n",
+                    pool.getStatementCacheHitRate() * 100, pool.getStatementCacheHits(), pool.getStatementCacheMisses());
+            if (results != null) write(results, measured);
+            if (baseline != null) compare(baseline, measured);
+        } finally {
+            pool.close();
+        }
+    }
+
+    // ======================= SETUP =======================
+
+    // Creates the tables from README.md and applies SchemaMigrations
+    void createSchema() throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS patients (PatientID INT AUTO_INCREMENT PRIMARY KEY, FirstName VARCHAR(50), "
+                    + "LastName VARCHAR(50), DOB DATE, Gender VARCHAR(10), Phone VARCHAR(20), Address VARCHAR(100), AdmissionDate DATE)");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS doctors (DoctorID INT AUTO_INCREMENT PRIMARY KEY, FirstName VARCHAR(50), "
+                    + "LastName VARCHAR(50), Specialty VARCHAR(50), Phone VARCHAR(15), Email VARCHAR(50))");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS appointments (AppointmentID INT AUTO_INCREMENT PRIMARY KEY, PatientID INT, "
+                    + "DoctorID INT, AppointmentDate DATE, Description VARCHAR(100), AppointmentStatus VARCHAR(50))");
+        }
+        SchemaMigrations.migrate(pool);
+    }
+
+    // Inserts rows patients, rows/100 doctors and rows appointments
+    void seed(int rows) {
+        patientCount = rows;
+        doctorCount = Math.max(10, rows / 100);
+        appointmentCount = rows;
+
+        long start = System.nanoTime();
+        new JdbcDoctorRepository(pool).insertAll(() -> new Iterator<Doctor>() {
+            int i;
+            public boolean hasNext() { return i < doctorCount; }
+            public Doctor next() { return doctor(i++); }
+        }, BATCH_SIZE);
+        new JdbcPatientRepository(pool).insertAll(() -> new Iterator<Patient>() {
+            int i;
+            public boolean hasNext() { return i < patientCount; }
+            public Patient next() { return patient(i++); }
+        }, BATCH_SIZE);
+        new JdbcAppointmentRepository(pool).insertAll(() -> new Iterator<Appointment>() {
+            int i;
+            public boolean hasNext() { return i < appointmentCount; }
+            public Appointment next() { i++; return appointment(); }
+        }, BATCH_SIZE);
+        System.out.printf("Seeded %d patients, %d doctors, %d appointments in %d ms%n",
+                patientCount, doctorCount, appointmentCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // ======================= BENCHMARKS =======================
+
+    List<Result> runAll() {
+        JdbcPatientRepository patients = new JdbcPatientRepository(pool);
+        CachingPatientRepository cachedPatients = new CachingPatientRepository(patients,
+                new EntityCache<>("bench", 1000, 10, TimeUnit.MINUTES));
+        JdbcAppointmentRepository appointments = new JdbcAppointmentRepository(pool);
+
+        List<Result> results = new ArrayList<>();
+
+        results.add(measure("appointments.insert", 1, i -> appointments.insert(appointment())));
+
+        results.add(measure("appointments.insertBatch" + BATCH_SIZE, BATCH_SIZE, i -> {
+            List<Appointment> batch = new ArrayList<>(BATCH_SIZE);
+            for (int k = 0; k < BATCH_SIZE; k++) batch.add(appointment());
+            appointments.insertAll(batch, BATCH_SIZE);
+        }));
+
+        results.add(measure("patients.findById", 1, i -> patients.findById(1 + random.nextInt(patientCount))));
+
+        // a small hot set, as on the appointment screens
+        results.add(measure("patients.findById.cached", 1, i -> cachedPatients.findById(1 + random.nextInt(500))));
+
+        results.add(measure("appointments.search", 1, i -> {
+            LocalDate from = baseDate.plusDays(random.nextInt(300));
+            appointments.search(new AppointmentSearch()
+                    .doctor(1 + random.nextInt(doctorCount))
+                    .from(from)
+                    .to(from.plusDays(30))
+                    .sort(AppointmentSearch.Sort.DATE)
+                    .limit(50));
+        }));
+
+        // the same search joined with the patient and doctor names, as the appointment window shows it
+        results.add(measure("appointments.searchViews", 1, i -> {
+            LocalDate from = baseDate.plusDays(random.nextInt(300));
+            appointments.searchViews(new AppointmentSearch()
+                    .doctor(1 + random.nextInt(doctorCount))
+                    .from(from)
+                    .to(from.plusDays(30))
+                    .sort(AppointmentSearch.Sort.DATE)
+                    .limit(50));
+        }));
+
+        results.add(measure("appointments.listAll", appointmentCount, i -> {
+            int after = 0;
+            List<Appointment> page;
+            do {
+                page = appointments.findPage(after, 1000);
+                if (!page.isEmpty()) after = page.get(page.size() - 1).getAppointmentID();
+            } while (page.size() == 1000);
+        }));
+
+        return results;
+    }
+
+    // Runs op repeatedly for the warmup period, then records the latency of every call
+    // during the measurement period. rowsPerOp converts operations into rows/s.
+
+    private Result measure(String name, int rowsPerOp, IntConsumer op) {
+        runFor(WARMUP_SECONDS, op, null);
+        long[] latencies = new long[1 << 16];
+        int[] count = {0, 0}; // operations run, latencies kept
+        long elapsed = runFor(MEASURE_SECONDS, op, nanos -> {
+            count[0]++;
+            if (count[1] < latencies.length) latencies[count[1]++] = nanos;
+        });
+        long[] sample = Arrays.copyOf(latencies, count[1]);
+        Arrays.sort(sample);
+        return new Result(name, count[0], elapsed, rowsPerOp, percentile(sample, 0.50), percentile(sample, 0.99));
+    }
+
+    private static long runFor(int seconds, IntConsumer op, LatencySink sink) {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        int i = 0;
+        long now = start;
+        do {
+            long before = now;
+            op.accept(i++);
+            now = System.nanoTime();
+            if (sink != null) sink.record(now - before);
+        } while (now < end);
+        return now - start;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    // ======================= TEST DATA =======================
+
+    private Doctor doctor(int i) {
+        return new Doctor("Doc" + i, "Smith" + i, "Specialty" + (i % 12), "011" + (1000000 + i), "doc" + i + "@hospital.test");
+    }
+
+    private Patient patient(int i) {
+        return new Patient("First" + i, "Last" + (i % 5000), baseDate.minusDays(7000 + i % 20000),
+                i % 2 == 0 ? "F" : "M", "082" + (1000000 + i), i + " Main Road", baseDate.plusDays(i % 365));
+    }
+
+    private Appointment appointment() {
+        return new Appointment(1 + random.nextInt(patientCount), 1 + random.nextInt(doctorCount),
+                baseDate.plusDays(random.nextInt(365)), "Checkup", random.nextInt(10) == 0 ? "Cancelled" : "Scheduled");
+    }
+
+    // ======================= REPORTING =======================
+
+    private static void print(int rows, List<Result> results) {
+        System.out.printf("%nDAO benchmark, %d rows%n", rows);
+        System.out.printf("%-34s %10s %14s %12s %12s%n", "operation", "ops", "rows/s", "p50 (us)", "p99 (us)");
+        for (Result r : results) {
+            System.out.printf("%-34s %10d %14.1f %12.1f %12.1f%n", r.name, r.ops, r.rowsPerSecond(), r.p50 / 1000.0, r.p99 / 1000.0);
+        }
+    }
+
+    static void write(Path file, List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("operation,ops,rowsPerSecond,p50Nanos,p99Nanos");
+            for (Result r : results) {
+                out.printf(Locale.ROOT, "%s,%d,%.1f,%d,%d%n", r.name, r.ops, r.rowsPerSecond(), r.p50, r.p99);
+            }
+        }
+    }
+
+    // Prints the change in throughput and p99 relative to a CSV written by an earlier run
+    static void compare(Path baselineFile, List<Result> results) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineFile)) {
+            String[] cols = line.split(",");
+            if (cols.length == 5 && !cols[0].equals("operation")) baseline.put(cols[0], cols);
+        }
+        System.out.printf("%nCompared with %s%n", baselineFile);
+        for (Result r : results) {
+            String[] base = baseline.get(r.name);
+            if (base == null) continue;
+            double throughput = 100.0 * (r.rowsPerSecond() / Double.parseDouble(base[2]) - 1);
+            double p99 = 100.0 * ((double) r.p99 / Long.parseLong(base[4]) - 1);
+            System.out.printf("%-34s throughput %+7.1f%%   p99 %+7.1f%%%n", r.name, throughput, p99);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LatencySink {
+        void record(long nanos);
+    }
+
+    // Measurements for one operation; ClerkLoadTest writes its summary in the same form
+    static class Result {
+        final String name;
+        final int ops;
+        final long elapsedNanos;
+        final int rowsPerOp;
+        final long p50, p99;
+
+        Result(String name, int ops, long elapsedNanos, int rowsPerOp, long p50, long p99) {
+            this.name = name;
+            this.ops = ops;
+            this.elapsedNanos = elapsedNanos;
+            this.rowsPerOp = rowsPerOp;
+            this.p50 = p50;
+            this.p99 = p99;
+        }
+
+        double rowsPerSecond() {
+            return (double) ops * rowsPerOp / elapsedNanos * 1e9;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * RoutingCheck exercises DataSourceRouter against two embedded databases standing in for a
+ * primary and a read replica. Each database holds a differently named patient, so the name
+ * returned by a listing shows which one served it:
+ * Listing reads are served by the replica
+ * Right after a save, reads go to the primary (read-your-writes), then back to the replica
+ * When the replica goes down, reads fail over to the primary
+ * When the replica comes back, the health check returns it to rotation
+ *
+ * Usage (H2 on the classpath):
+ * java -cp out:h2.jar hospitalmanagementsystem.RoutingCheck
+ */
+
+public class RoutingCheck {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final long READ_YOUR_WRITES_MILLIS = 500;
+    private static final long HEALTH_CHECK_MILLIS = 200;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Properties props = new Properties();
+        props.setProperty("hms.db.writer.url", PRIMARY_URL);
+        // IFEXISTS makes a stopped replica refuse connections instead of starting empty
+        props.setProperty("hms.db.readers", REPLICA_URL + ";IFEXISTS=TRUE");
+        props.setProperty("hms.db.user", "sa");
+        props.setProperty("hms.db.pool.min", "1");
+        props.setProperty("hms.db.readYourWritesMillis", String.valueOf(READ_YOUR_WRITES_MILLIS));
+        props.setProperty("hms.db.healthCheckMillis", String.valueOf(HEALTH_CHECK_MILLIS));
+        DataSourceConfig config = DataSourceConfig.from(props);
+
+        Connection replicaAdmin = startDatabase(REPLICA_URL, "Replica");
+        Connection primaryAdmin = startDatabase(PRIMARY_URL, "Primary");
+        ConnectionPool writer = config.newWriterPool();
+        DataSourceRouter router = new DataSourceRouter(writer, config.getReaderUrls(), config);
+        JdbcPatientRepository patients = new JdbcPatientRepository(router);
+
+        try {
+            check("listing is served by the replica", firstName(patients).equals("Replica"));
+
+            patients.insert(new Patient(0, "Saved", "Patient", LocalDate.of(1990, 1, 1), "F", "0100000000",
+                    "1 Main Road", LocalDate.now()));
+            check("read after a save is served by the primary", firstName(patients).equals("Primary"));
+
+            Thread.sleep(READ_YOUR_WRITES_MILLIS + 100);
+            check("reads return to the replica after the read-your-writes window", firstName(patients).equals("Replica"));
+
+            try (Statement stmt = replicaAdmin.createStatement()) {
+                stmt.execute("SHUTDOWN");
+            }
+            check("reads fail over to the primary when the replica is down", firstName(patients).equals("Primary"));
+            check("the failover is counted", router.getFailoverCount() == 1 && router.getHealthyReplicaCount() == 0);
+
+            replicaAdmin = startDatabase(REPLICA_URL, "Replica");
+            Thread.sleep(3 * HEALTH_CHECK_MILLIS);
+            check("the health check returns the replica to rotation", firstName(patients).equals("Replica"));
+
+            System.out.println(router);
+        } finally {
+            router.close();
+            writer.close();
+            replicaAdmin.close();
+            primaryAdmin.close();
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Creates the schema in a fresh in-memory database and adds one patient with the given first name.
+    // The returned connection keeps the database open until it is closed or shut down.
+
+    private static Connection startDatabase(String url, String firstName) throws SQLException {
+        Connection admin = DriverManager.getConnection(url, "sa", "");
+        ConnectionPool setup = new ConnectionPool(url, "sa", "", 1, 1, 5_000, 300_000, 600_000);
+        try {
+            new DaoBenchmark(setup).createSchema();
+        } finally {
+            setup.close();
+        }
+        try (Statement stmt = admin.createStatement()) {
+            stmt.executeUpdate("INSERT INTO patients (FirstName, LastName, DOB, Gender, Phone, Address, AdmissionDate) "
+                    + "VALUES ('" + firstName + "', 'Patient', DATE '1980-01-01', 'M', '0100000000', '1 Main Road', CURRENT_DATE)");
+        }
+        return admin;
+    }
+
+    private static String firstName(JdbcPatientRepository patients) {
+        List<Patient> page = patients.findPage(0, 1);
+        return page.isEmpty() ? "" : page.get(0).getFirstName();
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) failures++;
+    }
+}
@@ -2,30 +2,51 @@ package hospitalmanagementsystem;
 
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
+import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
 
  * AppointmentDAO is a Java Swing GUI application that allows users to:
  * Enter appointment details
  * Save appointments to MySQL database
- * Display all saved appointments
+ * Display all saved appointments, with the patient's and doctor's names
  * Delete appointments by AppointmentID
- * Update appointments
+ * Update appointments (select a row to edit it; changes made meanwhile by someone else are not overwritten)
  */
 
 public class AppointmentDAO extends JFrame {
 
+    private static final Logger LOG = Logger.getLogger(AppointmentDAO.class.getName());
 
     // Swing components
     private JTextField patientIDField, doctorIDField, appointmentDateField, descriptionField, appointmentStatusField;
     private JTextField appointmentIDField;  // For update/delete/search
     private JTextField searchPatientField, searchDoctorField;
+    private JTextField searchFromField, searchToField, searchStatusField;
 
-    private JTextArea displayArea;
+    private JTable displayTable;
+    private PagedTableModel tableModel;
+    private BusyIndicator busyIndicator;
 
-    private JButton saveButton, displayButton, deleteButton, updateButton, searchButton;
+    private JButton saveButton, displayButton, deleteButton, updateButton, searchButton, upcomingButton, exportButton;
+
+    private static final String[] COLUMNS = {"AppointmentID", "PatientID", "Patient", "DoctorID", "Doctor", "Date", "Description", "Status", "Version"};
+
+    // Appointment shown in the form for editing and the row version it was loaded with
+    private int editingID;
+    private int editingVersion;
+
+    // Criteria of the listing in the table, used to re-read single rows when they change
+    private AppointmentSearch shownCriteria = new AppointmentSearch();
 
     // Constructor that sets up the GUI layout and event handling
     public AppointmentDAO() {
@@ -33,7 +54,7 @@ public class AppointmentDAO extends JFrame {
         setTitle("Appointment Management");
         setSize(750, 750);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(new GridLayout(12, 2, 5, 5));
+        setLayout(new GridLayout(16, 2, 5, 5));
 
         // ======================= INPUT FIELDS =======================
 
@@ -71,6 +92,18 @@ public class AppointmentDAO extends JFrame {
         searchDoctorField = new JTextField();
         add(searchDoctorField);
 
+        add(new JLabel("Search From Date (YYYY-MM-DD):"));
+        searchFromField = new JTextField();
+        add(searchFromField);
+
+        add(new JLabel("Search To Date (YYYY-MM-DD):"));
+        searchToField = new JTextField();
+        add(searchToField);
+
+        add(new JLabel("Search by Status:"));
+        searchStatusField = new JTextField();
+        add(searchStatusField);
+
         // ======================= BUTTONS =======================
 
         saveButton = new JButton("Save Appointment");
@@ -78,22 +111,34 @@ public class AppointmentDAO extends JFrame {
         updateButton = new JButton("Update Appointment");
         deleteButton = new JButton("Delete Appointment");
         searchButton = new JButton("Search");
+        upcomingButton = new JButton("Today & Tomorrow");
 
         add(saveButton);
         add(displayButton);
         add(updateButton);
         add(deleteButton);
         add(searchButton);
-        add(new JLabel()); // filler
+        add(upcomingButton);
 
         // ======================= DISPLAY AREA =======================
 
-        displayArea = new JTextArea();
-        displayArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(displayArea);
+        busyIndicator = new BusyIndicator(this);
+        tableModel = new PagedTableModel(COLUMNS, PagedTableModel.DEFAULT_PAGE_SIZE, busyIndicator);
+
+        displayTable = new JTable(tableModel);
+        displayTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = displayTable.getSelectedRow();
+            Object[] selected = row >= 0 ? tableModel.getRow(row) : null; // null while its page is read again
+            if (!e.getValueIsAdjusting() && selected != null) edit(fromRow(selected));
+        });
+        JScrollPane scrollPane = new JScrollPane(displayTable);
 
         add(scrollPane);
-        add(new JLabel());
+        add(busyIndicator);
+
+        exportButton = new JButton("Export Appointments...");
+        add(exportButton);
+        add(new JLabel()); // filler
 
         // ======================= BUTTON LISTENERS =======================
 
@@ -102,80 +147,202 @@ public class AppointmentDAO extends JFrame {
         deleteButton.addActionListener(e -> deleteAppointment());
         updateButton.addActionListener(e -> updateAppointment());
         searchButton.addActionListener(e -> searchAppointments());
+        upcomingButton.addActionListener(e -> displayUpcoming());
+        exportButton.addActionListener(e -> exportAppointments());
+
+        // ======================= LIVE UPDATES =======================
+        EntityEventBus.Subscription events = EntityEventBus.getInstance().subscribe(
+                event -> SwingUtilities.invokeLater(() -> applyEvent(event)));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                events.close();
+            }
+        });
 
         setVisible(true);
     }
 
-    // ======================= DATABASE CONNECTION =======================
+    // ======================= ADD APPOINTMENTS =======================
 
-    // Establishes connection to the MySQL database
-    // @return Connection object or null if connection fails
+    // Books a new appointment through the BookingEngine on a background thread.
+    // Double bookings are rejected with the doctor's next free date.
 
-    public static Connection getConnection() {
-        String url = "jdbc:mysql://localhost:3306/hospital_management_system";
-        String user = "root";
-        String password = ""; // Your SQL password
+    public void addAppointment(Appointment appointment) {
+        new DatabaseWorker<Integer, Void>(busyIndicator) {
+            @Override
+            protected Integer doInBackground() {
+                return BookingEngine.getInstance().book(appointment);
+            }
 
-        try {
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, "Database connection failed!");
-            return null;
-        }
+            @Override
+            protected void succeeded(Integer appointmentID) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, "Appointment saved successfully!");
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, error.getMessage());
+            }
+        }.start();
     }
 
-    // ======================= ADD APPOINTMENTS =======================
+    // ======================= DISPLAY APPOINTMENTS =======================
 
-    // Inserts a new appointment record into the Appointments table.
+    // Shows all appointment records in the table, loading them one page at a time.
+    // Each page is one joined query that also returns the patient and doctor names.
 
-    public void addAppointment(Appointment appointment) {
-        String sql = "INSERT INTO appointments (PatientID, DoctorID, AppointmentDate, Description, AppointmentStatus) VALUES (?, ?, ?, ?, ?)";
+    public void displayAppointments() {
+        showViews(new AppointmentSearch());
+    }
+
+    // Shows today's and tomorrow's appointments. The range lies inside the AppointmentRoster's
+    // window, so the pages are read from memory plus one query for the names on each page.
 
-        try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public void displayUpcoming() {
+        LocalDate today = LocalDate.now();
+        showViews(new AppointmentSearch()
+                .from(today)
+                .to(today.plusDays(1)));
+    }
 
-            stmt.setInt(1, appointment.getPatientID());
-            stmt.setInt(2, appointment.getDoctorID());
-            stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
-            stmt.setString(4, appointment.getDescription());
-            stmt.setString(5, appointment.getAppointmentStatus());
+    // Loads the appointments matching the criteria into the table, one AppointmentID-ordered page at a time
 
-            stmt.executeUpdate();
+    private void showViews(AppointmentSearch criteria) {
+        shownCriteria = criteria;
+        tableModel.load((afterID, limit) -> toRows(Repositories.appointments().searchViews(criteria.copy()
+                .after(afterID)
+                .limit(limit))));
+    }
 
-            JOptionPane.showMessageDialog(this, "Appointment saved successfully!");
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error saving appointment: " + e.getMessage());
+    // Converts appointments into table rows; the AppointmentID column is the paging key.
+
+    private static List<Object[]> toRows(List<AppointmentView> appointments) {
+        List<Object[]> rows = new ArrayList<>(appointments.size());
+        for (AppointmentView a : appointments) {
+            rows.add(new Object[]{
+                    a.getAppointmentID(),
+                    a.getPatientID(),
+                    a.getPatientName(),
+                    a.getDoctorID(),
+                    a.getDoctorName(),
+                    a.getAppointmentDate(),
+                    a.getDescription(),
+                    a.getAppointmentStatus(),
+                    a.getVersion()
+            });
         }
+        return rows;
     }
 
-    // ======================= DISPLAY APPOINTMENTS =======================
+    // Reads the appointment back from a table row made by toRows
+    private static Appointment fromRow(Object[] row) {
+        return new Appointment((Integer) row[0], (Integer) row[1], (Integer) row[3], (LocalDate) row[5],
+                (String) row[6], (String) row[7], (Integer) row[8]);
+    }
 
-    // Queries and displays all appointment records from the database in the text area.
+    // ======================= LIVE UPDATES =======================
+
+    // Patches the table from entity events (see EntityEventBus) instead of reloading it.
+    // A changed appointment is read again with the criteria on screen, so it also leaves the
+    // table when it no longer matches them; patient and doctor changes patch the name columns.
+
+    private void applyEvent(EntityEvent event) {
+        if (event.getKind() != EntityEvent.Kind.APPOINTMENT) {
+            applyNameEvent(event);
+        } else if (event.getType() == EntityEvent.Type.INSERTED) {
+            tableModel.rowsAdded();
+        } else if (event.isDelete()) {
+            tableModel.removeRow(event.getId());
+        } else if (tableModel.indexOfKey(event.getId()) >= 0) {
+            reloadRow(event.getId());
+        }
+    }
 
-    public void displayAppointments() {
-        String sql = "SELECT * FROM appointments";
-
-        displayArea.setText("AppointmentID | PatientID | DoctorID | Date | Description | Status\n");
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                displayArea.append(
-                        rs.getInt("AppointmentID") + " | " +
-                                rs.getInt("PatientID") + " | " +
-                                rs.getInt("DoctorID") + " | " +
-                                rs.getDate("AppointmentDate") + " | " +
-                                rs.getString("Description") + " | " +
-                                rs.getString("AppointmentStatus") + "\n"
-                );
+    private void reloadRow(int appointmentID) {
+        AppointmentSearch criteria = shownCriteria.copy()
+                .after(appointmentID - 1)
+                .limit(1);
+        new DatabaseWorker<List<AppointmentView>, Void>(busyIndicator) {
+            @Override
+            protected List<AppointmentView> doInBackground() {
+                return Repositories.appointments().searchViews(criteria);
+            }
+
+            @Override
+            protected void succeeded(List<AppointmentView> found) {
+                if (!found.isEmpty() && found.get(0).getAppointmentID() == appointmentID) {
+                    tableModel.replaceRow(toRows(found).get(0));
+                } else {
+                    tableModel.removeRow(appointmentID);
+                }
             }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading appointments: " + e.getMessage());
+            @Override
+            protected void failed(Throwable error) {
+                LOG.log(Level.WARNING, "Could not refresh appointment " + appointmentID + " in the table", error);
+            }
+        }.start();
+    }
+
+    // New patients and doctors have no appointments yet; deleted ones are shown without a name,
+    // as the joined query does. Remote events carry no names, so they are read in the background.
+
+    private void applyNameEvent(EntityEvent event) {
+        boolean patient = event.getKind() == EntityEvent.Kind.PATIENT;
+        if (event.getType() == EntityEvent.Type.INSERTED || !isShown(patient ? 1 : 3, event.getId())) {
+            return;
+        }
+        if (event.isDelete()) {
+            setName(event, "");
+        } else if (!event.isRemote()) {
+            setName(event, patient ? nameOf(event.<PatientDAO.Patient>getPayload()) : nameOf(event.<DoctorDAO.Doctor>getPayload()));
+        } else {
+            new DatabaseWorker<String, Void>(busyIndicator) {
+                @Override
+                protected String doInBackground() {
+                    return patient
+                            ? Repositories.patients().findById(event.getId()).map(AppointmentDAO::nameOf).orElse("")
+                            : Repositories.doctors().findById(event.getId()).map(AppointmentDAO::nameOf).orElse("");
+                }
+
+                @Override
+                protected void succeeded(String name) {
+                    setName(event, name);
+                }
+
+                @Override
+                protected void failed(Throwable error) {
+                    LOG.log(Level.WARNING, "Could not read the name of " + (patient ? "patient " : "doctor ")
+                            + event.getId() + " for the table", error);
+                }
+            }.start();
         }
     }
 
+    // Whether a loaded row has this ID in the PatientID (1) or DoctorID (3) column. Evicted
+    // pages are read again with the current names, so only loaded rows need patching.
+    private boolean isShown(int idColumn, int id) {
+        return !tableModel.loadedRowsWith(idColumn, id).isEmpty();
+    }
+
+    private void setName(EntityEvent event, String name) {
+        int idColumn = event.getKind() == EntityEvent.Kind.PATIENT ? 1 : 3;
+        for (int i : tableModel.loadedRowsWith(idColumn, event.getId())) {
+            if (!name.equals(tableModel.loadedValueAt(i, idColumn + 1))) {
+                tableModel.setValueAt(name, i, idColumn + 1);
+            }
+        }
+    }
+
+    private static String nameOf(PatientDAO.Patient p) {
+        return AppointmentView.patientName(p.getFirstName(), p.getLastName());
+    }
+
+    private static String nameOf(DoctorDAO.Doctor d) {
+        return AppointmentView.doctorName(d.getFirstName(), d.getLastName(), d.getSpecialty());
+    }
+
     // ======================= SAVE  APPOINTMENTS =======================
 
     // Reads input field values, creates a Appointment  object, and saves it to the database.
@@ -203,112 +370,218 @@ public class AppointmentDAO extends JFrame {
     // Deletes appointment record into the APPOINTMENTS table.
 
     private void deleteAppointment() {
+        int id;
         try {
-            int id = Integer.parseInt(appointmentIDField.getText());
-
-            String sql = "DELETE FROM appointments WHERE AppointmentID = ?";
-
-            try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, id);
+            id = Integer.parseInt(appointmentIDField.getText());
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Invalid Appointment ID!");
+            return;
+        }
 
-                int rows = stmt.executeUpdate();
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                Repositories.appointments().delete(id);
+                return null;
+            }
 
-                if (rows > 0) {
-                    JOptionPane.showMessageDialog(this, "Appointment deleted successfully!");
-                    displayAppointments();
-                } else {
-                    JOptionPane.showMessageDialog(this, "No appointment found with ID: " + id);
-                }
+            @Override
+            protected void succeeded(Void result) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, "Appointment deleted successfully!");
             }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Invalid Appointment ID!");
-        }
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, error.getMessage());
+            }
+        }.start();
     }
 
     // ======================= UPDATE APPOINTMENT =======================
 
    // Update appointment record on APPOINTMENTS table
 
+    // Only the appointment loaded into the form can be updated, and only while its version is current.
+    // Any other ID is loaded first so the user edits what is actually stored.
+
     private void updateAppointment() {
+        int appointmentID;
         try {
-            int appointmentID = Integer.parseInt(appointmentIDField.getText());
-            int patientID = Integer.parseInt(patientIDField.getText());
-            int doctorID = Integer.parseInt(doctorIDField.getText());
-            LocalDate date = LocalDate.parse(appointmentDateField.getText());
-            String description = descriptionField.getText();
-            String status = appointmentStatusField.getText();
+            appointmentID = Integer.parseInt(appointmentIDField.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid Appointment ID!");
+            return;
+        }
+        if (appointmentID != editingID) {
+            loadForEdit(appointmentID, "");
+            return;
+        }
+
+        Appointment appointment;
+        try {
+            appointment = new Appointment(
+                    appointmentID,
+                    Integer.parseInt(patientIDField.getText()),
+                    Integer.parseInt(doctorIDField.getText()),
+                    LocalDate.parse(appointmentDateField.getText()),
+                    descriptionField.getText(),
+                    appointmentStatusField.getText(),
+                    editingVersion
+            );
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error updating: " + e.getMessage());
+            return;
+        }
 
-            String sql = "UPDATE appointments SET PatientID = ?, DoctorID = ?, AppointmentDate = ?, Description = ?, AppointmentStatus = ? WHERE AppointmentID = ?";
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                BookingEngine.getInstance().reschedule(appointment);
+                return null;
+            }
 
-            try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            @Override
+            protected void succeeded(Void result) {
+                editingVersion = appointment.getVersion() + 1;
+                JOptionPane.showMessageDialog(AppointmentDAO.this, "Appointment updated successfully!");
+            }
 
-                stmt.setInt(1, patientID);
-                stmt.setInt(2, doctorID);
-                stmt.setDate(3, Date.valueOf(date));
-                stmt.setString(4, description);
-                stmt.setString(5, status);
-                stmt.setInt(6, appointmentID);
+            @Override
+            protected void failed(Throwable error) {
+                if (error instanceof OptimisticLockException) {
+                    loadForEdit(appointmentID, "Someone else changed this appointment while you were editing it.\n");
+                    return;
+                }
+                JOptionPane.showMessageDialog(AppointmentDAO.this, error instanceof EntityNotFoundException
+                        ? "Appointment ID not found!" : error.getMessage());
+            }
+        }.start();
+    }
 
-                int rows = stmt.executeUpdate();
+    // Loads the stored appointment into the form for review before it is updated. It is read
+    // through a UnitOfWork, so it comes from the primary database rather than the roster or a replica.
 
-                if (rows > 0) {
-                    JOptionPane.showMessageDialog(this, "Appointment updated successfully!");
-                    displayAppointments();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Appointment ID not found!");
+    private void loadForEdit(int appointmentID, String reason) {
+        new DatabaseWorker<Optional<Appointment>, Void>(busyIndicator) {
+            @Override
+            protected Optional<Appointment> doInBackground() {
+                try (UnitOfWork work = UnitOfWork.begin()) {
+                    return work.findAppointment(appointmentID);
                 }
             }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error updating: " + e.getMessage());
-        }
+            @Override
+            protected void succeeded(Optional<Appointment> appointment) {
+                if (!appointment.isPresent()) {
+                    JOptionPane.showMessageDialog(AppointmentDAO.this, "Appointment ID not found!");
+                    return;
+                }
+                edit(appointment.get());
+                JOptionPane.showMessageDialog(AppointmentDAO.this, reason + "The current details of appointment "
+                        + appointmentID + " are in the form. Review them and press Update again.");
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, error.getMessage());
+            }
+        }.start();
+    }
+
+    // Fills the form with an appointment and remembers its version for the next update
+
+    private void edit(Appointment appointment) {
+        editingID = appointment.getAppointmentID();
+        editingVersion = appointment.getVersion();
+        appointmentIDField.setText(String.valueOf(editingID));
+        patientIDField.setText(String.valueOf(appointment.getPatientID()));
+        doctorIDField.setText(String.valueOf(appointment.getDoctorID()));
+        appointmentDateField.setText(text(appointment.getAppointmentDate()));
+        descriptionField.setText(text(appointment.getDescription()));
+        appointmentStatusField.setText(text(appointment.getAppointmentStatus()));
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
     }
 
     // ======================= SEARCH APPOINTMENTS =======================
 
     // Search appointment record  APPOINTMENT table
 
+    // Empty search fields are ignored; the results are paged by AppointmentID.
+
     private void searchAppointments() {
-        String sql = "SELECT * FROM appointments WHERE 1=1 ";
+        Integer patientID = null, doctorID = null;
+        LocalDate from = null, to = null;
 
         try {
             String patient = searchPatientField.getText().trim();
             String doctor = searchDoctorField.getText().trim();
+            String fromDate = searchFromField.getText().trim();
+            String toDate = searchToField.getText().trim();
 
-            if (!patient.isEmpty()) sql += " AND PatientID = " + Integer.parseInt(patient);
-            if (!doctor.isEmpty()) sql += " AND DoctorID = " + Integer.parseInt(doctor);
+            if (!patient.isEmpty()) patientID = Integer.parseInt(patient);
+            if (!doctor.isEmpty()) doctorID = Integer.parseInt(doctor);
+            if (!fromDate.isEmpty()) from = LocalDate.parse(fromDate);
+            if (!toDate.isEmpty()) to = LocalDate.parse(toDate);
 
-            displayArea.setText("AppointmentID | PatientID | DoctorID | Date | Description | Status\n");
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Invalid search input!");
+            return;
+        }
 
-            try (Connection conn = getConnection();
-                 Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        String statusText = searchStatusField.getText().trim();
+        String status = statusText.isEmpty() ? null : statusText;
 
-                while (rs.next()) {
-                    displayArea.append(
-                            rs.getInt("AppointmentID") + " | " +
-                                    rs.getInt("PatientID") + " | " +
-                                    rs.getInt("DoctorID") + " | " +
-                                    rs.getDate("AppointmentDate") + " | " +
-                                    rs.getString("Description") + " | " +
-                                    rs.getString("AppointmentStatus") + "\n"
-                    );
-                }
+        showViews(new AppointmentSearch()
+                .patient(patientID)
+                .doctor(doctorID)
+                .from(from)
+                .to(to)
+                .status(status));
+    }
+
+    // ======================= EXPORT APPOINTMENTS =======================
+
+    // Streams the appointments table to a gzip CSV (.csv.gz) or columnar (.hmsc) file chosen by the user.
+    // If an earlier export left a watermark in that folder, the user can export only newer appointments.
+
+    private void exportAppointments() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("appointments.csv.gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
 
+        Path output = chooser.getSelectedFile().toPath();
+        boolean incremental = TableExporter.hasWatermark(TableExporter.APPOINTMENTS, output)
+                && JOptionPane.showConfirmDialog(this, "Export only appointments added since the last export?",
+                "Export", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+
+        new DatabaseWorker<TableExporter.ExportResult, Void>(busyIndicator) {
+            @Override
+            protected TableExporter.ExportResult doInBackground() throws IOException {
+                return new TableExporter(DataSourceRouter.getInstance().readerPool()).export(TableExporter.APPOINTMENTS, output, incremental);
             }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Invalid search input!");
-        }
+            @Override
+            protected void succeeded(TableExporter.ExportResult result) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, "Exported " + result);
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(AppointmentDAO.this, "Export failed: " + error.getMessage());
+            }
+        }.start();
     }
 
     // ======================= MAIN =======================
 
-    // To run the application
+    // To run this module on its own; HospitalManagementSystem opens all three
 
     public static void main(String[] args) {
-        new AppointmentDAO();
+        HospitalManagementSystem.startServices();
+        SwingUtilities.invokeLater(AppointmentDAO::new);
     }
 
     // ======================= APPOINTMENT MODEL CLASS =======================
@@ -323,14 +596,29 @@ public class AppointmentDAO extends JFrame {
         private LocalDate appointmentDate;
         private String description;
         private String appointmentStatus;
+        private int version;
 
-        // Constructor
+        // Constructor for a new appointment that has no AppointmentID yet
         public Appointment(int patientID, int doctorID, LocalDate appointmentDate, String description, String appointmentStatus) {
+            this(0, patientID, doctorID, appointmentDate, description, appointmentStatus);
+        }
+
+        // Constructor for an appointment that has not been read from the database (version 0)
+        public Appointment(int appointmentID, int patientID, int doctorID, LocalDate appointmentDate, String description, String appointmentStatus) {
+            this(appointmentID, patientID, doctorID, appointmentDate, description, appointmentStatus, 0);
+        }
+
+        // Constructor for an appointment read from or written back to the database;
+        // version is the row version it was read with (see OptimisticLockException)
+        public Appointment(int appointmentID, int patientID, int doctorID, LocalDate appointmentDate, String description,
+                           String appointmentStatus, int version) {
+            this.appointmentID = appointmentID;
             this.patientID = patientID;
             this.doctorID = doctorID;
             this.appointmentDate = appointmentDate;
             this.description = description;
             this.appointmentStatus = appointmentStatus;
+            this.version = version;
         }
 
         // Getter methods
@@ -340,5 +628,75 @@ public class AppointmentDAO extends JFrame {
         public LocalDate getAppointmentDate() { return appointmentDate; }
         public String getDescription() { return description; }
         public String getAppointmentStatus() { return appointmentStatus; }
+        public int getVersion() { return version; }
+    }
+
+    // ======================= APPOINTMENT VIEW CLASS =======================
+
+    // Read-only projection for the listing screens: an appointment with the names of its
+    // patient and doctor, read by AppointmentRepository.searchViews in one joined query.
+    // The names are null if the patient or doctor no longer exists.
+
+    public static class AppointmentView {
+        private final int appointmentID;
+        private final int patientID;
+        private final String patientFirstName, patientLastName;
+        private final int doctorID;
+        private final String doctorFirstName, doctorLastName, specialty;
+        private final LocalDate appointmentDate;
+        private final String description;
+        private final String appointmentStatus;
+        private final int version;
+
+        public AppointmentView(int appointmentID, int patientID, String patientFirstName, String patientLastName,
+                               int doctorID, String doctorFirstName, String doctorLastName, String specialty,
+                               LocalDate appointmentDate, String description, String appointmentStatus, int version) {
+            this.appointmentID = appointmentID;
+            this.patientID = patientID;
+            this.patientFirstName = patientFirstName;
+            this.patientLastName = patientLastName;
+            this.doctorID = doctorID;
+            this.doctorFirstName = doctorFirstName;
+            this.doctorLastName = doctorLastName;
+            this.specialty = specialty;
+            this.appointmentDate = appointmentDate;
+            this.description = description;
+            this.appointmentStatus = appointmentStatus;
+            this.version = version;
+        }
+
+        // Getter methods
+        public int getAppointmentID() { return appointmentID; }
+        public int getPatientID() { return patientID; }
+        public String getPatientFirstName() { return patientFirstName; }
+        public String getPatientLastName() { return patientLastName; }
+        public int getDoctorID() { return doctorID; }
+        public String getDoctorFirstName() { return doctorFirstName; }
+        public String getDoctorLastName() { return doctorLastName; }
+        public String getSpecialty() { return specialty; }
+        public LocalDate getAppointmentDate() { return appointmentDate; }
+        public String getDescription() { return description; }
+        public String getAppointmentStatus() { return appointmentStatus; }
+        public int getVersion() { return version; }
+
+        // "First Last", or "" if the patient no longer exists
+        public String getPatientName() { return patientName(patientFirstName, patientLastName); }
+
+        // "First Last (Specialty)", or "" if the doctor no longer exists
+        public String getDoctorName() { return doctorName(doctorFirstName, doctorLastName, specialty); }
+
+        static String patientName(String first, String last) {
+            return fullName(first, last);
+        }
+
+        static String doctorName(String first, String last, String specialty) {
+            String name = fullName(first, last);
+            return specialty == null || specialty.isEmpty() || name.isEmpty() ? name : name + " (" + specialty + ")";
+        }
+
+        private static String fullName(String first, String last) {
+            if (first == null) return last == null ? "" : last;
+            return last == null ? first : first + " " + last;
+        }
     }
 }
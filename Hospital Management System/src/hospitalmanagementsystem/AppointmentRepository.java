@@ -0,0 +1,45 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.AppointmentDAO.AppointmentView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * AppointmentRepository is the headless data-access API for the appointments table.
+ * Implementations throw DataAccessException when the database operation fails.
+ */
+
+public interface AppointmentRepository {
+
+    // Inserts an appointment and returns the generated AppointmentID
+    int insert(Appointment appointment);
+
+    // Inserts all appointments with JDBC batching, batchSize rows per transaction.
+    // Failed rows are reported in the result instead of aborting the whole load.
+    BatchResult insertAll(Iterable<? extends Appointment> appointments, int batchSize);
+
+    default BatchResult insertAll(Stream<Appointment> appointments, int batchSize) {
+        return insertAll(appointments::iterator, batchSize);
+    }
+
+    Optional<Appointment> findById(int appointmentID);
+
+    // Returns up to limit appointments with AppointmentID greater than afterID, ordered by AppointmentID
+    List<Appointment> findPage(int afterID, int limit);
+
+    // Returns the appointments matching the criteria, in the requested order, up to its limit
+    List<Appointment> search(AppointmentSearch criteria);
+
+    // Like search, but each row also carries the patient's and doctor's names (read in the same query)
+    List<AppointmentView> searchViews(AppointmentSearch criteria);
+
+    // Overwrites the appointment row with the given AppointmentID if its version is still the one the appointment was read with.
+    // Throws EntityNotFoundException if the row does not exist, OptimisticLockException if it has changed since.
+    void update(Appointment appointment);
+
+    // Deletes the appointment row; throws EntityNotFoundException if it does not exist
+    void delete(int appointmentID);
+}
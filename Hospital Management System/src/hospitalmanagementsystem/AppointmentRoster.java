@@ -0,0 +1,480 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AppointmentRoster keeps upcoming appointments (today plus horizonDays) in memory:
+ * Stored as primitive columns in an AppointmentStore, indexed by AppointmentID, date, doctor and patient
+ * Loaded once, then refreshed incrementally by polling the LastModified column
+ * Deletions are picked up by a periodic ID reconcile over the date window
+ * The whole window is re-read every resyncMinutes, for transactions that committed later than
+ * the poll overlap after writing their LastModified
+ * Local writes are applied immediately from the appointment EntityEvents (deletes from other
+ * instances too); other remote changes arrive with the next poll
+ *
+ * Searches whose date range lies inside the window are answered from memory: the matching rows
+ * are ranked in a bounded heap of limit entries and only the returned ones become Appointment objects.
+ *
+ * At under 100 bytes per appointment with its indexes, plus its description text,
+ * -Dhms.roster.horizonDays=365 can hold a year; -Dhms.roster.offHeap=true keeps the columns
+ * (not the descriptions) outside the Java heap.
+ */
+
+public class AppointmentRoster {
+
+    private static final Logger LOG = Logger.getLogger(AppointmentRoster.class.getName());
+
+    // LastModified is set when the statement runs, not when its transaction commits, so each poll
+    // re-reads this much history (-Dhms.roster.overlapMillis). The default covers MySQL's 50 s
+    // innodb_lock_wait_timeout, e.g. a booking that waited on its FOR UPDATE locks before committing.
+    private static final long OVERLAP_MILLIS = Long.getLong("hms.roster.overlapMillis", 60_000);
+    private static final int RECONCILE_EVERY = 12;
+    // Re-reads the whole window for the rare transaction that committed even later (-Dhms.roster.resyncMinutes)
+    private static final long RESYNC_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("hms.roster.resyncMinutes", 10));
+
+    private static AppointmentRoster instance;
+
+    private final ConnectionPool pool;
+    private final int horizonDays;
+    private final long pollMillis;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AppointmentStore store;
+
+    private volatile boolean loaded;
+    private LocalDate windowStart, windowEnd;
+    private Timestamp watermark;
+    private int polls;
+    private long lastLoadMillis;
+    private ScheduledExecutorService scheduler;
+    private EntityEventBus.Subscription events;
+
+    public AppointmentRoster(ConnectionPool pool, int horizonDays, long pollMillis) {
+        this(pool, horizonDays, pollMillis, false);
+    }
+
+    public AppointmentRoster(ConnectionPool pool, int horizonDays, long pollMillis, boolean offHeap) {
+        this.pool = pool;
+        this.horizonDays = horizonDays;
+        this.pollMillis = pollMillis;
+        this.store = new AppointmentStore(1024, offHeap);
+    }
+
+    // Roster over the default pool; window and poll interval come from
+    // -Dhms.roster.horizonDays (default 7) and -Dhms.roster.pollSeconds (default 5)
+    public static synchronized AppointmentRoster getInstance() {
+        if (instance == null) {
+            instance = new AppointmentRoster(ConnectionPool.getInstance(),
+                    Integer.getInteger("hms.roster.horizonDays", 7),
+                    TimeUnit.SECONDS.toMillis(Integer.getInteger("hms.roster.pollSeconds", 5)),
+                    Boolean.getBoolean("hms.roster.offHeap"));
+            instance.registerGauges(QueryMetrics.getInstance());
+        }
+        return instance;
+    }
+
+    // ======================= LIFECYCLE =======================
+
+    // Loads the roster in the background and then keeps polling for changes
+    public synchronized void start() {
+        if (scheduler != null) return;
+        if (events == null) {
+            events = EntityEventBus.getInstance().subscribe(EntityEvent.Kind.APPOINTMENT, event -> {
+                if (event.isDelete()) remove(event.getId());
+                else if (!event.isRemote()) upsert(event.getPayload());
+            });
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "appointment-roster");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isLoaded() { return loaded; }
+
+    public void registerGauges(QueryMetrics metrics) {
+        metrics.registerGauge("hms_roster_appointments", this::size);
+        metrics.registerGauge("hms_roster_bytes", this::getMemoryBytes);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Appointment roster refresh failed", e);
+        }
+    }
+
+    // Applies changes since the last refresh; reloads everything when the day rolls over
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        if (!loaded || !today.equals(windowStart)) {
+            QueryMetrics.getInstance().record("roster.load", () -> reload(today));
+            return;
+        }
+        if (System.currentTimeMillis() - lastLoadMillis >= RESYNC_MILLIS) {
+            QueryMetrics.getInstance().record("roster.resync", () -> reload(today));
+            return;
+        }
+        QueryMetrics.getInstance().record("roster.poll", this::pollChanges);
+        if (++polls % RECONCILE_EVERY == 0) {
+            QueryMetrics.getInstance().record("roster.reconcile", this::reconcileDeletes);
+        }
+    }
+
+    // ======================= LOADING =======================
+
+    private static final String COLUMNS = JdbcAppointmentRepository.MAPPER.selectList() + ", LastModified";
+    private static final int LAST_MODIFIED = JdbcAppointmentRepository.MAPPER.columnCount() + 1; // follows the mapped columns
+
+    private void reload(LocalDate today) {
+        LocalDate end = today.plusDays(horizonDays);
+        String sql = "SELECT " + COLUMNS + " FROM appointments WHERE AppointmentDate BETWEEN ? AND ?";
+        List<Appointment> rows = new ArrayList<>();
+        Timestamp newest = null;
+
+        try (Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(today));
+            stmt.setDate(2, Date.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                EntityMapper.RowReader<Appointment> reader = JdbcAppointmentRepository.MAPPER.bind(rs);
+                while (rs.next()) {
+                    rows.add(reader.read());
+                    newest = later(newest, rs.getTimestamp(LAST_MODIFIED));
+                }
+            }
+            if (newest == null && watermark == null) {
+                newest = databaseNow(conn);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading appointment roster: " + e.getMessage(), e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            store.clear();
+            windowStart = today;
+            windowEnd = end;
+            for (Appointment a : rows) store.put(a);
+            // a resync keeps polling from where it was; the window's newest row may be older
+            watermark = later(watermark, newest);
+            lastLoadMillis = System.currentTimeMillis();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reads rows modified since the watermark and applies them. A row that cannot be applied is
+    // logged and skipped, so one bad row never holds the watermark back.
+    private void pollChanges() {
+        String sql = "SELECT " + COLUMNS + " FROM appointments WHERE LastModified >= ?";
+        List<Appointment> changed = new ArrayList<>();
+        Timestamp newest = watermark;
+
+        try (Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, new Timestamp(watermark.getTime() - OVERLAP_MILLIS));
+            try (ResultSet rs = stmt.executeQuery()) {
+                EntityMapper.RowReader<Appointment> reader = JdbcAppointmentRepository.MAPPER.bind(rs);
+                while (rs.next()) {
+                    changed.add(reader.read());
+                    newest = later(newest, rs.getTimestamp(LAST_MODIFIED));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error polling appointment changes: " + e.getMessage(), e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Appointment a : changed) {
+                try {
+                    upsertLocked(a);
+                } catch (RuntimeException e) {
+                    store.remove(a.getAppointmentID());
+                    LOG.log(Level.WARNING, "Skipping appointment " + a.getAppointmentID() + " in the roster", e);
+                }
+            }
+            watermark = newest;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops roster entries whose rows no longer exist in the window
+    private void reconcileDeletes() {
+        String sql = "SELECT AppointmentID FROM appointments WHERE AppointmentDate BETWEEN ? AND ?";
+        int[] present = new int[1024];
+        int count = 0;
+        LocalDate start, end;
+
+        lock.readLock().lock();
+        try {
+            start = windowStart;
+            end = windowEnd;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try (Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(start));
+            stmt.setDate(2, Date.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (count == present.length) present = Arrays.copyOf(present, count * 2);
+                    present[count++] = rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reconciling appointment roster: " + e.getMessage(), e);
+        }
+
+        Arrays.sort(present, 0, count);
+        lock.writeLock().lock();
+        try {
+            for (int id : store.ids()) {
+                if (Arrays.binarySearch(present, 0, count, id) < 0) store.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ======================= LOCAL UPDATES =======================
+
+    // Applies an insert or update made by this process without waiting for the next poll
+    public void upsert(Appointment appointment) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) upsertLocked(appointment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int appointmentID) {
+        lock.writeLock().lock();
+        try {
+            store.remove(appointmentID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rows without a date can never match a date range, so they are evicted like rows outside the window
+    private void upsertLocked(Appointment appointment) {
+        LocalDate date = appointment.getAppointmentDate();
+        if (date != null && !date.isBefore(windowStart) && !date.isAfter(windowEnd)) {
+            store.put(appointment);
+        } else {
+            store.remove(appointment.getAppointmentID());
+        }
+    }
+
+    // ======================= QUERIES =======================
+
+    // True when the criteria's date range lies inside the loaded window
+    public boolean covers(AppointmentSearch criteria) {
+        lock.readLock().lock();
+        try {
+            return loaded && criteria.getFrom() != null && criteria.getTo() != null
+                    && !criteria.getFrom().isBefore(windowStart) && !criteria.getTo().isAfter(windowEnd);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Answers a search from memory; only valid when covers(criteria) is true
+    public List<Appointment> search(AppointmentSearch criteria) {
+        Filter filter = new Filter(criteria);
+        TopSlots top = new TopSlots(criteria.getLimit());
+        AppointmentStore.SlotVisitor collect = slot -> {
+            if (filter.matches(store, slot)) top.offer(sortKey(criteria.getSort(), store, slot), slot);
+        };
+        lock.readLock().lock();
+        try {
+            // walk the smallest index that can answer the criteria
+            if (criteria.getDoctorID() != null) store.forDoctor(criteria.getDoctorID(), collect);
+            else if (criteria.getPatientID() != null) store.forPatient(criteria.getPatientID(), collect);
+            else store.forDates(criteria.getFrom(), criteria.getTo(), collect);
+
+            // slots move when rows are removed, so the page is built before the lock is released
+            int[] slots = top.sortedSlots();
+            List<Appointment> page = new ArrayList<>(slots.length);
+            for (int slot : slots) page.add(store.appointmentAt(slot));
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Appointment> forDate(LocalDate date) {
+        return search(new AppointmentSearch().from(date).to(date).sort(AppointmentSearch.Sort.ID).limit(Integer.MAX_VALUE));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes held by the roster's columns and indexes
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return store.getMemoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Search criteria with the dates as epoch days, checked against the store's columns
+    private static final class Filter {
+        final AppointmentSearch c;
+        final int from, to, afterDay;
+
+        Filter(AppointmentSearch c) {
+            this.c = c;
+            this.from = (int) c.getFrom().toEpochDay();
+            this.to = (int) c.getTo().toEpochDay();
+            this.afterDay = c.getAfterDate() == null ? 0 : (int) c.getAfterDate().toEpochDay();
+        }
+
+        boolean matches(AppointmentStore store, int slot) {
+            if (c.getPatientID() != null && store.patientIdAt(slot) != c.getPatientID()) return false;
+            if (c.getDoctorID() != null && store.doctorIdAt(slot) != c.getDoctorID()) return false;
+            int day = store.epochDayAt(slot);
+            if (day < from || day > to) return false;
+            if (c.getStatus() != null && !c.getStatus().equalsIgnoreCase(store.statusAt(slot))) return false;
+            if (!c.hasKeyset()) return true;
+
+            int id = store.appointmentIdAt(slot);
+            if (c.getSort() != AppointmentSearch.Sort.ID && c.getAfterDate() == null) {
+                // continuing after an undated row: those follow every dated row, the only kind the roster holds
+                return false;
+            }
+            switch (c.getSort()) {
+                case DATE:
+                    return day > afterDay || (day == afterDay && id > c.getAfterID());
+                case DATE_DESC:
+                    return day < afterDay || (day == afterDay && id < c.getAfterID());
+                default:
+                    return id > c.getAfterID();
+            }
+        }
+    }
+
+    // The row's position in the sort order as one long, smallest first: (day, id) packed for the
+    // date orders (negated for DATE_DESC), the id alone for Sort.ID. IDs and epoch days are positive.
+    private static long sortKey(AppointmentSearch.Sort sort, AppointmentStore store, int slot) {
+        long id = store.appointmentIdAt(slot);
+        switch (sort) {
+            case DATE:
+                return (long) store.epochDayAt(slot) << 32 | id;
+            case DATE_DESC:
+                return -((long) store.epochDayAt(slot) << 32 | id);
+            default:
+                return id;
+        }
+    }
+
+    // Keeps the limit slots with the smallest keys seen, as a max-heap on parallel primitive arrays,
+    // so ranking N matches costs O(N log limit) and allocates nothing per match
+    private static final class TopSlots {
+        private final int limit;
+        private long[] keys = new long[16];
+        private int[] slots = new int[16];
+        private int size;
+
+        TopSlots(int limit) {
+            this.limit = limit;
+        }
+
+        void offer(long key, int slot) {
+            if (size < limit) {
+                if (size == keys.length) {
+                    int capacity = (int) Math.min(limit, keys.length * 2L);
+                    keys = Arrays.copyOf(keys, capacity);
+                    slots = Arrays.copyOf(slots, capacity);
+                }
+                int i = size++;
+                while (i > 0 && keys[(i - 1) / 2] < key) {
+                    int parent = (i - 1) / 2;
+                    keys[i] = keys[parent];
+                    slots[i] = slots[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+                slots[i] = slot;
+            } else if (key < keys[0]) {
+                siftDown(key, slot);
+            }
+        }
+
+        // Replaces the largest key and restores the heap
+        private void siftDown(long key, int slot) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                if (keys[child] <= key) break;
+                keys[i] = keys[child];
+                slots[i] = slots[child];
+                i = child;
+            }
+            keys[i] = key;
+            slots[i] = slot;
+        }
+
+        // Empties the heap into an array of slots in ascending key order
+        int[] sortedSlots() {
+            int[] sorted = new int[size];
+            for (int n = size - 1; n >= 0; n--) {
+                sorted[n] = slots[0];
+                size--;
+                if (size > 0) siftDown(keys[size], slots[size]);
+            }
+            return sorted;
+        }
+    }
+
+    // ======================= HELPERS =======================
+
+    private static Timestamp later(Timestamp a, Timestamp b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.after(a) ? b : a;
+    }
+
+    private static Timestamp databaseNow(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP(3)")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+}
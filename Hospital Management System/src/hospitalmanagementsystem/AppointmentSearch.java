@@ -0,0 +1,117 @@
+package hospitalmanagementsystem;
+
+import java.time.LocalDate;
+
+/**
+ * AppointmentSearch holds the criteria for AppointmentRepository.search and searchViews:
+ * Patient, doctor, appointment date range (inclusive) and status filters; unset filters match everything
+ * Sort order and maximum number of rows
+ * A keyset position, so the next page continues after the last row already read
+ *
+ * The setters return this so criteria can be chained:
+ * new AppointmentSearch().doctor(7).from(today).to(nextWeek).sort(Sort.DATE).limit(50)
+ */
+
+public class AppointmentSearch {
+
+    // Supported orderings; every ordering ends with AppointmentID so pages are stable.
+    // In both date orders, appointments without a date come after all dated ones, by AppointmentID.
+    public enum Sort { ID, DATE, DATE_DESC }
+
+    public static final int DEFAULT_LIMIT = 200;
+
+    private Integer patientID, doctorID;
+    private LocalDate from, to;
+    private String status;
+    private Sort sort = Sort.ID;
+    private int limit = DEFAULT_LIMIT;
+
+    // Keyset position: the last row of the previous page
+    private int afterID;
+    private LocalDate afterDate;
+
+    // Independent copy of these criteria, e.g. to page through them without changing the original
+    public AppointmentSearch copy() {
+        AppointmentSearch copy = new AppointmentSearch();
+        copy.patientID = patientID;
+        copy.doctorID = doctorID;
+        copy.from = from;
+        copy.to = to;
+        copy.status = status;
+        copy.sort = sort;
+        copy.limit = limit;
+        copy.afterID = afterID;
+        copy.afterDate = afterDate;
+        return copy;
+    }
+
+    public AppointmentSearch patient(Integer patientID) { this.patientID = patientID; return this; }
+    public AppointmentSearch doctor(Integer doctorID) { this.doctorID = doctorID; return this; }
+    public AppointmentSearch from(LocalDate from) { this.from = from; return this; }
+    public AppointmentSearch to(LocalDate to) { this.to = to; return this; }
+    public AppointmentSearch status(String status) { this.status = status; return this; }
+
+    public AppointmentSearch sort(Sort sort) {
+        if (sort == null) throw new IllegalArgumentException("Sort must not be null");
+        this.sort = sort;
+        return this;
+    }
+
+    public AppointmentSearch limit(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be positive: " + limit);
+        this.limit = limit;
+        return this;
+    }
+
+    // Continues after the given AppointmentID (for Sort.ID)
+    public AppointmentSearch after(int appointmentID) {
+        this.afterID = appointmentID;
+        this.afterDate = null;
+        return this;
+    }
+
+    // Continues after the given row (for Sort.DATE and Sort.DATE_DESC); the date is null for an undated row
+    public AppointmentSearch after(LocalDate appointmentDate, int appointmentID) {
+        this.afterDate = appointmentDate;
+        this.afterID = appointmentID;
+        return this;
+    }
+
+    // Positions the search after the last row of a page read with the same criteria
+    public AppointmentSearch after(AppointmentDAO.Appointment last) {
+        return sort == Sort.ID ? after(last.getAppointmentID()) : after(last.getAppointmentDate(), last.getAppointmentID());
+    }
+
+    public AppointmentSearch after(AppointmentDAO.AppointmentView last) {
+        return sort == Sort.ID ? after(last.getAppointmentID()) : after(last.getAppointmentDate(), last.getAppointmentID());
+    }
+
+    public Integer getPatientID() { return patientID; }
+    public Integer getDoctorID() { return doctorID; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public String getStatus() { return status; }
+    public Sort getSort() { return sort; }
+    public int getLimit() { return limit; }
+    public int getAfterID() { return afterID; }
+    public LocalDate getAfterDate() { return afterDate; }
+
+    // Identifies which filters are present; searches with the same shape share one SQL string
+    int shape() {
+        int shape = sort.ordinal();
+        if (patientID != null) shape |= 1 << 2;
+        if (doctorID != null) shape |= 1 << 3;
+        if (from != null) shape |= 1 << 4;
+        if (to != null) shape |= 1 << 5;
+        if (status != null) shape |= 1 << 6;
+        if (hasKeyset()) shape |= 1 << 7;
+        if (hasKeyset() && sort != Sort.ID && afterDate == null) shape |= 1 << 8;
+        return shape;
+    }
+
+    // True when the search continues after a previous page. For the date orders the
+    // previous page may have ended on an undated row, which only has its AppointmentID.
+    boolean hasKeyset() {
+        return sort == Sort.ID ? afterID > 0 : afterDate != null || afterID > 0;
+    }
+}
@@ -0,0 +1,402 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * AppointmentStore keeps appointments as columns of primitives instead of Appointment objects:
+ * AppointmentID, PatientID, DoctorID, version and date (as an epoch day) in int columns
+ * Status as a one-byte code into a dictionary, as a status has only a handful of values
+ * Description by reference in a per-slot array, so a removed row's text is released with it
+ * Int and status columns are int[]/byte[] backed buffers, or direct buffers outside the Java heap when offHeap is set
+ * Indexed by AppointmentID through an open-addressing int hash table, and by doctor, patient and
+ * day through doubly linked chains of row slots held in int columns, so indexing allocates nothing per row
+ * Rows stay dense: the last row moves into the slot of a removed one
+ *
+ * A row takes 45 bytes of columns and a reference to its description, plus its share of the
+ * hash tables, against several hundred for an Appointment with its LocalDate and the boxed
+ * entries of map-based indexes. Description text stays on the heap whatever offHeap says.
+ *
+ * Not thread-safe; AppointmentRoster guards it with its read-write lock. A slot passed to a
+ * SlotVisitor is only valid until the next put or remove.
+ */
+
+public class AppointmentStore {
+
+    // Called with the slot of each row a scan visits; read the row with the ...At(slot) methods
+    @FunctionalInterface
+    public interface SlotVisitor {
+        void visit(int slot);
+    }
+
+    private static final int NONE = -1;
+
+    // Int columns
+    private static final int ID = 0, PATIENT = 1, DOCTOR = 2, DAY = 3, VERSION = 4;
+    private static final int NEXT_BY_DOCTOR = 5, PREV_BY_DOCTOR = 6;
+    private static final int NEXT_BY_PATIENT = 7, PREV_BY_PATIENT = 8;
+    private static final int NEXT_BY_DAY = 9, PREV_BY_DAY = 10;
+    private static final int INT_COLUMNS = 11;
+
+    // Size of an array element holding a reference, assuming compressed oops
+    private static final int REFERENCE_BYTES = 4;
+
+    // Status codes 0-254 come from the dictionary; later distinct statuses are kept by AppointmentID
+    private static final int MAX_STATUS_CODES = 255;
+    private static final int OVERFLOW_STATUS = 255;
+
+    private final boolean offHeap;
+    private final IntBuffer[] ints = new IntBuffer[INT_COLUMNS];
+    private ByteBuffer statuses;
+    private String[] descriptions;
+    private int capacity, size;
+
+    private final IntIntMap slotById = new IntIntMap();
+    private final IntIntMap firstByDoctor = new IntIntMap(), firstByPatient = new IntIntMap(), firstByDay = new IntIntMap();
+    private int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+
+    private final Dictionary statusCodes = new Dictionary();
+    private final Map<Integer, String> overflowStatuses = new HashMap<>();
+
+    public AppointmentStore(int initialCapacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    public boolean isOffHeap() { return offHeap; }
+    public int size() { return size; }
+
+    // Bytes held by the columns and hash tables (not the description or status strings)
+    public long getMemoryBytes() {
+        return (long) capacity * (INT_COLUMNS * Integer.BYTES + 1 + REFERENCE_BYTES) + slotById.getMemoryBytes()
+                + firstByDoctor.getMemoryBytes() + firstByPatient.getMemoryBytes() + firstByDay.getMemoryBytes();
+    }
+
+    // ======================= UPDATES =======================
+
+    // Adds the appointment, replacing the row with the same AppointmentID. Only dated
+    // appointments can be stored; the day column has no value for a missing date.
+    public void put(Appointment a) {
+        if (a.getAppointmentDate() == null) {
+            throw new IllegalArgumentException("Appointment " + a.getAppointmentID() + " has no date");
+        }
+        remove(a.getAppointmentID());
+        if (size == capacity) allocate(capacity * 2);
+
+        int slot = size++;
+        int day = (int) a.getAppointmentDate().toEpochDay();
+        set(ID, slot, a.getAppointmentID());
+        set(PATIENT, slot, a.getPatientID());
+        set(DOCTOR, slot, a.getDoctorID());
+        set(DAY, slot, day);
+        set(VERSION, slot, a.getVersion());
+        descriptions[slot] = a.getDescription();
+        statuses.put(slot, statusCode(a.getAppointmentID(), a.getAppointmentStatus()));
+
+        link(slot, firstByDoctor, a.getDoctorID(), NEXT_BY_DOCTOR, PREV_BY_DOCTOR);
+        link(slot, firstByPatient, a.getPatientID(), NEXT_BY_PATIENT, PREV_BY_PATIENT);
+        link(slot, firstByDay, day, NEXT_BY_DAY, PREV_BY_DAY);
+        slotById.put(a.getAppointmentID(), slot);
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+    }
+
+    // Removes the appointment; returns false if it was not stored
+    public boolean remove(int appointmentID) {
+        int slot = slotById.remove(appointmentID);
+        if (slot == NONE) return false;
+
+        unlink(slot, firstByDoctor, get(DOCTOR, slot), NEXT_BY_DOCTOR, PREV_BY_DOCTOR);
+        unlink(slot, firstByPatient, get(PATIENT, slot), NEXT_BY_PATIENT, PREV_BY_PATIENT);
+        unlink(slot, firstByDay, get(DAY, slot), NEXT_BY_DAY, PREV_BY_DAY);
+        if ((statuses.get(slot) & 0xFF) == OVERFLOW_STATUS) overflowStatuses.remove(appointmentID);
+
+        int last = --size;
+        if (slot != last) move(last, slot);
+        descriptions[last] = null;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(descriptions, 0, size, null);
+        size = 0;
+        slotById.clear();
+        firstByDoctor.clear();
+        firstByPatient.clear();
+        firstByDay.clear();
+        minDay = Integer.MAX_VALUE;
+        maxDay = Integer.MIN_VALUE;
+        statusCodes.clear();
+        overflowStatuses.clear();
+    }
+
+    // ======================= SCANS =======================
+
+    public boolean contains(int appointmentID) {
+        return slotById.get(appointmentID) != NONE;
+    }
+
+    // The stored appointment, or null
+    public Appointment get(int appointmentID) {
+        int slot = slotById.get(appointmentID);
+        return slot == NONE ? null : appointmentAt(slot);
+    }
+
+    public void forDoctor(int doctorID, SlotVisitor visitor) {
+        visitChain(firstByDoctor.get(doctorID), NEXT_BY_DOCTOR, visitor);
+    }
+
+    public void forPatient(int patientID, SlotVisitor visitor) {
+        visitChain(firstByPatient.get(patientID), NEXT_BY_PATIENT, visitor);
+    }
+
+    // Visits the appointments dated from..to inclusive, one day at a time
+    public void forDates(LocalDate from, LocalDate to, SlotVisitor visitor) {
+        int first = Math.max((int) from.toEpochDay(), minDay);
+        int last = Math.min((int) to.toEpochDay(), maxDay);
+        for (int day = first; day <= last; day++) {
+            visitChain(firstByDay.get(day), NEXT_BY_DAY, visitor);
+        }
+    }
+
+    public void forEach(SlotVisitor visitor) {
+        for (int slot = 0; slot < size; slot++) visitor.visit(slot);
+    }
+
+    // AppointmentIDs of every stored appointment
+    public int[] ids() {
+        int[] ids = new int[size];
+        for (int slot = 0; slot < size; slot++) ids[slot] = get(ID, slot);
+        return ids;
+    }
+
+    // ======================= ROW ACCESS =======================
+
+    public int appointmentIdAt(int slot) { return get(ID, slot); }
+    public int patientIdAt(int slot) { return get(PATIENT, slot); }
+    public int doctorIdAt(int slot) { return get(DOCTOR, slot); }
+    public int epochDayAt(int slot) { return get(DAY, slot); }
+    public int versionAt(int slot) { return get(VERSION, slot); }
+    public String descriptionAt(int slot) { return descriptions[slot]; }
+
+    public String statusAt(int slot) {
+        int code = statuses.get(slot) & 0xFF;
+        return code == OVERFLOW_STATUS ? overflowStatuses.get(get(ID, slot)) : statusCodes.value(code);
+    }
+
+    // Builds an Appointment for one row
+    public Appointment appointmentAt(int slot) {
+        return new Appointment(get(ID, slot), get(PATIENT, slot), get(DOCTOR, slot), LocalDate.ofEpochDay(get(DAY, slot)),
+                descriptionAt(slot), statusAt(slot), get(VERSION, slot));
+    }
+
+    // ======================= INTERNALS =======================
+
+    private int get(int column, int slot) {
+        return ints[column].get(slot);
+    }
+
+    private void set(int column, int slot, int value) {
+        ints[column].put(slot, value);
+    }
+
+    private byte statusCode(int appointmentID, String status) {
+        int code = statusCodes.codeIfBelow(status, MAX_STATUS_CODES);
+        if (code == NONE) {
+            overflowStatuses.put(appointmentID, status);
+            code = OVERFLOW_STATUS;
+        }
+        return (byte) code;
+    }
+
+    // Makes the slot the first of its key's chain
+    private void link(int slot, IntIntMap first, int key, int next, int prev) {
+        int head = first.get(key);
+        set(next, slot, head);
+        set(prev, slot, NONE);
+        if (head != NONE) set(prev, head, slot);
+        first.put(key, slot);
+    }
+
+    private void unlink(int slot, IntIntMap first, int key, int next, int prev) {
+        int after = get(next, slot), before = get(prev, slot);
+        if (before != NONE) set(next, before, after);
+        else if (after != NONE) first.put(key, after);
+        else first.remove(key);
+        if (after != NONE) set(prev, after, before);
+    }
+
+    // Copies row from into slot to and points its neighbours, chain heads and ID entry at the new slot
+    private void move(int from, int to) {
+        for (int column = 0; column < INT_COLUMNS; column++) set(column, to, get(column, from));
+        statuses.put(to, statuses.get(from));
+        descriptions[to] = descriptions[from];
+        relink(to, firstByDoctor, get(DOCTOR, to), NEXT_BY_DOCTOR, PREV_BY_DOCTOR);
+        relink(to, firstByPatient, get(PATIENT, to), NEXT_BY_PATIENT, PREV_BY_PATIENT);
+        relink(to, firstByDay, get(DAY, to), NEXT_BY_DAY, PREV_BY_DAY);
+        slotById.put(get(ID, to), to);
+    }
+
+    private void relink(int slot, IntIntMap first, int key, int next, int prev) {
+        int after = get(next, slot), before = get(prev, slot);
+        if (before != NONE) set(next, before, slot);
+        else first.put(key, slot);
+        if (after != NONE) set(prev, after, slot);
+    }
+
+    private void visitChain(int slot, int next, SlotVisitor visitor) {
+        while (slot != NONE) {
+            int following = get(next, slot); // read first in case the visitor looks at other rows
+            visitor.visit(slot);
+            slot = following;
+        }
+    }
+
+    // Allocates columns of the new capacity and copies the stored rows into them
+    private void allocate(int newCapacity) {
+        for (int column = 0; column < INT_COLUMNS; column++) {
+            IntBuffer grown = offHeap
+                    ? ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer()
+                    : IntBuffer.allocate(newCapacity);
+            if (ints[column] != null) {
+                IntBuffer old = ints[column].duplicate();
+                old.position(0).limit(size);
+                grown.put(old).clear();
+            }
+            ints[column] = grown;
+        }
+        ByteBuffer grownStatuses = offHeap ? ByteBuffer.allocateDirect(newCapacity) : ByteBuffer.allocate(newCapacity);
+        if (statuses != null) {
+            ByteBuffer old = statuses.duplicate();
+            old.position(0).limit(size);
+            grownStatuses.put(old).clear();
+        }
+        statuses = grownStatuses;
+        descriptions = descriptions == null ? new String[newCapacity] : Arrays.copyOf(descriptions, newCapacity);
+        capacity = newCapacity;
+    }
+
+    // ======================= DICTIONARY =======================
+
+    // Numbers distinct strings (null included) in order of first use
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        // The value's code, adding it if fewer than limit codes are in use; NONE when full
+        int codeIfBelow(String value, int limit) {
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            if (values.size() >= limit) return NONE;
+            codes.put(value, values.size());
+            values.add(value);
+            return values.size() - 1;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            values.clear();
+        }
+    }
+
+    // ======================= INT HASH TABLE =======================
+
+    // Open-addressing int-to-int map with linear probing; absent keys read as NONE.
+    // Integer.MIN_VALUE marks empty cells and cannot be used as a key.
+    private static final class IntIntMap {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] keys, values;
+        private int size;
+
+        IntIntMap() {
+            allocate(16);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+                if (keys[i] == EMPTY) return NONE;
+            }
+        }
+
+        void put(int key, int value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                if (++size * 10 > keys.length * 7) {
+                    values[i] = value;
+                    rehash(keys.length * 2);
+                    return;
+                }
+            }
+            values[i] = value;
+        }
+
+        // Removes the key and returns its value, or NONE. Later entries of the probe run
+        // are shifted back, so lookups never need tombstones.
+        int remove(int key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return NONE;
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                // the entry at j may fill the hole at i unless its home lies cyclically in (i, j]
+                boolean homeBetween = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+                if (!homeBetween) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+            size--;
+            return removed;
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        long getMemoryBytes() {
+            return 2L * keys.length * Integer.BYTES;
+        }
+
+        private void rehash(int newLength) {
+            int[] oldKeys = keys, oldValues = values;
+            allocate(newLength);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void allocate(int length) {
+            keys = new int[length];
+            values = new int[length];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.AppointmentDAO.AppointmentView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * AsyncAppointmentRepository is the non-blocking form of AppointmentRepository:
+ * Every call runs on the executor (DatabaseExecutor by default) and returns a CompletableFuture
+ * Failures complete the future exceptionally with the DataAccessException or EntityNotFoundException
+ * findAll publishes the whole table page by page as a Flow.Publisher, honouring back-pressure
+ *
+ * Callers can start several lookups at once and combine them with thenCombine/allOf
+ * instead of blocking a thread per call.
+ */
+
+public class AsyncAppointmentRepository {
+
+    private final AppointmentRepository delegate;
+    private final Executor executor;
+
+    public AsyncAppointmentRepository(AppointmentRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public AppointmentRepository getDelegate() { return delegate; }
+
+    public CompletableFuture<Integer> insert(Appointment appointment) {
+        return CompletableFuture.supplyAsync(() -> delegate.insert(appointment), executor);
+    }
+
+    public CompletableFuture<BatchResult> insertAll(Iterable<? extends Appointment> appointments, int batchSize) {
+        return CompletableFuture.supplyAsync(() -> delegate.insertAll(appointments, batchSize), executor);
+    }
+
+    public CompletableFuture<Optional<Appointment>> findById(int appointmentID) {
+        return CompletableFuture.supplyAsync(() -> delegate.findById(appointmentID), executor);
+    }
+
+    // Like findById, but completes exceptionally with EntityNotFoundException when the row does not exist
+    public CompletableFuture<Appointment> get(int appointmentID) {
+        return findById(appointmentID).thenApply(found -> found.orElseThrow(() -> new EntityNotFoundException("appointment", appointmentID)));
+    }
+
+    public CompletableFuture<List<Appointment>> findPage(int afterID, int limit) {
+        return CompletableFuture.supplyAsync(() -> delegate.findPage(afterID, limit), executor);
+    }
+
+    public CompletableFuture<List<Appointment>> search(AppointmentSearch criteria) {
+        return CompletableFuture.supplyAsync(() -> delegate.search(criteria), executor);
+    }
+
+    // Publishes every appointment matching the criteria in AppointmentID order, one page per request;
+    // the sort and keyset of the criteria are replaced by AppointmentID paging
+    public Flow.Publisher<Appointment> searchAll(AppointmentSearch criteria, int pageSize) {
+        return new KeysetPublisher<>((afterID, limit) -> delegate.search(criteria.copy()
+                .sort(AppointmentSearch.Sort.ID)
+                .after(afterID)
+                .limit(limit)), Appointment::getAppointmentID, pageSize, executor);
+    }
+
+    public CompletableFuture<List<AppointmentView>> searchViews(AppointmentSearch criteria) {
+        return CompletableFuture.supplyAsync(() -> delegate.searchViews(criteria), executor);
+    }
+
+    // Publishes every matching appointment with its patient and doctor names, like searchAll
+    public Flow.Publisher<AppointmentView> searchViewsAll(AppointmentSearch criteria, int pageSize) {
+        return new KeysetPublisher<>((afterID, limit) -> delegate.searchViews(criteria.copy()
+                .sort(AppointmentSearch.Sort.ID)
+                .after(afterID)
+                .limit(limit)), AppointmentView::getAppointmentID, pageSize, executor);
+    }
+
+    // Publishes every appointment in AppointmentID order, fetching pageSize rows at a time as the subscriber requests them
+    public Flow.Publisher<Appointment> findAll(int pageSize) {
+        return new KeysetPublisher<>(delegate::findPage, Appointment::getAppointmentID, pageSize, executor);
+    }
+
+    public CompletableFuture<Void> update(Appointment appointment) {
+        return CompletableFuture.runAsync(() -> delegate.update(appointment), executor);
+    }
+
+    public CompletableFuture<Void> delete(int appointmentID) {
+        return CompletableFuture.runAsync(() -> delegate.delete(appointmentID), executor);
+    }
+}
@@ -0,0 +1,66 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * AsyncDoctorRepository is the non-blocking form of DoctorRepository:
+ * Every call runs on the executor (DatabaseExecutor by default) and returns a CompletableFuture
+ * Failures complete the future exceptionally with the DataAccessException or EntityNotFoundException
+ * findAll publishes the whole table page by page as a Flow.Publisher, honouring back-pressure
+ *
+ * Callers can start several lookups at once and combine them with thenCombine/allOf
+ * instead of blocking a thread per call.
+ */
+
+public class AsyncDoctorRepository {
+
+    private final DoctorRepository delegate;
+    private final Executor executor;
+
+    public AsyncDoctorRepository(DoctorRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public DoctorRepository getDelegate() { return delegate; }
+
+    public CompletableFuture<Integer> insert(Doctor doctor) {
+        return CompletableFuture.supplyAsync(() -> delegate.insert(doctor), executor);
+    }
+
+    public CompletableFuture<BatchResult> insertAll(Iterable<? extends Doctor> doctors, int batchSize) {
+        return CompletableFuture.supplyAsync(() -> delegate.insertAll(doctors, batchSize), executor);
+    }
+
+    public CompletableFuture<Optional<Doctor>> findById(int doctorID) {
+        return CompletableFuture.supplyAsync(() -> delegate.findById(doctorID), executor);
+    }
+
+    // Like findById, but completes exceptionally with EntityNotFoundException when the row does not exist
+    public CompletableFuture<Doctor> get(int doctorID) {
+        return findById(doctorID).thenApply(found -> found.orElseThrow(() -> new EntityNotFoundException("doctor", doctorID)));
+    }
+
+    public CompletableFuture<List<Doctor>> findPage(int afterID, int limit) {
+        return CompletableFuture.supplyAsync(() -> delegate.findPage(afterID, limit), executor);
+    }
+
+    // Publishes every doctor in DoctorID order, fetching pageSize rows at a time as the subscriber requests them
+    public Flow.Publisher<Doctor> findAll(int pageSize) {
+        return new KeysetPublisher<>(delegate::findPage, Doctor::getDoctorID, pageSize, executor);
+    }
+
+    public CompletableFuture<Void> update(Doctor doctor) {
+        return CompletableFuture.runAsync(() -> delegate.update(doctor), executor);
+    }
+
+    public CompletableFuture<Void> delete(int doctorID) {
+        return CompletableFuture.runAsync(() -> delegate.delete(doctorID), executor);
+    }
+}
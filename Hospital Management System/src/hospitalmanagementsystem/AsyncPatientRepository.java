@@ -0,0 +1,66 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * AsyncPatientRepository is the non-blocking form of PatientRepository:
+ * Every call runs on the executor (DatabaseExecutor by default) and returns a CompletableFuture
+ * Failures complete the future exceptionally with the DataAccessException or EntityNotFoundException
+ * findAll publishes the whole table page by page as a Flow.Publisher, honouring back-pressure
+ *
+ * Callers can start several lookups at once and combine them with thenCombine/allOf
+ * instead of blocking a thread per call.
+ */
+
+public class AsyncPatientRepository {
+
+    private final PatientRepository delegate;
+    private final Executor executor;
+
+    public AsyncPatientRepository(PatientRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public PatientRepository getDelegate() { return delegate; }
+
+    public CompletableFuture<Integer> insert(Patient patient) {
+        return CompletableFuture.supplyAsync(() -> delegate.insert(patient), executor);
+    }
+
+    public CompletableFuture<BatchResult> insertAll(Iterable<? extends Patient> patients, int batchSize) {
+        return CompletableFuture.supplyAsync(() -> delegate.insertAll(patients, batchSize), executor);
+    }
+
+    public CompletableFuture<Optional<Patient>> findById(int patientID) {
+        return CompletableFuture.supplyAsync(() -> delegate.findById(patientID), executor);
+    }
+
+    // Like findById, but completes exceptionally with EntityNotFoundException when the row does not exist
+    public CompletableFuture<Patient> get(int patientID) {
+        return findById(patientID).thenApply(found -> found.orElseThrow(() -> new EntityNotFoundException("patient", patientID)));
+    }
+
+    public CompletableFuture<List<Patient>> findPage(int afterID, int limit) {
+        return CompletableFuture.supplyAsync(() -> delegate.findPage(afterID, limit), executor);
+    }
+
+    // Publishes every patient in PatientID order, fetching pageSize rows at a time as the subscriber requests them
+    public Flow.Publisher<Patient> findAll(int pageSize) {
+        return new KeysetPublisher<>(delegate::findPage, Patient::getPatientID, pageSize, executor);
+    }
+
+    public CompletableFuture<Void> update(Patient patient) {
+        return CompletableFuture.runAsync(() -> delegate.update(patient), executor);
+    }
+
+    public CompletableFuture<Void> delete(int patientID) {
+        return CompletableFuture.runAsync(() -> delegate.delete(patientID), executor);
+    }
+}
@@ -0,0 +1,158 @@
+package hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * BatchInserter writes many rows with one INSERT statement using JDBC batching:
+ * Rows are sent in chunks of batchSize with addBatch/executeBatch
+ * Each chunk is committed in its own transaction
+ * If a chunk fails it is rolled back and replayed row by row, so only the bad rows are rejected
+ * Generated keys are collected for every inserted row
+ * An optional callback is told about each committed row and its key, e.g. to publish EntityEvents
+ *
+ * With MySQL, add rewriteBatchedStatements=true to the JDBC URL so a chunk goes to the
+ * server as one multi-row INSERT (DataSourceConfig.DEFAULT_URL already does; a configured
+ * hms.db.writer.url must add it itself).
+ *
+ * @param <T> entity type being inserted
+ */
+
+public class BatchInserter<T> {
+
+    // Chunk size used by the repositories, configurable with -Dhms.batchSize=N
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("hms.batchSize", 500);
+
+    // Copies the fields of one entity into the statement parameters
+    @FunctionalInterface
+    public interface Binder<T> {
+        void bind(PreparedStatement stmt, T entity) throws SQLException;
+    }
+
+    // Called after a chunk commits, once for every row of it that was inserted
+    @FunctionalInterface
+    public interface Inserted<T> {
+        void inserted(T entity, int key);
+    }
+
+    private final ConnectionPool pool;
+    private final String sql;
+    private final Binder<T> binder;
+    private final Inserted<T> onInserted;
+
+    public BatchInserter(ConnectionPool pool, String sql, Binder<T> binder) {
+        this(pool, sql, binder, null);
+    }
+
+    public BatchInserter(ConnectionPool pool, String sql, Binder<T> binder, Inserted<T> onInserted) {
+        this.pool = pool;
+        this.sql = sql;
+        this.binder = binder;
+        this.onInserted = onInserted;
+    }
+
+    // Inserts every entity from the iterator, batchSize rows per transaction
+    public BatchResult insertAll(Iterator<? extends T> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        BatchResult result = new BatchResult();
+        List<T> chunk = new ArrayList<>(batchSize);
+        int chunkStart = 0;
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+
+            while (entities.hasNext()) {
+                chunk.add(entities.next());
+                if (chunk.size() == batchSize) {
+                    writeChunk(conn, stmt, chunk, chunkStart, result);
+                    chunkStart += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(conn, stmt, chunk, chunkStart, result);
+            }
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new DataAccessException("Bulk insert failed after " + result.getTotalCount() + " rows: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    // ======================= CHUNK HANDLING =======================
+
+    // Sends one chunk as a single batch; falls back to row-by-row on a batch failure
+
+    private void writeChunk(Connection conn, PreparedStatement stmt, List<T> chunk, int chunkStart,
+                            BatchResult result) throws SQLException {
+        List<Integer> batched = new ArrayList<>(chunk.size());
+        String[] bindErrors = new String[chunk.size()];
+
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                binder.bind(stmt, chunk.get(i));
+                stmt.addBatch();
+                batched.add(i);
+            } catch (SQLException | RuntimeException e) {
+                stmt.clearParameters();
+                bindErrors[i] = "Invalid row: " + e;
+            }
+        }
+
+        int[] keys = new int[chunk.size()];
+        try {
+            if (!batched.isEmpty()) {
+                stmt.executeBatch();
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    for (int i : batched) {
+                        keys[i] = rs.next() ? rs.getInt(1) : 0;
+                    }
+                }
+            }
+            conn.commit();
+            pool.markWrite();
+        } catch (SQLException batchFailure) {
+            stmt.clearBatch();
+            conn.rollback();
+            replayRowByRow(conn, stmt, chunk, batched, keys, bindErrors);
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            result.addKey(keys[i]);
+            if (bindErrors[i] != null) {
+                result.addFailure(chunkStart + i, bindErrors[i]);
+            } else if (onInserted != null && keys[i] > 0) {
+                onInserted.inserted(chunk.get(i), keys[i]);
+            }
+        }
+        result.chunkCommitted();
+    }
+
+    // Inserts the rows of a failed chunk one at a time so each bad row is identified.
+    // Good rows are committed together at the end of the chunk.
+
+    private void replayRowByRow(Connection conn, PreparedStatement stmt, List<T> chunk, List<Integer> rows,
+                                int[] keys, String[] errors) throws SQLException {
+        for (int i : rows) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                binder.bind(stmt, chunk.get(i));
+                stmt.executeUpdate();
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    keys[i] = rs.next() ? rs.getInt(1) : 0;
+                }
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                errors[i] = e.getMessage();
+            }
+        }
+        conn.commit();
+        pool.markWrite();
+    }
+}
@@ -0,0 +1,63 @@
+package hospitalmanagementsystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BatchResult reports the outcome of a bulk insert:
+ * The generated key for every input row, in input order (0 for rows that failed)
+ * The rows that failed, with their input position and the reason
+ */
+
+public class BatchResult {
+
+    private final List<Integer> generatedKeys = new ArrayList<>();
+    private final List<Failure> failures = new ArrayList<>();
+    private int chunks;
+
+    // Records the key of the next input row (0 if it failed)
+    void addKey(int key) {
+        generatedKeys.add(key);
+    }
+
+    void addFailure(int index, String message) {
+        failures.add(new Failure(index, message));
+    }
+
+    void chunkCommitted() {
+        chunks++;
+    }
+
+    public List<Integer> getGeneratedKeys() { return Collections.unmodifiableList(generatedKeys); }
+    public List<Failure> getFailures() { return Collections.unmodifiableList(failures); }
+    public int getTotalCount() { return generatedKeys.size(); }
+    public int getFailedCount() { return failures.size(); }
+    public int getInsertedCount() { return generatedKeys.size() - failures.size(); }
+    public int getChunkCount() { return chunks; }
+
+    @Override
+    public String toString() {
+        return "BatchResult[inserted=" + getInsertedCount() + ", failed=" + getFailedCount() + ", chunks=" + chunks + "]";
+    }
+
+    // A row that could not be inserted
+    public static class Failure {
+        private final int index;
+        private final String message;
+
+        public Failure(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        // Position of the row in the input collection or stream
+        public int getIndex() { return index; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "row " + index + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package hospitalmanagementsystem;
+
+import java.time.LocalDate;
+
+/**
+ * BookingConflictException is thrown when an appointment cannot be booked because the
+ * doctor is fully booked or the patient already has an appointment on that date, or
+ * because the appointment (or the stored row being rescheduled) has no date.
+ */
+
+public class BookingConflictException extends DataAccessException {
+
+    // What made the slot unavailable
+    public enum Reason { DOCTOR_FULLY_BOOKED, PATIENT_DOUBLE_BOOKED, UNKNOWN_DOCTOR, UNKNOWN_PATIENT, MISSING_DATE }
+
+    private final Reason reason;
+    private final LocalDate nextFreeDate;
+
+    public BookingConflictException(Reason reason, String message, LocalDate nextFreeDate) {
+        super(nextFreeDate == null ? message : message + " Next free date: " + nextFreeDate);
+        this.reason = reason;
+        this.nextFreeDate = nextFreeDate;
+    }
+
+    public Reason getReason() { return reason; }
+
+    // The doctor's next date with free capacity, or null if not applicable
+    public LocalDate getNextFreeDate() { return nextFreeDate; }
+}
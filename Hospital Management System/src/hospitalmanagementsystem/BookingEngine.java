@@ -0,0 +1,301 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingEngine books and reschedules appointments without double bookings:
+ * A doctor takes at most dailyCapacity active appointments per date
+ * A patient has at most one active appointment per date
+ * Appointments whose status is "Cancelled" do not occupy a slot
+ *
+ * Each booking runs in one transaction that locks the doctor row and then the patient row
+ * (always in that order), re-counts the slot with locking reads and inserts, so concurrent
+ * bookings for the same doctor or patient are serialized. Reschedules take the same locks
+ * before reading the appointment's previous row, also with a locking read. DoctorScheduleIndex answers availability and
+ * next-free-date queries from memory and rejects obviously full dates before touching the database.
+ * Reschedules are also versioned: an appointment edited by someone else since it was read is
+ * rejected with OptimisticLockException rather than overwritten.
+ * Bookings and reschedules are published on the EntityEventBus; appointment changes made by
+ * other instances reset the index.
+ */
+
+public class BookingEngine {
+
+    public static final String CANCELLED = "Cancelled";
+
+    // Appointments per doctor per date, configurable with -Dhms.booking.dailyCapacity=N
+    public static final int DEFAULT_DAILY_CAPACITY = Integer.getInteger("hms.booking.dailyCapacity", 16);
+
+    private static BookingEngine instance;
+
+    private static final String ACTIVE = "(AppointmentStatus IS NULL OR AppointmentStatus <> '" + CANCELLED + "')";
+
+    private final ConnectionPool pool;
+    private final DoctorScheduleIndex index;
+
+    public BookingEngine(ConnectionPool pool, int dailyCapacity) {
+        this.pool = pool;
+        this.index = new DoctorScheduleIndex(dailyCapacity, 60, TimeUnit.SECONDS, this::loadSchedule);
+    }
+
+    // Local changes keep the index current as they are made; remote events only say which
+    // appointment changed, not which doctor it belonged to
+    public static synchronized BookingEngine getInstance() {
+        if (instance == null) {
+            instance = new BookingEngine(ConnectionPool.getInstance(), DEFAULT_DAILY_CAPACITY);
+            DoctorScheduleIndex index = instance.index;
+            EntityEventBus.getInstance().subscribe(EntityEvent.Kind.APPOINTMENT, event -> {
+                if (event.isRemote()) index.invalidateAll();
+            });
+        }
+        return instance;
+    }
+
+    public DoctorScheduleIndex getIndex() { return index; }
+
+    // ======================= AVAILABILITY =======================
+
+    public boolean isDoctorAvailable(int doctorID, LocalDate date) {
+        return index.isAvailable(doctorID, date);
+    }
+
+    public LocalDate nextFreeDate(int doctorID, LocalDate from) {
+        LocalDate today = LocalDate.now();
+        return index.nextFreeDate(doctorID, from.isBefore(today) ? today : from);
+    }
+
+    // ======================= BOOKING =======================
+
+    // Books a new appointment and returns its AppointmentID.
+    // Throws BookingConflictException if the doctor or the patient is not available.
+
+    public int book(Appointment appointment) {
+        return QueryMetrics.getInstance().record("booking.book", () -> doBook(appointment), id -> 1);
+    }
+
+    private int doBook(Appointment appointment) {
+        occupiesSlotOrFail(appointment);
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                lockParticipants(conn, appointment);
+                checkSlot(conn, appointment, 0);
+
+                int appointmentID;
+                try (PreparedStatement stmt = conn.prepareStatement(JdbcAppointmentRepository.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    JdbcAppointmentRepository.bindInsert(stmt, appointment);
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        appointmentID = keys.next() ? keys.getInt(1) : 0;
+                    }
+                }
+                conn.commit();
+                pool.markWrite();
+
+                if (isActive(appointment.getAppointmentStatus())) {
+                    index.recordBooking(appointment.getDoctorID(), appointment.getAppointmentDate());
+                }
+                EntityEventBus.getInstance().publish(EntityEvent.inserted(JdbcAppointmentRepository.withID(appointment, appointmentID)));
+                return appointmentID;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error booking appointment: " + e.getMessage(), e);
+        }
+    }
+
+    // Updates an existing appointment, re-checking availability if it moves to another
+    // doctor or date or becomes active again. Returns the appointment as stored (with its new version).
+
+    public Appointment reschedule(Appointment appointment) {
+        QueryMetrics.getInstance().record("booking.reschedule", () -> doReschedule(appointment));
+        return JdbcAppointmentRepository.updated(appointment);
+    }
+
+    private void doReschedule(Appointment appointment) {
+        occupiesSlotOrFail(appointment);
+
+        // read after the doctor and patient locks, and locking, so it and the slot counts see the latest
+        // committed rows rather than a snapshot taken before another reschedule committed
+        String previousSql = "SELECT DoctorID, AppointmentDate, AppointmentStatus, Version FROM appointments "
+                + "WHERE AppointmentID = ? FOR UPDATE";
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int previousDoctor;
+                LocalDate previousDate;
+                boolean previouslyActive;
+                lockParticipants(conn, appointment);
+                try (PreparedStatement stmt = conn.prepareStatement(previousSql)) {
+                    stmt.setInt(1, appointment.getAppointmentID());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new EntityNotFoundException("appointment", appointment.getAppointmentID());
+                        }
+                        previousDoctor = rs.getInt(1);
+                        Date stored = rs.getDate(2);
+                        if (stored == null) {
+                            throw new BookingConflictException(BookingConflictException.Reason.MISSING_DATE,
+                                    "Appointment " + appointment.getAppointmentID() + " has no date in the database.", null);
+                        }
+                        previousDate = stored.toLocalDate();
+                        previouslyActive = isActive(rs.getString(3));
+                        if (rs.getInt(4) != appointment.getVersion()) {
+                            throw new OptimisticLockException("appointment", appointment.getAppointmentID(),
+                                    appointment.getVersion(), rs.getInt(4));
+                        }
+                    }
+                }
+
+                checkSlot(conn, appointment, appointment.getAppointmentID());
+
+                try (PreparedStatement stmt = conn.prepareStatement(JdbcAppointmentRepository.UPDATE_SQL)) {
+                    JdbcAppointmentRepository.bindUpdate(stmt, appointment);
+                    if (stmt.executeUpdate() == 0) {
+                        throw OptimisticLockException.rejectedUpdate(conn, JdbcAppointmentRepository.VERSION_SQL,
+                                "appointment", appointment.getAppointmentID(), appointment.getVersion());
+                    }
+                }
+                conn.commit();
+                pool.markWrite();
+
+                if (previouslyActive) index.recordRelease(previousDoctor, previousDate);
+                if (isActive(appointment.getAppointmentStatus())) {
+                    index.recordBooking(appointment.getDoctorID(), appointment.getAppointmentDate());
+                }
+                EntityEventBus.getInstance().publish(EntityEvent.updated(JdbcAppointmentRepository.updated(appointment)));
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating appointment: " + e.getMessage(), e);
+        }
+    }
+
+    // Tells the index that an appointment stopped occupying its slot (deleted or cancelled elsewhere)
+    public void released(int doctorID, LocalDate date) {
+        index.recordRelease(doctorID, date);
+    }
+
+    // ======================= CHECKS =======================
+
+    // Fast in-memory rejection before any locks are taken. A "full" answer is confirmed
+    // with a fresh load first, since deletes made elsewhere can leave the index counting too high.
+
+    private void occupiesSlotOrFail(Appointment appointment) {
+        if (appointment.getAppointmentDate() == null) {
+            throw new BookingConflictException(BookingConflictException.Reason.MISSING_DATE,
+                    "The appointment needs a date.", null);
+        }
+        if (!isActive(appointment.getAppointmentStatus())
+                || index.isAvailable(appointment.getDoctorID(), appointment.getAppointmentDate())) {
+            return;
+        }
+        index.invalidate(appointment.getDoctorID());
+        if (!index.isAvailable(appointment.getDoctorID(), appointment.getAppointmentDate())) {
+            throw doctorFull(appointment);
+        }
+    }
+
+    // Locks the doctor row and then the patient row; every booking transaction takes them in this order
+
+    private void lockParticipants(Connection conn, Appointment appointment) throws SQLException {
+        if (!lockRow(conn, "SELECT DoctorID FROM DOCTORS WHERE DoctorID = ? FOR UPDATE", appointment.getDoctorID())) {
+            throw new BookingConflictException(BookingConflictException.Reason.UNKNOWN_DOCTOR,
+                    "No doctor found with ID: " + appointment.getDoctorID(), null);
+        }
+        if (!lockRow(conn, "SELECT PatientID FROM PATIENTS WHERE PatientID = ? FOR UPDATE", appointment.getPatientID())) {
+            throw new BookingConflictException(BookingConflictException.Reason.UNKNOWN_PATIENT,
+                    "No patient found with ID: " + appointment.getPatientID(), null);
+        }
+    }
+
+    // Counts what is already booked in the slot; the participants must be locked first.
+    // @param excludeID AppointmentID being rescheduled, or 0 for a new booking
+
+    private void checkSlot(Connection conn, Appointment appointment, int excludeID) throws SQLException {
+        if (!isActive(appointment.getAppointmentStatus())) {
+            return;
+        }
+
+        Date date = Date.valueOf(appointment.getAppointmentDate());
+        int doctorBookings = countLocked(conn, "SELECT AppointmentID FROM appointments WHERE DoctorID = ? AND AppointmentDate = ? AND "
+                + ACTIVE + " AND AppointmentID <> ? FOR UPDATE", appointment.getDoctorID(), date, excludeID);
+        if (doctorBookings >= index.getDailyCapacity()) {
+            index.invalidate(appointment.getDoctorID());
+            throw doctorFull(appointment);
+        }
+
+        int patientBookings = countLocked(conn, "SELECT AppointmentID FROM appointments WHERE PatientID = ? AND AppointmentDate = ? AND "
+                + ACTIVE + " AND AppointmentID <> ? FOR UPDATE", appointment.getPatientID(), date, excludeID);
+        if (patientBookings > 0) {
+            throw new BookingConflictException(BookingConflictException.Reason.PATIENT_DOUBLE_BOOKED,
+                    "Patient " + appointment.getPatientID() + " already has an appointment on " + appointment.getAppointmentDate() + ".", null);
+        }
+    }
+
+    private BookingConflictException doctorFull(Appointment appointment) {
+        return new BookingConflictException(BookingConflictException.Reason.DOCTOR_FULLY_BOOKED,
+                "Doctor " + appointment.getDoctorID() + " is fully booked on " + appointment.getAppointmentDate() + ".",
+                nextFreeDate(appointment.getDoctorID(), appointment.getAppointmentDate()));
+    }
+
+    private static boolean lockRow(Connection conn, String sql, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Counts the rows of a locking read (at most dailyCapacity of them). Locking reads see the latest
+    // committed rows under REPEATABLE READ, and FOR UPDATE cannot be combined with COUNT(*) everywhere.
+    private static int countLocked(Connection conn, String sql, int id, Date date, int excludeID) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            stmt.setDate(2, date);
+            stmt.setInt(3, excludeID);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int rows = 0;
+                while (rs.next()) rows++;
+                return rows;
+            }
+        }
+    }
+
+    static boolean isActive(String status) {
+        return status == null || !status.trim().equalsIgnoreCase(CANCELLED);
+    }
+
+    // Loads the active appointment count per date for one doctor, from today onwards
+    private Map<LocalDate, Integer> loadSchedule(int doctorID) {
+        String sql = "SELECT AppointmentDate, COUNT(*) FROM appointments WHERE DoctorID = ? AND AppointmentDate >= ? AND "
+                + ACTIVE + " GROUP BY AppointmentDate";
+        Map<LocalDate, Integer> bookings = new HashMap<>();
+
+        try (Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, doctorID);
+            stmt.setDate(2, Date.valueOf(LocalDate.now()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.put(rs.getDate(1).toLocalDate(), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading schedule for doctor " + doctorID + ": " + e.getMessage(), e);
+        }
+        return bookings;
+    }
+}
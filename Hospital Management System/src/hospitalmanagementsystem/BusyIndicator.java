@@ -0,0 +1,46 @@
+package hospitalmanagementsystem;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * BusyIndicator shows that a window has database work in flight:
+ * An indeterminate progress bar placed in the window layout
+ * A wait cursor over the window
+ * Stays busy until every started operation has stopped
+ */
+
+public class BusyIndicator extends JProgressBar {
+
+    private final Component owner;
+    private int running;
+
+    public BusyIndicator(Component owner) {
+        this.owner = owner;
+        setIndeterminate(false);
+        setStringPainted(true);
+        setString("Ready");
+    }
+
+    // Marks one more operation as running. Must be called on the EDT.
+    public void start() {
+        if (running++ == 0) {
+            setIndeterminate(true);
+            setString("Working...");
+            owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+
+    // Marks one operation as finished. Must be called on the EDT.
+    public void stop() {
+        if (running > 0 && --running == 0) {
+            setIndeterminate(false);
+            setString("Ready");
+            owner.setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    public boolean isBusy() {
+        return running > 0;
+    }
+}
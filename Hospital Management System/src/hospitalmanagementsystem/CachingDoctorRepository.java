@@ -0,0 +1,64 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CachingDoctorRepository puts an EntityCache in front of another DoctorRepository:
+ * findById is served from the cache when possible
+ * update and delete invalidate the cached doctor
+ * Every other call goes straight to the wrapped repository
+ */
+
+public class CachingDoctorRepository implements DoctorRepository {
+
+    private final DoctorRepository delegate;
+    private final EntityCache<Doctor> cache;
+
+    public CachingDoctorRepository(DoctorRepository delegate, EntityCache<Doctor> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public EntityCache<Doctor> getCache() { return cache; }
+
+    @Override
+    public int insert(Doctor doctor) {
+        return delegate.insert(doctor);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Doctor> doctors, int batchSize) {
+        return delegate.insertAll(doctors, batchSize);
+    }
+
+    @Override
+    public Optional<Doctor> findById(int doctorID) {
+        return cache.get(doctorID, delegate::findById);
+    }
+
+    @Override
+    public List<Doctor> findPage(int afterID, int limit) {
+        return delegate.findPage(afterID, limit);
+    }
+
+    @Override
+    public void update(Doctor doctor) {
+        try {
+            delegate.update(doctor);
+        } finally {
+            cache.invalidate(doctor.getDoctorID());
+        }
+    }
+
+    @Override
+    public void delete(int doctorID) {
+        try {
+            delegate.delete(doctorID);
+        } finally {
+            cache.invalidate(doctorID);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CachingPatientRepository puts an EntityCache in front of another PatientRepository:
+ * findById is served from the cache when possible
+ * update and delete invalidate the cached patient
+ * Every other call goes straight to the wrapped repository
+ */
+
+public class CachingPatientRepository implements PatientRepository {
+
+    private final PatientRepository delegate;
+    private final EntityCache<Patient> cache;
+
+    public CachingPatientRepository(PatientRepository delegate, EntityCache<Patient> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public EntityCache<Patient> getCache() { return cache; }
+
+    @Override
+    public int insert(Patient patient) {
+        return delegate.insert(patient);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Patient> patients, int batchSize) {
+        return delegate.insertAll(patients, batchSize);
+    }
+
+    @Override
+    public Optional<Patient> findById(int patientID) {
+        return cache.get(patientID, delegate::findById);
+    }
+
+    @Override
+    public List<Patient> findPage(int afterID, int limit) {
+        return delegate.findPage(afterID, limit);
+    }
+
+    @Override
+    public void update(Patient patient) {
+        try {
+            delegate.update(patient);
+        } finally {
+            cache.invalidate(patient.getPatientID());
+        }
+    }
+
+    @Override
+    public void delete(int patientID) {
+        try {
+            delegate.delete(patientID);
+        } finally {
+            cache.invalidate(patientID);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package hospitalmanagementsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ColumnarFile is the compact column-oriented export format written by TableExporter (.hmsc):
+ * Rows are buffered into row groups and each group is written column by column
+ * Integer and date columns are delta + zigzag varint encoded (sequential IDs cost about one byte)
+ * String columns are dictionary encoded when they repeat (statuses, genders), plain otherwise
+ * The whole stream is gzip compressed; memory use is bounded by one row group
+ *
+ * Layout (inside gzip):
+ *   "HMSC" version:u8 columnCount:varint { name:string type:u8 }*
+ *   { rowCount:varint { nullBitmap[(rowCount + 7) / 8] values }* }*  0:varint
+ *
+ * The Reader decodes one row group at a time, so files can be processed without loading them whole.
+ */
+
+public final class ColumnarFile {
+
+    public static final String EXTENSION = ".hmsc";
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = {'H', 'M', 'S', 'C'};
+    private static final int VERSION = 1;
+    private static final int PLAIN = 0, DICTIONARY = 1;
+
+    public enum Type { INT, DATE, STRING }
+
+    private ColumnarFile() {
+    }
+
+    // ======================= WRITER =======================
+
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final Type[] types;
+        private final int rowGroupSize;
+
+        // Current row group, one array per column; INT and DATE (epoch day) share the int buffers
+        private final int[][] ints;
+        private final String[][] strings;
+        private final boolean[][] nulls;
+        private int rows;
+        private final boolean[] set;
+
+        public Writer(OutputStream target, String[] names, Type[] types, int rowGroupSize) throws IOException {
+            if (names.length != types.length) {
+                throw new IllegalArgumentException("Column names and types differ in length");
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(target, 1 << 16), 1 << 16));
+            this.types = types.clone();
+            this.rowGroupSize = rowGroupSize;
+            this.ints = new int[types.length][];
+            this.strings = new String[types.length][];
+            this.nulls = new boolean[types.length][rowGroupSize];
+            this.set = new boolean[types.length];
+            for (int c = 0; c < types.length; c++) {
+                if (types[c] == Type.STRING) strings[c] = new String[rowGroupSize];
+                else ints[c] = new int[rowGroupSize];
+            }
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeVarint(out, names.length);
+            for (int c = 0; c < names.length; c++) {
+                writeString(out, names[c]);
+                out.writeByte(types[c].ordinal());
+            }
+        }
+
+        public void setInt(int column, int value) {
+            ints[column][rows] = value;
+            mark(column, false);
+        }
+
+        public void setDate(int column, LocalDate value) {
+            if (value == null) {
+                setNull(column);
+                return;
+            }
+            ints[column][rows] = (int) value.toEpochDay();
+            mark(column, false);
+        }
+
+        public void setString(int column, String value) {
+            if (value == null) {
+                setNull(column);
+                return;
+            }
+            strings[column][rows] = value;
+            mark(column, false);
+        }
+
+        public void setNull(int column) {
+            mark(column, true);
+        }
+
+        private void mark(int column, boolean isNull) {
+            nulls[column][rows] = isNull;
+            set[column] = true;
+        }
+
+        // Completes the current row; columns that were not set are written as null
+        public void endRow() throws IOException {
+            for (int c = 0; c < types.length; c++) {
+                if (!set[c]) nulls[c][rows] = true;
+                set[c] = false;
+            }
+            if (++rows == rowGroupSize) {
+                flushRowGroup();
+            }
+        }
+
+        private void flushRowGroup() throws IOException {
+            if (rows == 0) return;
+            writeVarint(out, rows);
+            for (int c = 0; c < types.length; c++) {
+                writeNulls(nulls[c]);
+                if (types[c] == Type.STRING) writeStrings(c);
+                else writeInts(c);
+            }
+            for (String[] column : strings) {
+                if (column != null) Arrays.fill(column, 0, rows, null);
+            }
+            rows = 0;
+        }
+
+        private void writeNulls(boolean[] columnNulls) throws IOException {
+            for (int i = 0; i < rows; i += 8) {
+                int bits = 0;
+                for (int b = 0; b < 8 && i + b < rows; b++) {
+                    if (columnNulls[i + b]) bits |= 1 << b;
+                }
+                out.writeByte(bits);
+            }
+        }
+
+        private void writeInts(int c) throws IOException {
+            int previous = 0;
+            for (int r = 0; r < rows; r++) {
+                if (nulls[c][r]) continue;
+                writeVarint(out, zigzag(ints[c][r] - previous));
+                previous = ints[c][r];
+            }
+        }
+
+        // Dictionary-encodes the column when it has at most half as many distinct values as rows
+        private void writeStrings(int c) throws IOException {
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> entries = new ArrayList<>();
+            int present = 0;
+            for (int r = 0; r < rows; r++) {
+                if (nulls[c][r]) continue;
+                present++;
+                if (dictionary.size() <= rows / 2) {
+                    dictionary.computeIfAbsent(strings[c][r], s -> {
+                        entries.add(s);
+                        return entries.size() - 1;
+                    });
+                }
+            }
+
+            if (present > 0 && dictionary.size() <= present / 2) {
+                out.writeByte(DICTIONARY);
+                writeVarint(out, entries.size());
+                for (String entry : entries) writeString(out, entry);
+                for (int r = 0; r < rows; r++) {
+                    if (!nulls[c][r]) writeVarint(out, dictionary.get(strings[c][r]));
+                }
+            } else {
+                out.writeByte(PLAIN);
+                for (int r = 0; r < rows; r++) {
+                    if (!nulls[c][r]) writeString(out, strings[c][r]);
+                }
+            }
+        }
+
+        // Writes the last row group and the terminator, then closes the stream
+        @Override
+        public void close() throws IOException {
+            flushRowGroup();
+            writeVarint(out, 0);
+            out.close();
+        }
+    }
+
+    // ======================= READER =======================
+
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final String[] names;
+        private final Type[] types;
+
+        private int rows;
+        private int[][] ints;
+        private String[][] strings;
+        private boolean[][] nulls;
+
+        public Reader(InputStream source) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source, 1 << 16), 1 << 16));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a columnar export file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar file version " + version);
+            }
+            int count = readVarint(in);
+            names = new String[count];
+            types = new Type[count];
+            for (int c = 0; c < count; c++) {
+                names[c] = readString(in);
+                types[c] = Type.values()[in.readUnsignedByte()];
+            }
+        }
+
+        public String[] getColumnNames() { return names.clone(); }
+        public Type[] getTypes() { return types.clone(); }
+        public int getRowCount() { return rows; }
+
+        // Decodes the next row group; returns false at the end of the file
+        public boolean nextRowGroup() throws IOException {
+            rows = readVarint(in);
+            if (rows == 0) return false;
+
+            ints = new int[types.length][];
+            strings = new String[types.length][];
+            nulls = new boolean[types.length][];
+            for (int c = 0; c < types.length; c++) {
+                nulls[c] = readNulls();
+                if (types[c] == Type.STRING) strings[c] = readStrings(nulls[c]);
+                else ints[c] = readInts(nulls[c]);
+            }
+            return true;
+        }
+
+        public boolean isNull(int column, int row) { return nulls[column][row]; }
+
+        // Raw values of an INT or DATE (epoch day) column in the current row group
+        public int[] getInts(int column) { return ints[column]; }
+
+        public String[] getStrings(int column) { return strings[column]; }
+
+        // Value as Integer, LocalDate or String, or null
+        public Object getValue(int column, int row) {
+            if (nulls[column][row]) return null;
+            switch (types[column]) {
+                case INT: return ints[column][row];
+                case DATE: return LocalDate.ofEpochDay(ints[column][row]);
+                default: return strings[column][row];
+            }
+        }
+
+        private boolean[] readNulls() throws IOException {
+            boolean[] result = new boolean[rows];
+            for (int i = 0; i < rows; i += 8) {
+                int bits = in.readUnsignedByte();
+                for (int b = 0; b < 8 && i + b < rows; b++) {
+                    result[i + b] = (bits & (1 << b)) != 0;
+                }
+            }
+            return result;
+        }
+
+        private int[] readInts(boolean[] columnNulls) throws IOException {
+            int[] values = new int[rows];
+            int previous = 0;
+            for (int r = 0; r < rows; r++) {
+                if (columnNulls[r]) continue;
+                previous += unzigzag(readVarint(in));
+                values[r] = previous;
+            }
+            return values;
+        }
+
+        private String[] readStrings(boolean[] columnNulls) throws IOException {
+            String[] values = new String[rows];
+            int encoding = in.readUnsignedByte();
+            String[] dictionary = null;
+            if (encoding == DICTIONARY) {
+                dictionary = new String[readVarint(in)];
+                for (int i = 0; i < dictionary.length; i++) dictionary[i] = readString(in);
+            }
+            for (int r = 0; r < rows; r++) {
+                if (columnNulls[r]) continue;
+                values[r] = dictionary != null ? dictionary[readVarint(in)] : readString(in);
+            }
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ======================= ENCODING =======================
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
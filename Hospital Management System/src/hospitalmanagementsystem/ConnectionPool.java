@@ -0,0 +1,528 @@
+package hospitalmanagementsystem;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ConnectionPool is a small bounded JDBC connection pool shared by the DAO classes:
+ * Keeps between minimum and maximum physical connections open
+ * Validates connections when they are borrowed
+ * Evicts connections that have been idle for too long
+ * Times out callers that wait longer than the acquire timeout
+ * Logs connections that are borrowed for longer than the leak threshold, with the borrowing
+ * stack when -Dhms.pool.leakDetection=true (capturing it on every borrow is not free)
+ * Keeps each connection's prepared statements open in a StatementCache for reuse
+ * Exposes wait time, active/idle counts and statement cache hits as metrics
+ */
+
+public class ConnectionPool {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Records where each connection was borrowed so leak reports can show it
+    public static final boolean LEAK_DETECTION = Boolean.getBoolean("hms.pool.leakDetection");
+
+    private static ConnectionPool instance;
+
+    private final String url, user, password;
+    private final int minSize, maxSize;
+    private final long acquireTimeoutMillis, idleTimeoutMillis, leakThresholdMillis;
+    private final int validationTimeoutSeconds = 2;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    // Keyed by the physical connection's identity; drivers may override equals()
+    private final Map<Connection, StatementCache> statementCaches = Collections.synchronizedMap(new IdentityHashMap<>());
+    private int totalConnections;
+    private boolean closed;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private volatile long lastWriteMillis;
+
+    // Constructor that sets up the pool limits and starts the housekeeping thread
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        this(url, user, password, minSize, maxSize, acquireTimeoutMillis, idleTimeoutMillis, leakThresholdMillis,
+                StatementCache.DEFAULT_SIZE);
+    }
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns the writer pool shared by PatientDAO, DoctorDAO and AppointmentDAO, configured by DataSourceConfig
+    public static synchronized ConnectionPool getInstance() {
+        if (instance == null) {
+            instance = DataSourceConfig.load().newWriterPool();
+            instance.registerGauges(QueryMetrics.getInstance());
+        }
+        return instance;
+    }
+
+    // ======================= BORROW / RETURN =======================
+
+    // Borrows a connection from the pool, opening a new one if the pool is not full.
+    // Closing the returned connection hands it back to the pool.
+
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+
+        while (true) {
+            Connection physical = null;
+            boolean open = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    IdleConnection candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        physical = candidate.connection;
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        open = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        QueryMetrics.getInstance().recordCall("connection.acquire", System.nanoTime() - start, 0, true);
+                        throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                                + " ms waiting for a database connection (active=" + getActiveCount() + ")");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (open) {
+                try {
+                    physical = DriverManager.getConnection(url, user, password);
+                } catch (SQLException e) {
+                    discard(null);
+                    throw connectFailure(e);
+                }
+            } else if (!isValid(physical)) {
+                discard(physical);
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            return wrap(physical);
+        }
+    }
+
+    // Returns a connection to the idle list, or discards it if it is broken or the pool is closed
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        Connection physical = pooled.physical;
+        StatementCache statements = statementCaches.get(physical);
+        if (statements != null) {
+            statements.releaseAll();
+        }
+
+        boolean reusable;
+        try {
+            reusable = !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(physical);
+    }
+
+    // Closes a physical connection and frees its slot in the pool
+    private void discard(Connection physical) {
+        closeQuietly(physical);
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Opens a connection outside the pool and validates it, so a health check never
+    // waits behind busy borrowers or reports on a connection the pool has cached
+    public boolean isReachable() throws SQLException {
+        try (Connection probe = DriverManager.getConnection(url, user, password)) {
+            return probe.isValid(validationTimeoutSeconds);
+        }
+    }
+
+    // Failing to open a physical connection is a connection-level failure whatever SQLState the
+    // driver reports (e.g. H2's "database not found"), unlike an acquire timeout on a busy pool
+    private static SQLException connectFailure(SQLException e) {
+        if (DataSourceRouter.isConnectionFailure(e)) return e;
+        return new SQLNonTransientConnectionException(e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Records that a write through this pool succeeded; DataSourceRouter keeps reads on
+    // this pool for a while afterwards (read-your-writes)
+    public void markWrite() {
+        lastWriteMillis = System.currentTimeMillis();
+    }
+
+    public long getLastWriteMillis() { return lastWriteMillis; }
+
+    // ======================= HOUSEKEEPING =======================
+
+    // Evicts idle connections above the minimum size, tops the pool up to the
+    // minimum size, and reports connections that look leaked.
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minSize) {
+                IdleConnection candidate = it.next();
+                if (now - candidate.idleSince >= idleTimeoutMillis) {
+                    it.remove();
+                    totalConnections--;
+                    closeQuietly(candidate.connection);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        fillToMinimum();
+
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt >= leakThresholdMillis) {
+                pooled.leakReported = true;
+                leakCount.incrementAndGet();
+                LeakDetected trace = new LeakDetected(now - pooled.borrowedAt);
+                if (pooled.borrowSite != null) {
+                    trace.setStackTrace(pooled.borrowSite);
+                    LOG.log(Level.WARNING, trace.getMessage(), trace);
+                } else {
+                    LOG.warning(trace.getMessage() + " (run with -Dhms.pool.leakDetection=true to log where it was borrowed)");
+                }
+            }
+        }
+    }
+
+    // Opens connections until the pool holds at least the minimum size
+    public void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Connection physical = DriverManager.getConnection(url, user, password);
+                lock.lock();
+                try {
+                    idle.addLast(new IdleConnection(physical, System.currentTimeMillis()));
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                discard(null);
+                return;
+            }
+        }
+    }
+
+    // Closes every idle connection and stops handing out new ones.
+    // Borrowed connections are closed when they are returned.
+
+    public void close() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            for (IdleConnection candidate : idle) {
+                closeQuietly(candidate.connection);
+                totalConnections--;
+            }
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ======================= METRICS =======================
+
+    public int getActiveCount() { return borrowed.size(); }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalCount() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getLeakCount() { return leakCount.get(); }
+    public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+    public double getTotalWaitMillis() { return totalWaitNanos.get() / 1_000_000.0; }
+
+    public double getAverageWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / count;
+    }
+
+    public long getStatementCacheHits() { return statementHits.get(); }
+    public long getStatementCacheMisses() { return statementMisses.get(); }
+
+    public double getStatementCacheHitRate() {
+        long hits = statementHits.get(), total = hits + statementMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Prepared statements currently held open across all connections
+    public int getCachedStatementCount() {
+        int count = 0;
+        synchronized (statementCaches) {
+            for (StatementCache cache : statementCaches.values()) count += cache.size();
+        }
+        return count;
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        QueryMetrics.getInstance().recordCall("connection.acquire", nanos, 0, false);
+    }
+
+    // Publishes the pool sizes and counters as metrics gauges
+    public void registerGauges(QueryMetrics metrics) {
+        metrics.registerGauge("hms_pool_active_connections", this::getActiveCount);
+        metrics.registerGauge("hms_pool_idle_connections", this::getIdleCount);
+        metrics.registerGauge("hms_pool_total_connections", this::getTotalCount);
+        metrics.registerGauge("hms_pool_timeouts", this::getTimeoutCount);
+        metrics.registerGauge("hms_pool_leaks", this::getLeakCount);
+        metrics.registerGauge("hms_pool_statement_cache_hits", this::getStatementCacheHits);
+        metrics.registerGauge("hms_pool_statement_cache_misses", this::getStatementCacheMisses);
+        metrics.registerGauge("hms_pool_statement_cache_hit_rate", this::getStatementCacheHitRate);
+        metrics.registerGauge("hms_pool_cached_statements", this::getCachedStatementCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, total=%d, max=%d, borrows=%d, avgWait=%.3f ms, maxWait=%.3f ms, timeouts=%d, leaks=%d, statementHitRate=%.1f%%]",
+                getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getBorrowCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(), getLeakCount(),
+                getStatementCacheHitRate() * 100);
+    }
+
+    // ======================= CONNECTION WRAPPER =======================
+
+    private Connection wrap(Connection physical) {
+        PooledConnection pooled = new PooledConnection(physical);
+        borrowed.add(pooled);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, pooled);
+    }
+
+    // Closes a physical connection together with its cached statements
+    private void closeQuietly(Connection connection) {
+        if (connection == null) return;
+        StatementCache statements = statementCaches.remove(connection);
+        if (statements != null) {
+            statements.closeAll();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // connection is being thrown away anyway
+        }
+    }
+
+    // Idle connection together with the time it was returned
+    private static class IdleConnection {
+        final Connection connection;
+        final long idleSince;
+
+        IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    // Forwards calls to the physical connection; close() returns it to the pool instead
+    private class PooledConnection implements InvocationHandler {
+        final Connection physical;
+        final long borrowedAt = System.currentTimeMillis();
+        // null unless LEAK_DETECTION is on
+        final StackTraceElement[] borrowSite = LEAK_DETECTION ? Thread.currentThread().getStackTrace() : null;
+        volatile boolean leakReported;
+        private boolean returned;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(this);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return returned || physical.isClosed();
+                    }
+                case "prepareStatement":
+                    synchronized (this) {
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                    }
+                    if (statementCacheSize > 0 && StatementCache.isCacheable(args)) {
+                        return statementCaches
+                                .computeIfAbsent(physical, c -> new StatementCache(c, statementCacheSize, statementHits, statementMisses))
+                                .prepare((Connection) proxy, method, args);
+                    }
+                    break;
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    synchronized (this) {
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                    }
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Logged when a connection stays borrowed longer than the leak threshold
+    private static class LeakDetected extends Exception {
+        LeakDetected(long heldMillis) {
+            super("Possible connection leak: connection borrowed " + heldMillis + " ms ago and not returned");
+        }
+    }
+}
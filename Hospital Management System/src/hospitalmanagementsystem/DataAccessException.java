@@ -0,0 +1,17 @@
+package hospitalmanagementsystem;
+
+/**
+ * DataAccessException is thrown by the repository layer when a database operation fails.
+ * It wraps the underlying SQLException so callers do not have to handle JDBC types.
+ */
+
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message) {
+        super(message);
+    }
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
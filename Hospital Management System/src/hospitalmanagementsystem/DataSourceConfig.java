@@ -0,0 +1,119 @@
+package hospitalmanagementsystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * DataSourceConfig holds the database endpoints and pool settings, read from outside the code:
+ * A properties file named by -Dhms.config, or hms.properties in the working directory if present
+ * System properties with the same keys override the file
+ * Defaults match the local development database
+ *
+ * Keys:
+ *   hms.db.writer.url / hms.db.user / hms.db.password      primary database (all writes)
+ *   hms.db.readers                                          comma-separated replica URLs (optional)
+ *   hms.db.reader.user / hms.db.reader.password             replica credentials (default: the writer's)
+ *   hms.db.pool.min / hms.db.pool.max                       connections per pool
+ *   hms.db.acquireTimeoutMillis / idleTimeoutMillis / leakThresholdMillis
+ *   hms.db.readYourWritesMillis                             reads stay on the writer this long after a write
+ *   hms.db.healthCheckMillis                                replica health check interval
+ */
+
+public final class DataSourceConfig {
+
+    // rewriteBatchedStatements lets BatchInserter send each chunk as one multi-row INSERT, and
+    // useServerPrepStmts makes the statements kept in each StatementCache server-side, so reusing
+    // one skips the parse/plan step; cachePrepStmts covers statements the pool's cache does not hold
+    public static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/hospital_management_system"
+            + "?rewriteBatchedStatements=true&useServerPrepStmts=true&cachePrepStmts=true";
+
+    private final Properties props;
+
+    private DataSourceConfig(Properties props) {
+        this.props = props;
+    }
+
+    // Loads the configuration file (if any) and applies system property overrides
+    public static DataSourceConfig load() {
+        Properties props = new Properties();
+        String configured = System.getProperty("hms.config");
+        Path file = Paths.get(configured != null ? configured : "hms.properties");
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                props.load(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read database configuration " + file + ": " + e.getMessage(), e);
+            }
+        } else if (configured != null) {
+            throw new IllegalStateException("Database configuration " + file + " does not exist");
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("hms.db.")) props.setProperty(key, System.getProperty(key));
+        }
+        return new DataSourceConfig(props);
+    }
+
+    public static DataSourceConfig from(Properties props) {
+        Properties copy = new Properties();
+        copy.putAll(props);
+        return new DataSourceConfig(copy);
+    }
+
+    // ======================= ENDPOINTS =======================
+
+    public String getWriterUrl() { return props.getProperty("hms.db.writer.url", DEFAULT_URL); }
+    public String getUser() { return props.getProperty("hms.db.user", "root"); }
+    public String getPassword() { return props.getProperty("hms.db.password", ""); }
+
+    public List<String> getReaderUrls() {
+        String readers = props.getProperty("hms.db.readers", "").trim();
+        if (readers.isEmpty()) return Collections.emptyList();
+        List<String> urls = new ArrayList<>();
+        for (String url : readers.split(",")) {
+            if (!url.trim().isEmpty()) urls.add(url.trim());
+        }
+        return urls;
+    }
+
+    public String getReaderUser() { return props.getProperty("hms.db.reader.user", getUser()); }
+    public String getReaderPassword() { return props.getProperty("hms.db.reader.password", getPassword()); }
+
+    // ======================= POOLS =======================
+
+    public int getMinPoolSize() { return intValue("hms.db.pool.min", 2); }
+    public int getMaxPoolSize() { return intValue("hms.db.pool.max", 10); }
+    public long getAcquireTimeoutMillis() { return longValue("hms.db.acquireTimeoutMillis", 5_000); }
+    public long getIdleTimeoutMillis() { return longValue("hms.db.idleTimeoutMillis", 300_000); }
+    public long getLeakThresholdMillis() { return longValue("hms.db.leakThresholdMillis", 60_000); }
+
+    public long getReadYourWritesMillis() { return longValue("hms.db.readYourWritesMillis", 5_000); }
+    public long getHealthCheckMillis() { return longValue("hms.db.healthCheckMillis", 5_000); }
+
+    public ConnectionPool newWriterPool() {
+        return new ConnectionPool(getWriterUrl(), getUser(), getPassword(), getMinPoolSize(), getMaxPoolSize(),
+                getAcquireTimeoutMillis(), getIdleTimeoutMillis(), getLeakThresholdMillis());
+    }
+
+    // Replica pools open connections on demand and give up quickly, so a dead replica fails over fast
+    public ConnectionPool newReaderPool(String url) {
+        return new ConnectionPool(url, getReaderUser(), getReaderPassword(), 0, getMaxPoolSize(),
+                Math.min(getAcquireTimeoutMillis(), 1_000), getIdleTimeoutMillis(), getLeakThresholdMillis());
+    }
+
+    private int intValue(String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private long longValue(String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+}
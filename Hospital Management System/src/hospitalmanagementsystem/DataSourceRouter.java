@@ -0,0 +1,201 @@
+package hospitalmanagementsystem;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * DataSourceRouter sends writes to the primary and listing/search reads to replicas:
+ * Reads go round-robin to the replicas that passed their last health check
+ * For readYourWritesMillis after a write on the writer pool, reads stay on the writer,
+ * so a screen refreshed after a save shows the saved row
+ * A replica whose borrow fails at the connection level (SQLState class 08, or the pool could
+ * not open a connection) is taken out of rotation until a health check on a fresh connection
+ * passes again; a pool timeout on a busy replica only moves the read on to the next one
+ * With no healthy replica (or none configured) reads fall back to the writer
+ */
+
+public class DataSourceRouter {
+
+    private static final Logger LOG = Logger.getLogger(DataSourceRouter.class.getName());
+
+    private static DataSourceRouter instance;
+
+    private final ConnectionPool writer;
+    private final List<Replica> replicas;
+    private final long readYourWritesMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong replicaReads = new AtomicLong(), writerReads = new AtomicLong(), failovers = new AtomicLong();
+    private final ScheduledExecutorService healthChecker;
+
+    private static final class Replica {
+        final String url;
+        final ConnectionPool pool;
+        volatile boolean healthy = true;
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+
+    public DataSourceRouter(ConnectionPool writer, List<String> replicaUrls, DataSourceConfig config) {
+        this.writer = writer;
+        this.readYourWritesMillis = config.getReadYourWritesMillis();
+        List<Replica> list = new ArrayList<>();
+        for (String url : replicaUrls) {
+            list.add(new Replica(url, config.newReaderPool(url)));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+
+        if (replicas.isEmpty()) {
+            healthChecker = null;
+        } else {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "replica-health-check");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = config.getHealthCheckMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private DataSourceRouter(ConnectionPool writer) {
+        this.writer = writer;
+        this.replicas = Collections.emptyList();
+        this.readYourWritesMillis = 0;
+        this.healthChecker = null;
+    }
+
+    // Router over ConnectionPool.getInstance() and the replicas named in DataSourceConfig
+    public static synchronized DataSourceRouter getInstance() {
+        if (instance == null) {
+            DataSourceConfig config = DataSourceConfig.load();
+            instance = new DataSourceRouter(ConnectionPool.getInstance(), config.getReaderUrls(), config);
+            instance.registerGauges(QueryMetrics.getInstance());
+        }
+        return instance;
+    }
+
+    // Router without replicas: every read and write uses the given pool
+    public static DataSourceRouter single(ConnectionPool pool) {
+        return new DataSourceRouter(pool);
+    }
+
+    // ======================= ROUTING =======================
+
+    public ConnectionPool writer() {
+        return writer;
+    }
+
+    // Connection for a write; the caller marks the write with writer().markWrite() once it succeeded
+    public Connection writeConnection() throws SQLException {
+        return writer.getConnection();
+    }
+
+    // Connection for a listing or search read, from a healthy replica when read-your-writes allows it
+    public Connection readConnection() throws SQLException {
+        if (!replicas.isEmpty() && !recentlyWritten()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (!replica.healthy) continue;
+                try {
+                    Connection conn = replica.pool.getConnection();
+                    replicaReads.incrementAndGet();
+                    return conn;
+                } catch (SQLException e) {
+                    if (isConnectionFailure(e)) markDown(replica, e.getMessage());
+                }
+            }
+        }
+        writerReads.incrementAndGet();
+        return writer.getConnection();
+    }
+
+    // Pool for long-running reads (exports): a healthy replica, else the writer
+    public ConnectionPool readerPool() {
+        for (Replica replica : replicas) {
+            if (replica.healthy) return replica.pool;
+        }
+        return writer;
+    }
+
+    private boolean recentlyWritten() {
+        return System.currentTimeMillis() - writer.getLastWriteMillis() < readYourWritesMillis;
+    }
+
+    // ======================= HEALTH =======================
+
+    // True for failures of the connection itself rather than of the pool (acquire timeout) or a statement
+    static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            failovers.incrementAndGet();
+            LOG.warning("Replica " + replica.url + " taken out of rotation: " + reason);
+        }
+    }
+
+    // Validates a dedicated connection to each replica rather than borrowing from its pool
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try {
+                if (!replica.pool.isReachable()) {
+                    markDown(replica, "connection failed validation");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    LOG.info("Replica " + replica.url + " is back in rotation");
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    public int getReplicaCount() { return replicas.size(); }
+
+    public int getHealthyReplicaCount() {
+        int healthy = 0;
+        for (Replica replica : replicas) if (replica.healthy) healthy++;
+        return healthy;
+    }
+
+    public long getReplicaReads() { return replicaReads.get(); }
+    public long getWriterReads() { return writerReads.get(); }
+    public long getFailoverCount() { return failovers.get(); }
+
+    public void registerGauges(QueryMetrics metrics) {
+        metrics.registerGauge("hms_db_healthy_replicas", this::getHealthyReplicaCount);
+        metrics.registerGauge("hms_db_replica_reads", this::getReplicaReads);
+        metrics.registerGauge("hms_db_writer_reads", this::getWriterReads);
+        metrics.registerGauge("hms_db_replica_failovers", this::getFailoverCount);
+    }
+
+    // Stops the health checks and closes the replica pools (the writer pool is left open)
+    public void close() {
+        if (healthChecker != null) healthChecker.shutdownNow();
+        for (Replica replica : replicas) replica.pool.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DataSourceRouter[replicas=%d, healthy=%d, replicaReads=%d, writerReads=%d, failovers=%d]",
+                getReplicaCount(), getHealthyReplicaCount(), getReplicaReads(), getWriterReads(), getFailoverCount());
+    }
+}
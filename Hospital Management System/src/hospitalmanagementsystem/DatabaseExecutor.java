@@ -0,0 +1,63 @@
+package hospitalmanagementsystem;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DatabaseExecutor owns the background threads that run JDBC work:
+ * Keeps database round-trips off the Swing event dispatch thread
+ * Uses virtual threads when the running JDK provides them
+ * Falls back to a bounded pool of daemon threads otherwise
+ */
+
+public final class DatabaseExecutor {
+
+    // Upper bound on platform threads; the ConnectionPool bounds real database concurrency
+    private static final int MAX_THREADS = 10;
+
+    private static ExecutorService executor;
+
+    private DatabaseExecutor() {
+    }
+
+    // Returns the shared executor, creating it on first use
+    public static synchronized ExecutorService get() {
+        if (executor == null) {
+            executor = newVirtualThreadExecutor();
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(MAX_THREADS, new DaemonThreadFactory());
+            }
+        }
+        return executor;
+    }
+
+    // Submits a task to the shared executor
+    public static void execute(Runnable task) {
+        get().execute(task);
+    }
+
+    // Looks up Executors.newVirtualThreadPerTaskExecutor() so the code still compiles and runs on JDK 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Names the worker threads and marks them as daemons so they never keep the JVM alive
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "db-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package hospitalmanagementsystem;
+
+import javax.swing.*;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * DatabaseWorker is a SwingWorker that runs one DAO operation on the DatabaseExecutor:
+ * Shows the owning window's BusyIndicator while it runs
+ * Publishes intermediate results back to the event dispatch thread in chunks
+ * Can be aborted when a newer query supersedes it; the statement a repository is running for
+ * the worker (see trackStatement) is then cancelled on the server too
+ * Reports the result or the error on the event dispatch thread
+ *
+ * @param <T> type of the final result
+ * @param <V> type of the chunks published while the work is running
+ */
+
+public abstract class DatabaseWorker<T, V> extends SwingWorker<T, V> {
+
+    // The worker whose doInBackground() is running on the current thread
+    private static final ThreadLocal<DatabaseWorker<?, ?>> CURRENT = new ThreadLocal<>();
+
+    private final BusyIndicator busy;
+    private final Object statementLock = new Object();
+    private Statement statement;
+
+    protected DatabaseWorker(BusyIndicator busy) {
+        this.busy = busy;
+    }
+
+    // Starts the worker on the shared DatabaseExecutor. Must be called on the EDT.
+    public DatabaseWorker<T, V> start() {
+        busy.start();
+        DatabaseExecutor.execute(this::runOnWorkerThread);
+        return this;
+    }
+
+    private void runOnWorkerThread() {
+        CURRENT.set(this);
+        try {
+            run();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    // Cancels the worker and the statement it is currently running, if any
+    public void abort() {
+        synchronized (statementLock) {
+            if (statement != null) {
+                try {
+                    statement.cancel();
+                } catch (SQLException ignored) {
+                    // the statement may already have finished
+                }
+            }
+        }
+        cancel(true);
+    }
+
+    // Called by the repositories around executing a query: registers the statement with the worker
+    // running on this thread, if any, so abort() can cancel it server-side. Pass null once it has
+    // finished, before the statement goes back to the StatementCache for another caller.
+    static void trackStatement(Statement statement) {
+        DatabaseWorker<?, ?> worker = CURRENT.get();
+        if (worker != null) {
+            synchronized (worker.statementLock) {
+                worker.statement = statement;
+            }
+        }
+    }
+
+    @Override
+    protected final void done() {
+        busy.stop();
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            succeeded(get());
+        } catch (CancellationException e) {
+            // superseded by a newer request
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            failed(e.getCause());
+        }
+    }
+
+    // Called on the EDT with the result of doInBackground()
+    protected void succeeded(T result) {
+    }
+
+    // Called on the EDT with the exception thrown by doInBackground()
+    protected void failed(Throwable error) {
+    }
+}
@@ -3,8 +3,12 @@ package hospitalmanagementsystem;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * DoctorDAO is a Java Swing GUI application that allows users to:
@@ -12,15 +16,25 @@ import java.time.LocalDate;
  * Save doctors to MySQL database
  * Display all saved doctors
  * Delete doctors by DoctorID
- * Update doctors
+ * Update doctors (select a row to edit it; changes made meanwhile by someone else are not overwritten)
  */
 
 public class DoctorDAO extends JFrame {
 
+    private static final Logger LOG = Logger.getLogger(DoctorDAO.class.getName());
+
     // Swing components
     private JTextField firstNameField, lastNameField, specialtyField, phoneField, emailField;
     private JTextField deleteIdField; // field for deleting a doctor
-    private JTextArea displayArea;
+    private JTable displayTable;
+    private PagedTableModel tableModel;
+    private BusyIndicator busyIndicator;
+
+    private static final String[] COLUMNS = {"DoctorID", "FirstName", "LastName", "Specialty", "Phone", "Email", "Version"};
+
+    // Doctor shown in the form for editing and the row version it was loaded with
+    private int editingID;
+    private int editingVersion;
 
     private JButton saveButton, displayButton, deleteButton, updateButton;
 
@@ -69,13 +83,18 @@ public class DoctorDAO extends JFrame {
         add(deleteButton);
 
         // ======================= DISPLAY AREA =======================
-        displayArea = new JTextArea(10, 50);
-        displayArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(displayArea);
+        busyIndicator = new BusyIndicator(this);
+        tableModel = new PagedTableModel(COLUMNS, PagedTableModel.DEFAULT_PAGE_SIZE, busyIndicator);
+
+        displayTable = new JTable(tableModel);
+        displayTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = displayTable.getSelectedRow();
+            Object[] selected = row >= 0 ? tableModel.getRow(row) : null; // null while its page is read again
+            if (!e.getValueIsAdjusting() && selected != null) edit(selected);
+        });
+        JScrollPane scrollPane = new JScrollPane(displayTable);
         add(scrollPane);
-
-        // filler
-        add(new JLabel());
+        add(busyIndicator);
 
         // ======================= BUTTON ACTIONS =======================
         saveButton.addActionListener(e -> saveDoctor());
@@ -90,99 +109,143 @@ public class DoctorDAO extends JFrame {
             }
         });
 
-        setVisible(true);
-    }
-
-    // ======================= DATABASE CONNECTION =======================
-
-    // Establishes connection to the MySQL database
-    // @return Connection object or null if connection fails
-
-    public static Connection getConnection() {
-        String url = "jdbc:mysql://localhost:3306/hospital_management_system";
-        String user = "root";
-        String password = ""; // Your SQL password
+        // ======================= LIVE UPDATES =======================
+        EntityEventBus.Subscription events = EntityEventBus.getInstance().subscribe(EntityEvent.Kind.DOCTOR,
+                event -> SwingUtilities.invokeLater(() -> applyEvent(event)));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                events.close();
+            }
+        });
 
-        try {
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, "Database connection failed:\n" + e.getMessage());
-            return null;
-        }
+        setVisible(true);
     }
 
     // ======================= ADD DOCTOR =======================
 
-    // Inserts a new doctor record into the doctor table.
+    // Inserts a new doctor record through the DoctorRepository on a background thread.
 
     public void addDoctor(Doctor doctor) {
-        String sql = "INSERT INTO DOCTORS (FirstName, LastName, Specialty, Phone, Email) VALUES (?, ?, ?, ?, ?)";
+        new DatabaseWorker<Integer, Void>(busyIndicator) {
+            @Override
+            protected Integer doInBackground() {
+                return Repositories.doctors().insert(doctor);
+            }
+
+            @Override
+            protected void succeeded(Integer doctorID) {
+                JOptionPane.showMessageDialog(DoctorDAO.this, "Doctor saved successfully.");
+            }
 
-        try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(DoctorDAO.this, error.getMessage());
+            }
+        }.start();
+    }
 
-            stmt.setString(1, doctor.getFirstName());
-            stmt.setString(2, doctor.getLastName());
-            stmt.setString(3, doctor.getSpecialty());
-            stmt.setString(4, doctor.getPhone());
-            stmt.setString(5, doctor.getEmail());
-            stmt.executeUpdate();
+    // ======================= DISPLAY DOCTOR =======================
 
-            JOptionPane.showMessageDialog(this, "Doctor saved successfully.");
+    // Shows all doctor records in the table, loading them one page at a time.
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error saving doctor: " + e.getMessage());
+    public void displayDoctors() {
+        tableModel.load((afterID, limit) -> toRows(Repositories.doctors().findPage(afterID, limit)));
+    }
+
+    // Converts doctors into table rows; the DoctorID column is the paging key.
+
+    private static List<Object[]> toRows(List<Doctor> doctors) {
+        List<Object[]> rows = new ArrayList<>(doctors.size());
+        for (Doctor d : doctors) {
+            rows.add(new Object[]{
+                    d.getDoctorID(),
+                    d.getFirstName(),
+                    d.getLastName(),
+                    d.getSpecialty(),
+                    d.getPhone(),
+                    d.getEmail(),
+                    d.getVersion()
+            });
         }
+        return rows;
     }
 
-    // ======================= DISPLAY DOCTOR =======================
+    // ======================= LIVE UPDATES =======================
+
+    // Patches the table from doctor events (see EntityEventBus) instead of reloading it.
+    // Remote events carry no doctor, so a changed row is read again in the background.
+
+    private void applyEvent(EntityEvent event) {
+        switch (event.getType()) {
+            case INSERTED:
+                tableModel.rowsAdded();
+                break;
+            case DELETED:
+                tableModel.removeRow(event.getId());
+                break;
+            default:
+                if (tableModel.indexOfKey(event.getId()) < 0) {
+                    return;
+                }
+                if (event.isRemote()) {
+                    reloadRow(event.getId());
+                } else {
+                    tableModel.replaceRow(toRows(List.of(event.<Doctor>getPayload())).get(0));
+                }
+        }
+    }
 
-    // Queries and displays all doctor records from the database in the text area.
+    private void reloadRow(int doctorID) {
+        new DatabaseWorker<Optional<Doctor>, Void>(busyIndicator) {
+            @Override
+            protected Optional<Doctor> doInBackground() {
+                return Repositories.doctors().findById(doctorID);
+            }
 
-    public void displayDoctors() {
-        String sql = "SELECT * FROM DOCTORS";
-        displayArea.setText("DoctorID | FirstName | LastName | Specialty | Phone | Email\n");
-
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                displayArea.append(
-                        rs.getInt("DoctorID") + " | " +
-                                rs.getString("FirstName") + " | " +
-                                rs.getString("LastName") + " | " +
-                                rs.getString("Specialty") + " | " +
-                                rs.getString("Phone") + " | " +
-                                rs.getString("Email") + "\n"
-                );
+            @Override
+            protected void succeeded(Optional<Doctor> doctor) {
+                if (doctor.isPresent()) {
+                    tableModel.replaceRow(toRows(List.of(doctor.get())).get(0));
+                } else {
+                    tableModel.removeRow(doctorID);
+                }
             }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error retrieving doctors: " + e.getMessage());
-        }
+            @Override
+            protected void failed(Throwable error) {
+                LOG.log(Level.WARNING, "Could not refresh doctor " + doctorID + " in the table", error);
+            }
+        }.start();
     }
 
     // ======================= DELETE DOCTOR =======================
 
     // Deletes doctor record into the DOCTORS table.
-
+    // The doctor's appointments from today on are cancelled in the same transaction.
 
     public void deleteDoctor(int doctorID) {
-        String sql = "DELETE FROM DOCTORS WHERE DoctorID = ?";
-
-        try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, doctorID);
-            int rows = stmt.executeUpdate();
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                try (UnitOfWork work = UnitOfWork.begin()) {
+                    work.cancelFutureAppointmentsForDoctor(doctorID, LocalDate.now());
+                    work.deleteDoctor(doctorID);
+                    work.commit();
+                }
+                return null;
+            }
 
-            if (rows > 0) {
-                JOptionPane.showMessageDialog(this, "Doctor deleted successfully!");
-                displayDoctors();
-            } else {
-                JOptionPane.showMessageDialog(this, "No doctor found with ID: " + doctorID);
+            @Override
+            protected void succeeded(Void result) {
+                JOptionPane.showMessageDialog(DoctorDAO.this, "Doctor deleted successfully!");
             }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error deleting doctor: " + e.getMessage());
-        }
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(DoctorDAO.this, error.getMessage());
+            }
+        }.start();
     }
 
     // ======================= SAVE DOCTOR =======================
@@ -206,46 +269,110 @@ public class DoctorDAO extends JFrame {
 
     // Update doctor record on DOCTORS table
 
+    // Only the doctor loaded into the form can be updated, and only while its version is current.
+    // Any other ID is loaded first so the user edits what is actually stored.
+
     private void updateDoctor() {
+        int doctorID;
         try {
+            doctorID = Integer.parseInt(deleteIdField.getText().trim()); // FIXED missing WHERE ID
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Enter a valid Doctor ID!");
+            return;
+        }
+        if (doctorID != editingID) {
+            loadForEdit(doctorID, "");
+            return;
+        }
 
-            String firstName = firstNameField.getText();
-            String lastName = lastNameField.getText();
-            String specialty = specialtyField.getText();
-            String phone = phoneField.getText();
-            String email = emailField.getText();
+        Doctor doctor = new Doctor(
+                doctorID,
+                firstNameField.getText(),
+                lastNameField.getText(),
+                specialtyField.getText(),
+                phoneField.getText(),
+                emailField.getText(),
+                editingVersion
+        );
+
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                Repositories.doctors().update(doctor);
+                return null;
+            }
 
-            String sql = "UPDATE doctors SET FirstName = ?, LastName = ?, Specialty = ?, Phone = ?, Email = ? WHERE DoctorID = ?";
+            @Override
+            protected void succeeded(Void result) {
+                editingVersion = doctor.getVersion() + 1;
+                JOptionPane.showMessageDialog(DoctorDAO.this, "Doctor updated successfully!");
+            }
 
-            try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            @Override
+            protected void failed(Throwable error) {
+                if (error instanceof OptimisticLockException) {
+                    loadForEdit(doctorID, "Someone else changed this doctor while you were editing it.\n");
+                    return;
+                }
+                JOptionPane.showMessageDialog(DoctorDAO.this, error instanceof EntityNotFoundException
+                        ? "Doctor ID not found!" : error.getMessage());
+            }
+        }.start();
+    }
 
-                stmt.setString(1, firstName);
-                stmt.setString(2, lastName);
-                stmt.setString(3, specialty);
-                stmt.setString(4, phone);
-                stmt.setString(5, email);
-                stmt.setInt(6, Integer.parseInt(deleteIdField.getText())); // FIXED missing WHERE ID
+    // Loads the stored doctor into the form for review before it is updated. It is read
+    // through a UnitOfWork, so it comes from the primary database rather than a cache or replica.
 
-                int rows = stmt.executeUpdate();
+    private void loadForEdit(int doctorID, String reason) {
+        new DatabaseWorker<Optional<Doctor>, Void>(busyIndicator) {
+            @Override
+            protected Optional<Doctor> doInBackground() {
+                try (UnitOfWork work = UnitOfWork.begin()) {
+                    return work.findDoctor(doctorID);
+                }
+            }
 
-                if (rows > 0) {
-                    JOptionPane.showMessageDialog(this, "Doctor updated successfully!");
-                    displayDoctors();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Doctor ID not found!");
+            @Override
+            protected void succeeded(Optional<Doctor> doctor) {
+                if (!doctor.isPresent()) {
+                    JOptionPane.showMessageDialog(DoctorDAO.this, "Doctor ID not found!");
+                    return;
                 }
+                edit(toRows(List.of(doctor.get())).get(0));
+                JOptionPane.showMessageDialog(DoctorDAO.this, reason + "The current details of doctor " + doctorID
+                        + " are in the form. Review them and press Update again.");
             }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error updating: " + e.getMessage());
-        }
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(DoctorDAO.this, error.getMessage());
+            }
+        }.start();
+    }
+
+    // Fills the form from a table row (see toRows) and remembers its version for the next update
+
+    private void edit(Object[] row) {
+        editingID = (Integer) row[0];
+        editingVersion = (Integer) row[6];
+        deleteIdField.setText(String.valueOf(editingID));
+        firstNameField.setText(text(row[1]));
+        lastNameField.setText(text(row[2]));
+        specialtyField.setText(text(row[3]));
+        phoneField.setText(text(row[4]));
+        emailField.setText(text(row[5]));
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
     }
 
     // ======================= MAIN METHOD =======================
 
-    // To run the application
+    // To run this module on its own; HospitalManagementSystem opens all three
 
     public static void main(String[] args) {
+        HospitalManagementSystem.startServices();
         SwingUtilities.invokeLater(DoctorDAO::new);
     }
 
@@ -261,15 +388,28 @@ public class DoctorDAO extends JFrame {
         private String specialty;
         private String phone;
         private String email;
+        private int version;
 
-
-        // Constructor
+        // Constructor for a new doctor that has no DoctorID yet
         public Doctor(String firstName, String lastName, String specialty, String phone, String email) {
+            this(0, firstName, lastName, specialty, phone, email);
+        }
+
+        // Constructor for a doctor that has not been read from the database (version 0)
+        public Doctor(int doctorID, String firstName, String lastName, String specialty, String phone, String email) {
+            this(doctorID, firstName, lastName, specialty, phone, email, 0);
+        }
+
+        // Constructor for a doctor read from or written back to the database;
+        // version is the row version it was read with (see OptimisticLockException)
+        public Doctor(int doctorID, String firstName, String lastName, String specialty, String phone, String email, int version) {
+            this.doctorID = doctorID;
             this.firstName = firstName;
             this.lastName = lastName;
             this.specialty = specialty;
             this.phone = phone;
             this.email = email;
+            this.version = version;
         }
 
         // Getter methods
@@ -279,5 +419,6 @@ public class DoctorDAO extends JFrame {
         public String getSpecialty() { return specialty; }
         public String getPhone() { return phone; }
         public String getEmail() { return email; }
+        public int getVersion() { return version; }
     }
 }
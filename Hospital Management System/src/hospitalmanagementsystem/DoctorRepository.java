@@ -0,0 +1,38 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * DoctorRepository is the headless data-access API for the DOCTORS table.
+ * Implementations throw DataAccessException when the database operation fails.
+ */
+
+public interface DoctorRepository {
+
+    // Inserts a doctor and returns the generated DoctorID
+    int insert(Doctor doctor);
+
+    // Inserts all doctors with JDBC batching, batchSize rows per transaction.
+    // Failed rows are reported in the result instead of aborting the whole load.
+    BatchResult insertAll(Iterable<? extends Doctor> doctors, int batchSize);
+
+    default BatchResult insertAll(Stream<Doctor> doctors, int batchSize) {
+        return insertAll(doctors::iterator, batchSize);
+    }
+
+    Optional<Doctor> findById(int doctorID);
+
+    // Returns up to limit doctors with DoctorID greater than afterID, ordered by DoctorID
+    List<Doctor> findPage(int afterID, int limit);
+
+    // Overwrites the doctor row with the given DoctorID if its version is still the one the doctor was read with.
+    // Throws EntityNotFoundException if the row does not exist, OptimisticLockException if it has changed since.
+    void update(Doctor doctor);
+
+    // Deletes the doctor row; throws EntityNotFoundException if it does not exist
+    void delete(int doctorID);
+}
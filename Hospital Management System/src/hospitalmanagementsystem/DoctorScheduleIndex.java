@@ -0,0 +1,124 @@
+package hospitalmanagementsystem;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * DoctorScheduleIndex keeps, per doctor, how many active appointments fall on each date:
+ * Availability checks and next-free-date queries are answered from memory
+ * A doctor's schedule is loaded on first use and reloaded after maxAge
+ * The booking engine updates it after each booking, cancellation or reschedule
+ *
+ * The database stays the source of truth; BookingEngine re-checks under a row lock,
+ * so a stale index can only cause a fast false answer that the booking then corrects.
+ */
+
+public class DoctorScheduleIndex {
+
+    private final int dailyCapacity;
+    private final long maxAgeNanos;
+    private final IntFunction<Map<LocalDate, Integer>> loader;
+    private final Map<Integer, Schedule> schedules = new ConcurrentHashMap<>();
+
+    // @param loader returns the active appointment count per date for a doctor, from today onwards
+    public DoctorScheduleIndex(int dailyCapacity, long maxAge, TimeUnit unit, IntFunction<Map<LocalDate, Integer>> loader) {
+        if (dailyCapacity < 1) {
+            throw new IllegalArgumentException("Daily capacity must be positive: " + dailyCapacity);
+        }
+        this.dailyCapacity = dailyCapacity;
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        this.loader = loader;
+    }
+
+    public int getDailyCapacity() { return dailyCapacity; }
+
+    // ======================= QUERIES =======================
+
+    public boolean isAvailable(int doctorID, LocalDate date) {
+        Schedule schedule = schedule(doctorID);
+        synchronized (schedule) {
+            return schedule.bookings.getOrDefault(date, 0) < dailyCapacity;
+        }
+    }
+
+    public int bookedCount(int doctorID, LocalDate date) {
+        Schedule schedule = schedule(doctorID);
+        synchronized (schedule) {
+            return schedule.bookings.getOrDefault(date, 0);
+        }
+    }
+
+    // Returns the first date on or after from on which the doctor still has capacity.
+    // Walks the booked dates from there until it finds a gap or a date that is not full.
+
+    public LocalDate nextFreeDate(int doctorID, LocalDate from) {
+        Schedule schedule = schedule(doctorID);
+        LocalDate candidate = from;
+        synchronized (schedule) {
+            for (Map.Entry<LocalDate, Integer> day : schedule.bookings.tailMap(from, true).entrySet()) {
+                if (day.getKey().isAfter(candidate)) break;
+                if (day.getValue() < dailyCapacity) break;
+                candidate = candidate.plusDays(1);
+            }
+        }
+        return candidate;
+    }
+
+    // ======================= UPDATES =======================
+
+    public void recordBooking(int doctorID, LocalDate date) {
+        adjust(doctorID, date, 1);
+    }
+
+    public void recordRelease(int doctorID, LocalDate date) {
+        adjust(doctorID, date, -1);
+    }
+
+    // Forgets a doctor's schedule so the next query reloads it from the database
+    public void invalidate(int doctorID) {
+        schedules.remove(doctorID);
+    }
+
+    public void invalidateAll() {
+        schedules.clear();
+    }
+
+    private void adjust(int doctorID, LocalDate date, int delta) {
+        Schedule schedule = schedules.get(doctorID);
+        if (schedule == null) {
+            return; // not loaded yet; the next load reads the current counts
+        }
+        synchronized (schedule) {
+            int count = schedule.bookings.getOrDefault(date, 0) + delta;
+            if (count > 0) {
+                schedule.bookings.put(date, count);
+            } else {
+                schedule.bookings.remove(date);
+            }
+        }
+    }
+
+    private Schedule schedule(int doctorID) {
+        Schedule schedule = schedules.get(doctorID);
+        if (schedule == null || System.nanoTime() - schedule.loadedAt > maxAgeNanos) {
+            schedule = new Schedule(new TreeMap<>(loader.apply(doctorID)));
+            schedules.put(doctorID, schedule);
+        }
+        return schedule;
+    }
+
+    // Active appointment counts per date for one doctor
+    private static class Schedule {
+        final NavigableMap<LocalDate, Integer> bookings;
+        final long loadedAt = System.nanoTime();
+
+        Schedule(NavigableMap<LocalDate, Integer> bookings) {
+            this.bookings = bookings;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package hospitalmanagementsystem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * EntityCache is a size-bounded, time-limited cache of entities keyed by their integer ID:
+ * Least recently used entries are evicted once maxSize is reached
+ * Entries expire ttl after they were loaded
+ * Counts hits, misses, evictions and expirations
+ *
+ * @param <V> cached entity type
+ */
+
+public class EntityCache<V> {
+
+    // Defaults used by Repositories, configurable with -Dhms.cache.size and -Dhms.cache.ttlSeconds
+    public static final int DEFAULT_MAX_SIZE = Integer.getInteger("hms.cache.size", 1000);
+    public static final long DEFAULT_TTL_SECONDS = Long.getLong("hms.cache.ttlSeconds", 300);
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Entry<V>> entries;
+
+    private long hits, misses, evictions, expirations;
+
+    // Bumped by every invalidation so a load that raced with an update is not cached
+    private long generation;
+
+    public EntityCache(String name, int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<Integer, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<V>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ======================= LOOKUP =======================
+
+    // Returns the cached entity, or loads it with the loader and caches it if found.
+    // The loader runs outside the cache lock so a slow query does not block other lookups.
+
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    return Optional.of(entry.value);
+                }
+                entries.remove(id);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        Optional<V> loaded = loader.apply(id);
+        if (loaded.isPresent()) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(id, new Entry<>(loaded.get(), System.nanoTime()));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(int id, V value) {
+        entries.put(id, new Entry<>(value, System.nanoTime()));
+    }
+
+    public synchronized void invalidate(int id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    // Drops expired entries; lookups already ignore them, this just frees the memory
+    public synchronized void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().loadedAt >= ttlNanos) {
+                it.remove();
+                expirations++;
+            }
+        }
+    }
+
+    // ======================= METRICS =======================
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getHitCount() { return hits; }
+    public synchronized long getMissCount() { return misses; }
+    public synchronized long getEvictionCount() { return evictions; }
+    public synchronized long getExpirationCount() { return expirations; }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("EntityCache[%s: size=%d/%d, hits=%d, misses=%d, hitRate=%.2f, evictions=%d, expirations=%d]",
+                name, entries.size(), maxSize, hits, misses, getHitRate(), evictions, expirations);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
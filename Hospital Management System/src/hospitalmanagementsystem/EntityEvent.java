@@ -0,0 +1,83 @@
+package hospitalmanagementsystem;
+
+/**
+ * EntityEvent describes one committed change to a patient, doctor or appointment row:
+ * What changed (kind and ID) and how (inserted, updated or deleted)
+ * The row version after the change (0 for deletes)
+ * The entity as stored (a Patient, Doctor or Appointment), or null for deletes
+ *
+ * Events received from another application instance (see EntityEventChannel) are remote:
+ * they carry the kind, ID, type and version but no payload, so subscribers that need
+ * the row load it themselves.
+ */
+
+public final class EntityEvent {
+
+    public enum Kind { PATIENT, DOCTOR, APPOINTMENT }
+
+    public enum Type { INSERTED, UPDATED, DELETED }
+
+    private final Kind kind;
+    private final Type type;
+    private final int id;
+    private final int version;
+    private final Object payload;
+    private final boolean remote;
+
+    public EntityEvent(Kind kind, Type type, int id, int version, Object payload, boolean remote) {
+        this.kind = kind;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.payload = payload;
+        this.remote = remote;
+    }
+
+    public static EntityEvent inserted(PatientDAO.Patient patient) {
+        return new EntityEvent(Kind.PATIENT, Type.INSERTED, patient.getPatientID(), patient.getVersion(), patient, false);
+    }
+
+    public static EntityEvent inserted(DoctorDAO.Doctor doctor) {
+        return new EntityEvent(Kind.DOCTOR, Type.INSERTED, doctor.getDoctorID(), doctor.getVersion(), doctor, false);
+    }
+
+    public static EntityEvent inserted(AppointmentDAO.Appointment appointment) {
+        return new EntityEvent(Kind.APPOINTMENT, Type.INSERTED, appointment.getAppointmentID(), appointment.getVersion(), appointment, false);
+    }
+
+    // The payloads of update events are the entities as stored, i.e. with their new version
+
+    public static EntityEvent updated(PatientDAO.Patient patient) {
+        return new EntityEvent(Kind.PATIENT, Type.UPDATED, patient.getPatientID(), patient.getVersion(), patient, false);
+    }
+
+    public static EntityEvent updated(DoctorDAO.Doctor doctor) {
+        return new EntityEvent(Kind.DOCTOR, Type.UPDATED, doctor.getDoctorID(), doctor.getVersion(), doctor, false);
+    }
+
+    public static EntityEvent updated(AppointmentDAO.Appointment appointment) {
+        return new EntityEvent(Kind.APPOINTMENT, Type.UPDATED, appointment.getAppointmentID(), appointment.getVersion(), appointment, false);
+    }
+
+    public static EntityEvent deleted(Kind kind, int id) {
+        return new EntityEvent(kind, Type.DELETED, id, 0, null, false);
+    }
+
+    public Kind getKind() { return kind; }
+    public Type getType() { return type; }
+    public int getId() { return id; }
+    public int getVersion() { return version; }
+    public boolean isRemote() { return remote; }
+    public boolean isDelete() { return type == Type.DELETED; }
+
+    // The stored entity; null for deletes and remote events
+    @SuppressWarnings("unchecked")
+    public <T> T getPayload() {
+        return (T) payload;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " " + type + (remote ? " (remote)" : "");
+    }
+}
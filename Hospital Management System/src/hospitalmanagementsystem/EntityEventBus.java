@@ -0,0 +1,95 @@
+package hospitalmanagementsystem;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EntityEventBus delivers EntityEvents to the caches, indexes and windows that subscribed to them:
+ * The repositories, UnitOfWork and BookingEngine publish an event after every committed
+ * insert, update and delete of a single row
+ * Listeners run on the publishing thread, in subscription order; a failing listener is logged
+ * and does not affect the others or the publisher
+ * Windows hop to the event dispatch thread themselves
+ *
+ * Set-based statements (e.g. cancelling a doctor's future appointments) change rows without
+ * knowing their IDs and publish no row events.
+ */
+
+public class EntityEventBus {
+
+    private static final Logger LOG = Logger.getLogger(EntityEventBus.class.getName());
+
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(EntityEvent event);
+    }
+
+    // Returned by subscribe(); close() stops the deliveries
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static EntityEventBus instance;
+
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong(), remote = new AtomicLong(), failures = new AtomicLong();
+
+    private static final class Registration {
+        final EntityEvent.Kind kind;
+        final Listener listener;
+
+        Registration(EntityEvent.Kind kind, Listener listener) {
+            this.kind = kind;
+            this.listener = listener;
+        }
+    }
+
+    // The bus shared by the application; starts the EntityEventChannel when one is configured
+    public static synchronized EntityEventBus getInstance() {
+        if (instance == null) {
+            instance = new EntityEventBus();
+            instance.registerGauges(QueryMetrics.getInstance());
+            EntityEventChannel.startIfConfigured(instance);
+        }
+        return instance;
+    }
+
+    // Receives every event
+    public Subscription subscribe(Listener listener) {
+        return subscribe(null, listener);
+    }
+
+    // Receives the events about one kind of entity
+    public Subscription subscribe(EntityEvent.Kind kind, Listener listener) {
+        Registration registration = new Registration(kind, listener);
+        listeners.add(registration);
+        return () -> listeners.remove(registration);
+    }
+
+    public void publish(EntityEvent event) {
+        (event.isRemote() ? remote : published).incrementAndGet();
+        for (Registration registration : listeners) {
+            if (registration.kind != null && registration.kind != event.getKind()) continue;
+            try {
+                registration.listener.onEvent(event);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                LOG.log(Level.WARNING, "Listener failed on " + event, e);
+            }
+        }
+    }
+
+    public long getPublishedCount() { return published.get(); }
+    public long getRemoteCount() { return remote.get(); }
+    public long getListenerFailureCount() { return failures.get(); }
+
+    public void registerGauges(QueryMetrics metrics) {
+        metrics.registerGauge("hms_events_published", this::getPublishedCount);
+        metrics.registerGauge("hms_events_remote", this::getRemoteCount);
+        metrics.registerGauge("hms_events_listener_failures", this::getListenerFailureCount);
+    }
+}
@@ -0,0 +1,224 @@
+package hospitalmanagementsystem;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EntityEventChannel shares EntityEvents between application instances on the same machine:
+ * Each instance binds the first free UDP port of a small range on 127.0.0.1
+ * Local events are sent to every other port of the range; nothing leaves the host
+ * Events from other instances are published on the local bus as remote events
+ * Only kind, type, ID and version are sent, never patient details
+ * Events published in a burst (e.g. an import) are packed many to a datagram
+ *
+ * Delivery is best effort: a lost datagram leaves a cache or window as stale as it would be
+ * without the channel, until its own refresh. The outbox is bounded; when it is full, events
+ * are dropped and counted rather than slowing the writers down.
+ *
+ * Enabled with -Dhms.events.port=N (the first port of the range, the same for every instance);
+ * -Dhms.events.instances sets the size of the range (8 by default).
+ */
+
+public class EntityEventChannel implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(EntityEventChannel.class.getName());
+
+    private static final String MAGIC = "HMS-EVENTS 1";
+    private static final int MAX_DATAGRAM = 1400;
+    private static final int OUTBOX_CAPACITY = 65_536;
+
+    private final EntityEventBus bus;
+    private final DatagramSocket socket;
+    private final List<InetSocketAddress> peers = new ArrayList<>();
+    private final String origin = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final BlockingQueue<EntityEvent> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+    private final EntityEventBus.Subscription subscription;
+    private final Thread sender, receiver;
+    private final AtomicLong sent = new AtomicLong(), received = new AtomicLong(), dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    // Binds the first free port in [basePort, basePort + instances) and starts relaying
+    public EntityEventChannel(EntityEventBus bus, int basePort, int instances) throws SocketException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket bound = null;
+        for (int port = basePort; port < basePort + instances && bound == null; port++) {
+            try {
+                bound = new DatagramSocket(new InetSocketAddress(loopback, port));
+            } catch (SocketException inUse) {
+                // taken by another instance; try the next port
+            }
+        }
+        if (bound == null) {
+            throw new SocketException("No free event port in " + basePort + "-" + (basePort + instances - 1));
+        }
+        this.bus = bus;
+        this.socket = bound;
+        for (int port = basePort; port < basePort + instances; port++) {
+            if (port != socket.getLocalPort()) peers.add(new InetSocketAddress(loopback, port));
+        }
+
+        subscription = bus.subscribe(event -> {
+            if (!event.isRemote() && !outbox.offer(event)) dropped.incrementAndGet();
+        });
+        sender = daemon(this::sendLoop, "entity-events-send");
+        receiver = daemon(this::receiveLoop, "entity-events-receive");
+    }
+
+    // Starts a channel for the bus when -Dhms.events.port is set; failures only disable sharing
+    static void startIfConfigured(EntityEventBus bus) {
+        int port = Integer.getInteger("hms.events.port", 0);
+        if (port <= 0) return;
+        try {
+            EntityEventChannel channel = new EntityEventChannel(bus, port, Integer.getInteger("hms.events.instances", 8));
+            channel.registerGauges(QueryMetrics.getInstance());
+            LOG.info("Sharing entity events on " + channel);
+        } catch (SocketException e) {
+            LOG.log(Level.WARNING, "Entity events are not shared with other instances", e);
+        }
+    }
+
+    public int getLocalPort() { return socket.getLocalPort(); }
+    public long getSentCount() { return sent.get(); }
+    public long getReceivedCount() { return received.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+
+    public void registerGauges(QueryMetrics metrics) {
+        metrics.registerGauge("hms_events_channel_sent", this::getSentCount);
+        metrics.registerGauge("hms_events_channel_received", this::getReceivedCount);
+        metrics.registerGauge("hms_events_channel_dropped", this::getDroppedCount);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        subscription.close();
+        socket.close();
+        sender.interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return "127.0.0.1:" + getLocalPort() + " (" + peers.size() + " peer ports)";
+    }
+
+    // ======================= SENDING =======================
+
+    // Waits for an event, then packs it and whatever else is queued into as few datagrams as possible
+
+    private void sendLoop() {
+        List<EntityEvent> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder(MAX_DATAGRAM);
+        try {
+            while (!closed) {
+                batch.add(outbox.take());
+                outbox.drainTo(batch);
+                text.setLength(0);
+                for (EntityEvent event : batch) {
+                    String line = encode(event);
+                    if (text.length() > 0 && text.length() + line.length() > MAX_DATAGRAM) {
+                        send(text);
+                        text.setLength(0);
+                    }
+                    if (text.length() == 0) text.append(MAGIC).append(' ').append(origin).append('\n');
+                    text.append(line);
+                }
+                send(text);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(StringBuilder text) {
+        byte[] data = text.toString().getBytes(StandardCharsets.US_ASCII);
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(data, data.length, peer));
+            } catch (IOException e) {
+                if (closed) return;
+                // nobody listening on that port, or the datagram was refused; best effort
+            }
+        }
+        sent.incrementAndGet();
+    }
+
+    // One event per line: kind and type initials, ID and version, e.g. "AU 42 3"
+    private static String encode(EntityEvent event) {
+        return "" + event.getKind().name().charAt(0) + event.getType().name().charAt(0)
+                + ' ' + event.getId() + ' ' + event.getVersion() + '\n';
+    }
+
+    // ======================= RECEIVING =======================
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_DATAGRAM * 2];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!closed) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                String[] lines = new String(buffer, 0, packet.getLength(), StandardCharsets.US_ASCII).split("\n");
+                // skip foreign traffic and the datagrams this instance sent itself
+                if (lines.length < 2 || !lines[0].startsWith(MAGIC + ' ') || lines[0].equals(MAGIC + ' ' + origin)) {
+                    continue;
+                }
+                received.incrementAndGet();
+                for (int i = 1; i < lines.length; i++) {
+                    EntityEvent event = decode(lines[i]);
+                    if (event != null) bus.publish(event);
+                }
+            } catch (IOException e) {
+                if (!closed) LOG.log(Level.FINE, "Event datagram not received", e);
+            }
+        }
+    }
+
+    // Parses one line written by encode; malformed lines are ignored
+    private static EntityEvent decode(String line) {
+        String[] parts = line.split(" ");
+        if (parts.length != 3 || parts[0].length() != 2) return null;
+        try {
+            EntityEvent.Kind kind = kindOf(parts[0].charAt(0));
+            EntityEvent.Type type = typeOf(parts[0].charAt(1));
+            if (kind == null || type == null) return null;
+            return new EntityEvent(kind, type, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), null, true);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static EntityEvent.Kind kindOf(char initial) {
+        for (EntityEvent.Kind kind : EntityEvent.Kind.values()) {
+            if (kind.name().charAt(0) == initial) return kind;
+        }
+        return null;
+    }
+
+    private static EntityEvent.Type typeOf(char initial) {
+        for (EntityEvent.Type type : EntityEvent.Type.values()) {
+            if (type.name().charAt(0) == initial) return type;
+        }
+        return null;
+    }
+
+    private static Thread daemon(Runnable body, String name) {
+        Thread t = new Thread(body, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+}
@@ -0,0 +1,92 @@
+package hospitalmanagementsystem;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * EntityMapper turns result set rows into entities without looking columns up by name per row:
+ * Owns the explicit column list the queries select (no SELECT *)
+ * Resolves each column's index once per ResultSet with findColumn
+ * Builds the entity straight from indexed getters
+ *
+ * Queries may select extra columns or put the mapped ones in any order.
+ *
+ * @param <T> entity type
+ */
+
+public final class EntityMapper<T> {
+
+    // Builds one entity from the current row; column[i] is the index of the i-th mapped column
+    @FunctionalInterface
+    public interface RowFactory<T> {
+        T create(ResultSet rs, int[] column) throws SQLException;
+    }
+
+    // Reads rows of one result set with its column indexes already resolved
+    public interface RowReader<T> {
+        T read() throws SQLException;
+    }
+
+    private final String[] columns;
+    private final String selectList;
+    private final RowFactory<T> factory;
+
+    public EntityMapper(String[] columns, RowFactory<T> factory) {
+        this(columns, String.join(", ", columns), factory);
+    }
+
+    // For joins: selectList qualifies or aliases the columns, which are then found by their labels
+    public EntityMapper(String[] columns, String selectList, RowFactory<T> factory) {
+        this.columns = columns.clone();
+        this.selectList = selectList;
+        this.factory = factory;
+    }
+
+    // Comma-separated column list for the SELECT clause
+    public String selectList() {
+        return selectList;
+    }
+
+    // Number of mapped columns; extra columns selected after selectList() start at columnCount() + 1
+    public int columnCount() {
+        return columns.length;
+    }
+
+    // Resolves the column indexes for this result set
+    public RowReader<T> bind(ResultSet rs) throws SQLException {
+        int[] index = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            index[i] = rs.findColumn(columns[i]);
+        }
+        return () -> factory.create(rs, index);
+    }
+
+    // Maps every remaining row into the list
+    public <C extends List<T>> C readAll(ResultSet rs, C into) throws SQLException {
+        RowReader<T> reader = bind(rs);
+        while (rs.next()) {
+            into.add(reader.read());
+        }
+        return into;
+    }
+
+    public List<T> readAll(ResultSet rs) throws SQLException {
+        return readAll(rs, new ArrayList<>());
+    }
+
+    // Maps the next row, if any
+    public Optional<T> readOne(ResultSet rs) throws SQLException {
+        return rs.next() ? Optional.of(bind(rs).read()) : Optional.empty();
+    }
+
+    // Null-safe DATE column read
+    public static LocalDate localDate(ResultSet rs, int column) throws SQLException {
+        Date date = rs.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+}
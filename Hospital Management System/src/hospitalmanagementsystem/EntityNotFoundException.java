@@ -0,0 +1,20 @@
+package hospitalmanagementsystem;
+
+/**
+ * EntityNotFoundException is thrown when an update or delete targets a row that does not exist.
+ */
+
+public class EntityNotFoundException extends DataAccessException {
+
+    private final String entity;
+    private final int id;
+
+    public EntityNotFoundException(String entity, int id) {
+        super("No " + entity + " found with ID: " + id);
+        this.entity = entity;
+        this.id = id;
+    }
+
+    public String getEntity() { return entity; }
+    public int getId() { return id; }
+}
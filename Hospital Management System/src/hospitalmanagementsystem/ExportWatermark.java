@@ -0,0 +1,74 @@
+package hospitalmanagementsystem;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * ExportWatermark marks how far a table has been exported:
+ * lastID - rows with a greater key have not been exported yet
+ * lastDate - the latest date column value exported so far
+ *
+ * An incremental export reads rows after lastID (or from a date) and saves the watermark it
+ * reached in the export directory, as a small properties file per table.
+ */
+
+public final class ExportWatermark {
+
+    public static final ExportWatermark NONE = new ExportWatermark(0, null);
+
+    private final int lastID;
+    private final LocalDate lastDate;
+
+    public ExportWatermark(int lastID, LocalDate lastDate) {
+        this.lastID = lastID;
+        this.lastDate = lastDate;
+    }
+
+    public static ExportWatermark afterID(int lastID) {
+        return new ExportWatermark(lastID, null);
+    }
+
+    public static ExportWatermark fromDate(LocalDate date) {
+        return new ExportWatermark(0, date);
+    }
+
+    public int getLastID() { return lastID; }
+    public LocalDate getLastDate() { return lastDate; }
+
+    // The watermark file for a table's exports in a directory, e.g. exports/appointments.watermark
+    public static Path fileFor(Path directory, String table) {
+        return directory.resolve(table.toLowerCase(Locale.ROOT) + ".watermark");
+    }
+
+    // Loads a saved watermark, or NONE when the file does not exist
+    public static ExportWatermark load(Path file) throws IOException {
+        if (!Files.exists(file)) return NONE;
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            props.load(in);
+        }
+        String date = props.getProperty("lastDate");
+        return new ExportWatermark(Integer.parseInt(props.getProperty("lastID", "0")),
+                date == null || date.isEmpty() ? null : LocalDate.parse(date));
+    }
+
+    public void save(Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("lastID", Integer.toString(lastID));
+        if (lastDate != null) props.setProperty("lastDate", lastDate.toString());
+        try (Writer out = Files.newBufferedWriter(file)) {
+            props.store(out, "Hospital Management System export watermark");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "lastID=" + lastID + (lastDate != null ? ", lastDate=" + lastDate : "");
+    }
+}
@@ -1,8 +1,207 @@
 package hospitalmanagementsystem;
 
-public class HospitalManagementSystem{
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-    public static void main (String[]args){
+/**
+ * HospitalManagementSystem is the application launcher:
+ * Shows one small window with a button per module (patients, doctors, appointments)
+ * Creates a module window the first time it is opened and brings it to the front after that
+ * All windows share one connection pool, the entity caches, the DatabaseExecutor and the event bus
+ * Warms up the database side (driver, pools, migrations, roster, search index) in the background
+ * while the first screen is shown, so startup never waits for the database
+ * Logs the time from JVM start to the first screen against -Dhms.startup.targetMillis (500)
+ *
+ * "--cds-training" opens every window once warm-up has finished and then exits, so one run
+ * records the classes of a normal session in an AppCDS archive (see the README).
+ */
 
+public class HospitalManagementSystem extends JFrame {
+
+    private static final Logger LOG = Logger.getLogger(HospitalManagementSystem.class.getName());
+
+    // Startup budget from JVM start to the first screen, configurable with -Dhms.startup.targetMillis=N
+    public static final long TARGET_MILLIS = Long.getLong("hms.startup.targetMillis", 500);
+
+    private static CompletableFuture<Void> services;
+    private static volatile long firstScreenMillis = -1, warmUpMillis = -1;
+
+    // Module windows by button label; a closed window is disposed and created again on the next open
+    private final Map<String, JFrame> windows = new HashMap<>();
+    private final JLabel statusLabel;
+
+    // Constructor that sets up the launcher window; nothing here touches the database
+    public HospitalManagementSystem(long startMillis, boolean training) {
+        setTitle("Hospital Management System");
+        setSize(360, 260);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new GridLayout(5, 1));
+
+        // ===== MODULE BUTTONS =====
+        add(new JLabel("Hospital Management System", SwingConstants.CENTER));
+        addModule("Patients", PatientDAO::new);
+        addModule("Doctors", DoctorDAO::new);
+        addModule("Appointments", AppointmentDAO::new);
+
+        // ===== STATUS =====
+        statusLabel = new JLabel("", SwingConstants.CENTER);
+        add(statusLabel);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                firstScreenShown(startMillis);
+            }
+        });
+
+        watchServices(training);
+
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // Starts (or joins) the warm-up and shows its outcome in the status line
+    private void watchServices(boolean training) {
+        statusLabel.setText("Connecting to the database...");
+        startServices().whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                statusLabel.setText("Database not available: " + cause.getMessage());
+            } else {
+                statusLabel.setText("Ready");
+                if (training) finishTrainingRun();
+            }
+        }));
+    }
+
+    private void addModule(String label, Supplier<JFrame> factory) {
+        JButton button = new JButton(label);
+        button.addActionListener(e -> open(label, factory));
+        add(button);
+    }
+
+    // Shows the module window, creating it on first use; retries the warm-up if the last one failed
+    private void open(String label, Supplier<JFrame> factory) {
+        if (!servicesStarted()) watchServices(false);
+        JFrame window = windows.get(label);
+        if (window == null || !window.isDisplayable()) {
+            window = factory.get();
+            window.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            windows.put(label, window);
+        }
+        window.setExtendedState(window.getExtendedState() & ~Frame.ICONIFIED);
+        window.toFront();
+    }
+
+    // ======================= STARTUP TIMING =======================
+
+    // Called on the EDT when the launcher is first shown. The start is the JVM's own start
+    // time where the OS reports it, so JVM boot and class loading are included.
+
+    private void firstScreenShown(long mainMillis) {
+        long start = ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli).orElse(mainMillis);
+        firstScreenMillis = System.currentTimeMillis() - start;
+        String message = "First screen after " + firstScreenMillis + " ms (target " + TARGET_MILLIS + " ms)";
+        LOG.log(firstScreenMillis > TARGET_MILLIS ? Level.WARNING : Level.INFO, message);
+    }
+
+    // Milliseconds from JVM start to the launcher window, or -1 before it is shown
+    public static long getFirstScreenMillis() { return firstScreenMillis; }
+
+    // Milliseconds taken by startServices(), or -1 until it has finished
+    public static long getWarmUpMillis() { return warmUpMillis; }
+
+    // ======================= SHARED SERVICES =======================
+
+    // Starts the database side shared by every window on the DatabaseExecutor: reads the
+    // configuration, opens the writer and reader pools (loading the JDBC driver), applies the
+    // schema migrations and starts the appointment roster and patient search index.
+    // Runs once; later calls return the same future. A failed warm-up is forgotten, so the
+    // next call (e.g. opening a module once the database is back) runs it again.
+
+    public static synchronized CompletableFuture<Void> startServices() {
+        if (services == null) {
+            CompletableFuture<Void> started = CompletableFuture.runAsync(HospitalManagementSystem::warmUp, DatabaseExecutor.get());
+            services = started;
+            started.whenComplete((ignored, error) -> {
+                if (error != null) forgetServices(started);
+            });
+        }
+        return services;
+    }
+
+    private static synchronized void forgetServices(CompletableFuture<Void> failed) {
+        if (services == failed) services = null;
+    }
+
+    // True while a warm-up is running or once one has succeeded
+    private static synchronized boolean servicesStarted() {
+        return services != null;
+    }
+
+    private static void warmUp() {
+        long start = System.nanoTime();
+        QueryMetrics metrics = QueryMetrics.getInstance();
+        metrics.registerGauge("hms_startup_first_screen_millis", HospitalManagementSystem::getFirstScreenMillis);
+        metrics.registerGauge("hms_startup_warmup_millis", HospitalManagementSystem::getWarmUpMillis);
+
+        DataSourceRouter router = DataSourceRouter.getInstance();
+        ConnectionPool writer = router.writer();
+        try {
+            // the first connection loads the driver and proves the database is reachable
+            if (!writer.isReachable()) throw new DataAccessException("The database connection failed validation");
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot connect to the database", e);
+        }
+        writer.fillToMinimum();
+        if (router.readerPool() != writer) router.readerPool().fillToMinimum();
+
+        SchemaMigrations.migrate(writer);
+        Repositories.patients();
+        Repositories.doctors();
+        Repositories.appointments();
+        BookingEngine.getInstance();
+        AppointmentRoster.getInstance().start();
+        PatientSearchIndex.getInstance().start(Repositories.patients());
+
+        warmUpMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.info("Database services ready after " + warmUpMillis + " ms");
+    }
+
+    // ======================= CDS TRAINING RUN =======================
+
+    // Opens every module once so their classes are loaded, then exits and lets the JVM
+    // write the archive requested with -XX:ArchiveClassesAtExit
+
+    private void finishTrainingRun() {
+        open("Patients", PatientDAO::new);
+        open("Doctors", DoctorDAO::new);
+        open("Appointments", AppointmentDAO::new);
+        Timer exit = new Timer(1000, e -> System.exit(0));
+        exit.setRepeats(false);
+        exit.start();
+    }
+
+    // ======================= MAIN =======================
+
+    // To run the application
+
+    public static void main(String[] args) {
+        long mainMillis = System.currentTimeMillis();
+        boolean training = Arrays.asList(args).contains("--cds-training");
+        startServices();
+        SwingUtilities.invokeLater(() -> new HospitalManagementSystem(mainMillis, training));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,328 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.AppointmentDAO.AppointmentView;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JdbcAppointmentRepository implements AppointmentRepository on top of the shared ConnectionPool;
+ * listing and search reads go through DataSourceRouter, so they can be served by a replica.
+ * searchViews joins PATIENTS and DOCTORS on their primary keys to add the names in the same query.
+ * Every committed insert, update and delete is published on the EntityEventBus.
+ * It has no Swing dependencies and can be used from batch jobs, services and benchmarks.
+ */
+
+public class JdbcAppointmentRepository implements AppointmentRepository {
+
+    static final String INSERT_SQL = "INSERT INTO appointments (PatientID, DoctorID, AppointmentDate, Description, AppointmentStatus) VALUES (?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE appointments SET PatientID = ?, DoctorID = ?, AppointmentDate = ?, Description = ?, AppointmentStatus = ?, "
+            + "Version = Version + 1 WHERE AppointmentID = ? AND Version = ?";
+    static final String VERSION_SQL = "SELECT Version FROM appointments WHERE AppointmentID = ?";
+    static final String DELETE_SQL = "DELETE FROM appointments WHERE AppointmentID = ?";
+
+    private final DataSourceRouter router;
+    private final EntityEventBus events;
+    private final BatchInserter<Appointment> batchInserter;
+
+    // Search SQL by criteria shape; reusing the exact same text lets the driver and the
+    // server reuse the prepared statement and its plan
+    private final Map<Integer, String> searchSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> viewSql = new ConcurrentHashMap<>();
+    // Marks the SQL for the undated rows in those maps (above AppointmentSearch's shape bits)
+    private static final int UNDATED_SHAPE = 1 << 16;
+
+    public JdbcAppointmentRepository(ConnectionPool pool) {
+        this(DataSourceRouter.single(pool));
+    }
+
+    public JdbcAppointmentRepository(DataSourceRouter router) {
+        this(router, EntityEventBus.getInstance());
+    }
+
+    public JdbcAppointmentRepository(DataSourceRouter router, EntityEventBus events) {
+        this.router = router;
+        this.events = events;
+        this.batchInserter = new BatchInserter<>(router.writer(), INSERT_SQL, JdbcAppointmentRepository::bindInsert,
+                (appointment, appointmentID) -> events.publish(EntityEvent.inserted(withID(appointment, appointmentID))));
+    }
+
+    // ======================= INSERT =======================
+
+    @Override
+    public int insert(Appointment appointment) {
+        try (Connection conn = router.writeConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(stmt, appointment);
+            stmt.executeUpdate();
+            router.writer().markWrite();
+
+            int appointmentID;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                appointmentID = keys.next() ? keys.getInt(1) : 0;
+            }
+            events.publish(EntityEvent.inserted(withID(appointment, appointmentID)));
+            return appointmentID;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving appointment: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Appointment> appointments, int batchSize) {
+        return batchInserter.insertAll(appointments.iterator(), batchSize);
+    }
+
+    // Sets the INSERT_SQL parameters; shared by single and batched inserts
+    static void bindInsert(PreparedStatement stmt, Appointment appointment) throws SQLException {
+        stmt.setInt(1, appointment.getPatientID());
+        stmt.setInt(2, appointment.getDoctorID());
+        stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
+        stmt.setString(4, appointment.getDescription());
+        stmt.setString(5, appointment.getAppointmentStatus());
+    }
+
+    // ======================= READ =======================
+
+    @Override
+    public Optional<Appointment> findById(int appointmentID) {
+        String sql = "SELECT " + MAPPER.selectList() + " FROM appointments WHERE AppointmentID = ?";
+
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, appointmentID);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPER.readOne(rs);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading appointment " + appointmentID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Appointment> findPage(int afterID, int limit) {
+        return search(new AppointmentSearch().after(afterID).limit(limit));
+    }
+
+    @Override
+    public List<Appointment> search(AppointmentSearch criteria) {
+        return page(criteria, MAPPER, searchSql, MAPPER.selectList() + " FROM appointments", "");
+    }
+
+    // One query for the listing screens: the appointment columns they show plus the patient's
+    // and doctor's names. Filters, order and paging are the same as search, on the appointments alias.
+
+    @Override
+    public List<AppointmentView> searchViews(AppointmentSearch criteria) {
+        return page(criteria, VIEW_MAPPER, viewSql, VIEW_MAPPER.selectList() + VIEW_FROM, "a.");
+    }
+
+    // Reads one page. The date orders page the dated rows with a (date, ID) keyset that the doctor
+    // and patient date indexes return in order; appointments without a date follow them, paged by ID
+    // in a second query that only runs once the dated rows are used up and no date range is set.
+
+    private <T> List<T> page(AppointmentSearch criteria, EntityMapper<T> mapper, Map<Integer, String> sqlByShape,
+                             String selectFrom, String t) {
+        List<T> page = new ArrayList<>(Math.min(criteria.getLimit(), 1024));
+        boolean dateOrder = criteria.getSort() != AppointmentSearch.Sort.ID;
+        boolean afterUndated = dateOrder && criteria.hasKeyset() && criteria.getAfterDate() == null;
+
+        if (!afterUndated) {
+            String sql = sqlByShape.computeIfAbsent(criteria.shape(), shape -> buildSearchSql(criteria, selectFrom, t, false));
+            query(sql, criteria, mapper, page);
+        }
+        boolean undatedCanMatch = dateOrder && criteria.getFrom() == null && criteria.getTo() == null;
+        if (undatedCanMatch && page.size() < criteria.getLimit()) {
+            AppointmentSearch undated = afterUndated ? criteria : criteria.copy().after(null, 0).limit(criteria.getLimit() - page.size());
+            String sql = sqlByShape.computeIfAbsent(undated.shape() | UNDATED_SHAPE, shape -> buildSearchSql(undated, selectFrom, t, true));
+            query(sql, undated, mapper, page);
+        }
+        return page;
+    }
+
+    private <T> void query(String sql, AppointmentSearch criteria, EntityMapper<T> mapper, List<T> page) {
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindSearch(stmt, criteria);
+
+            DatabaseWorker.trackStatement(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                mapper.readAll(rs, page);
+            } finally {
+                DatabaseWorker.trackStatement(null);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading appointments: " + e.getMessage(), e);
+        }
+    }
+
+    // Builds the parameterized SQL for one criteria shape. Every filter is an indexed
+    // equality or range (see SchemaMigrations) and the ORDER BY matches the keyset predicate.
+    // @param selectFrom select list and FROM clause
+    // @param t qualifier of the appointments columns ("" or a table alias with its dot)
+    // @param undated true for the rows without a date that follow the dated ones in the date orders
+
+    private static String buildSearchSql(AppointmentSearch criteria, String selectFrom, String t, boolean undated) {
+        List<String> conditions = new ArrayList<>();
+        if (criteria.getPatientID() != null) conditions.add(t + "PatientID = ?");
+        if (criteria.getDoctorID() != null) conditions.add(t + "DoctorID = ?");
+        if (criteria.getFrom() != null) conditions.add(t + "AppointmentDate >= ?");
+        if (criteria.getTo() != null) conditions.add(t + "AppointmentDate <= ?");
+        if (criteria.getStatus() != null) conditions.add(t + "AppointmentStatus = ?");
+
+        boolean unbounded = criteria.getFrom() == null && criteria.getTo() == null;
+        String orderBy;
+        if (undated) {
+            boolean descending = criteria.getSort() == AppointmentSearch.Sort.DATE_DESC;
+            conditions.add(t + "AppointmentDate IS NULL");
+            if (criteria.hasKeyset()) conditions.add(t + "AppointmentID " + (descending ? "<" : ">") + " ?");
+            orderBy = t + "AppointmentID" + (descending ? " DESC" : "");
+        } else {
+            switch (criteria.getSort()) {
+                case DATE:
+                    if (unbounded) conditions.add(t + "AppointmentDate IS NOT NULL");
+                    if (criteria.hasKeyset()) conditions.add("(" + t + "AppointmentDate, " + t + "AppointmentID) > (?, ?)");
+                    orderBy = t + "AppointmentDate, " + t + "AppointmentID";
+                    break;
+                case DATE_DESC:
+                    if (unbounded) conditions.add(t + "AppointmentDate IS NOT NULL");
+                    if (criteria.hasKeyset()) conditions.add("(" + t + "AppointmentDate, " + t + "AppointmentID) < (?, ?)");
+                    orderBy = t + "AppointmentDate DESC, " + t + "AppointmentID DESC";
+                    break;
+                default:
+                    if (criteria.hasKeyset()) conditions.add(t + "AppointmentID > ?");
+                    orderBy = t + "AppointmentID";
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectFrom);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY ").append(orderBy).append(" LIMIT ?").toString();
+    }
+
+    // Sets the parameters in the same order buildSearchSql added the placeholders
+    private static void bindSearch(PreparedStatement stmt, AppointmentSearch criteria) throws SQLException {
+        int index = 1;
+        if (criteria.getPatientID() != null) stmt.setInt(index++, criteria.getPatientID());
+        if (criteria.getDoctorID() != null) stmt.setInt(index++, criteria.getDoctorID());
+        if (criteria.getFrom() != null) stmt.setDate(index++, Date.valueOf(criteria.getFrom()));
+        if (criteria.getTo() != null) stmt.setDate(index++, Date.valueOf(criteria.getTo()));
+        if (criteria.getStatus() != null) stmt.setString(index++, criteria.getStatus());
+
+        if (criteria.hasKeyset()) {
+            if (criteria.getSort() == AppointmentSearch.Sort.ID || criteria.getAfterDate() == null) {
+                stmt.setInt(index++, criteria.getAfterID());
+            } else {
+                stmt.setDate(index++, Date.valueOf(criteria.getAfterDate()));
+                stmt.setInt(index++, criteria.getAfterID());
+            }
+        }
+        stmt.setInt(index, criteria.getLimit());
+    }
+
+    // ======================= UPDATE / DELETE =======================
+
+    @Override
+    public void update(Appointment appointment) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(stmt, appointment);
+
+            if (stmt.executeUpdate() == 0) {
+                throw OptimisticLockException.rejectedUpdate(conn, VERSION_SQL, "appointment",
+                        appointment.getAppointmentID(), appointment.getVersion());
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.updated(updated(appointment)));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating appointment: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(int appointmentID) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+            stmt.setInt(1, appointmentID);
+
+            if (stmt.executeUpdate() == 0) {
+                throw new EntityNotFoundException("appointment", appointmentID);
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.deleted(EntityEvent.Kind.APPOINTMENT, appointmentID));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting appointment: " + e.getMessage(), e);
+        }
+    }
+
+    // Sets the UPDATE_SQL parameters; shared with BookingEngine and UnitOfWork.
+    // The appointment's version is the one it was read with; the row only changes if it is still current.
+    static void bindUpdate(PreparedStatement stmt, Appointment appointment) throws SQLException {
+        bindInsert(stmt, appointment);
+        stmt.setInt(6, appointment.getAppointmentID());
+        stmt.setInt(7, appointment.getVersion());
+    }
+
+    // The appointment as a successful update stored it (one version later)
+    static Appointment updated(Appointment appointment) {
+        return withID(appointment, appointment.getAppointmentID(), appointment.getVersion() + 1);
+    }
+
+    // The appointment as inserted under its generated key
+    static Appointment withID(Appointment appointment, int appointmentID) {
+        return withID(appointment, appointmentID, 0);
+    }
+
+    private static Appointment withID(Appointment appointment, int appointmentID, int version) {
+        return new Appointment(appointmentID, appointment.getPatientID(), appointment.getDoctorID(),
+                appointment.getAppointmentDate(), appointment.getDescription(), appointment.getAppointmentStatus(), version);
+    }
+
+    // ======================= ROW MAPPING =======================
+
+    // Selected columns and their mapping; the indexes are resolved once per result set
+    static final EntityMapper<Appointment> MAPPER = new EntityMapper<>(
+            new String[]{"AppointmentID", "PatientID", "DoctorID", "AppointmentDate", "Description", "AppointmentStatus", "Version"},
+            (rs, c) -> new Appointment(
+                    rs.getInt(c[0]),
+                    rs.getInt(c[1]),
+                    rs.getInt(c[2]),
+                    EntityMapper.localDate(rs, c[3]),
+                    rs.getString(c[4]),
+                    rs.getString(c[5]),
+                    rs.getInt(c[6])
+            ));
+
+    // Both joins are on primary keys, so each appointment row costs two index lookups.
+    // LEFT JOIN keeps appointments whose patient or doctor has been deleted (their names are null).
+    private static final String VIEW_FROM = " FROM appointments a"
+            + " LEFT JOIN PATIENTS p ON p.PatientID = a.PatientID"
+            + " LEFT JOIN DOCTORS d ON d.DoctorID = a.DoctorID";
+
+    static final EntityMapper<AppointmentView> VIEW_MAPPER = new EntityMapper<>(
+            new String[]{"AppointmentID", "PatientID", "PatientFirstName", "PatientLastName", "DoctorID",
+                    "DoctorFirstName", "DoctorLastName", "Specialty", "AppointmentDate", "Description",
+                    "AppointmentStatus", "Version"},
+            "a.AppointmentID, a.PatientID, p.FirstName AS PatientFirstName, p.LastName AS PatientLastName, a.DoctorID, "
+                    + "d.FirstName AS DoctorFirstName, d.LastName AS DoctorLastName, d.Specialty, a.AppointmentDate, "
+                    + "a.Description, a.AppointmentStatus, a.Version",
+            (rs, c) -> new AppointmentView(
+                    rs.getInt(c[0]),
+                    rs.getInt(c[1]),
+                    rs.getString(c[2]),
+                    rs.getString(c[3]),
+                    rs.getInt(c[4]),
+                    rs.getString(c[5]),
+                    rs.getString(c[6]),
+                    rs.getString(c[7]),
+                    EntityMapper.localDate(rs, c[8]),
+                    rs.getString(c[9]),
+                    rs.getString(c[10]),
+                    rs.getInt(c[11])
+            ));
+}
@@ -0,0 +1,187 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JdbcDoctorRepository implements DoctorRepository on top of the shared ConnectionPool;
+ * listing and search reads go through DataSourceRouter, so they can be served by a replica.
+ * Every committed insert, update and delete is published on the EntityEventBus.
+ * It has no Swing dependencies and can be used from batch jobs, services and benchmarks.
+ */
+
+public class JdbcDoctorRepository implements DoctorRepository {
+
+    static final String INSERT_SQL = "INSERT INTO DOCTORS (FirstName, LastName, Specialty, Phone, Email) VALUES (?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE DOCTORS SET FirstName = ?, LastName = ?, Specialty = ?, Phone = ?, Email = ?, "
+            + "Version = Version + 1 WHERE DoctorID = ? AND Version = ?";
+    static final String VERSION_SQL = "SELECT Version FROM DOCTORS WHERE DoctorID = ?";
+    static final String DELETE_SQL = "DELETE FROM DOCTORS WHERE DoctorID = ?";
+
+    private final DataSourceRouter router;
+    private final EntityEventBus events;
+    private final BatchInserter<Doctor> batchInserter;
+
+    public JdbcDoctorRepository(ConnectionPool pool) {
+        this(DataSourceRouter.single(pool));
+    }
+
+    public JdbcDoctorRepository(DataSourceRouter router) {
+        this(router, EntityEventBus.getInstance());
+    }
+
+    public JdbcDoctorRepository(DataSourceRouter router, EntityEventBus events) {
+        this.router = router;
+        this.events = events;
+        this.batchInserter = new BatchInserter<>(router.writer(), INSERT_SQL, JdbcDoctorRepository::bindInsert,
+                (doctor, doctorID) -> events.publish(EntityEvent.inserted(withID(doctor, doctorID))));
+    }
+
+    // ======================= INSERT =======================
+
+    @Override
+    public int insert(Doctor doctor) {
+        try (Connection conn = router.writeConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(stmt, doctor);
+            stmt.executeUpdate();
+            router.writer().markWrite();
+
+            int doctorID;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                doctorID = keys.next() ? keys.getInt(1) : 0;
+            }
+            events.publish(EntityEvent.inserted(withID(doctor, doctorID)));
+            return doctorID;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving doctor: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Doctor> doctors, int batchSize) {
+        return batchInserter.insertAll(doctors.iterator(), batchSize);
+    }
+
+    // Sets the INSERT_SQL parameters; shared by single and batched inserts
+    static void bindInsert(PreparedStatement stmt, Doctor doctor) throws SQLException {
+        stmt.setString(1, doctor.getFirstName());
+        stmt.setString(2, doctor.getLastName());
+        stmt.setString(3, doctor.getSpecialty());
+        stmt.setString(4, doctor.getPhone());
+        stmt.setString(5, doctor.getEmail());
+    }
+
+    // ======================= READ =======================
+
+    @Override
+    public Optional<Doctor> findById(int doctorID) {
+        String sql = "SELECT " + MAPPER.selectList() + " FROM DOCTORS WHERE DoctorID = ?";
+
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, doctorID);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPER.readOne(rs);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading doctor " + doctorID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Doctor> findPage(int afterID, int limit) {
+        String sql = "SELECT " + MAPPER.selectList() + " FROM DOCTORS WHERE DoctorID > ? ORDER BY DoctorID LIMIT ?";
+        List<Doctor> page = new ArrayList<>(limit);
+
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterID);
+            stmt.setInt(2, limit);
+
+            DatabaseWorker.trackStatement(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                MAPPER.readAll(rs, page);
+            } finally {
+                DatabaseWorker.trackStatement(null);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error retrieving doctors: " + e.getMessage(), e);
+        }
+        return page;
+    }
+
+    // ======================= UPDATE / DELETE =======================
+
+    @Override
+    public void update(Doctor doctor) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(stmt, doctor);
+
+            if (stmt.executeUpdate() == 0) {
+                throw OptimisticLockException.rejectedUpdate(conn, VERSION_SQL, "doctor", doctor.getDoctorID(), doctor.getVersion());
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.updated(updated(doctor)));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating doctor: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(int doctorID) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+            stmt.setInt(1, doctorID);
+
+            if (stmt.executeUpdate() == 0) {
+                throw new EntityNotFoundException("doctor", doctorID);
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.deleted(EntityEvent.Kind.DOCTOR, doctorID));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting doctor: " + e.getMessage(), e);
+        }
+    }
+
+    // Sets the UPDATE_SQL parameters; shared with UnitOfWork.
+    // The doctor's version is the one it was read with; the row only changes if it is still current.
+    static void bindUpdate(PreparedStatement stmt, Doctor doctor) throws SQLException {
+        bindInsert(stmt, doctor);
+        stmt.setInt(6, doctor.getDoctorID());
+        stmt.setInt(7, doctor.getVersion());
+    }
+
+    // The doctor as a successful update stored it (one version later)
+    static Doctor updated(Doctor doctor) {
+        return withID(doctor, doctor.getDoctorID(), doctor.getVersion() + 1);
+    }
+
+    // The doctor as inserted under its generated key
+    static Doctor withID(Doctor doctor, int doctorID) {
+        return withID(doctor, doctorID, 0);
+    }
+
+    private static Doctor withID(Doctor doctor, int doctorID, int version) {
+        return new Doctor(doctorID, doctor.getFirstName(), doctor.getLastName(), doctor.getSpecialty(),
+                doctor.getPhone(), doctor.getEmail(), version);
+    }
+
+    // ======================= ROW MAPPING =======================
+
+    // Selected columns and their mapping; the indexes are resolved once per result set
+    static final EntityMapper<Doctor> MAPPER = new EntityMapper<>(
+            new String[]{"DoctorID", "FirstName", "LastName", "Specialty", "Phone", "Email", "Version"},
+            (rs, c) -> new Doctor(
+                    rs.getInt(c[0]),
+                    rs.getString(c[1]),
+                    rs.getString(c[2]),
+                    rs.getString(c[3]),
+                    rs.getString(c[4]),
+                    rs.getString(c[5]),
+                    rs.getInt(c[6])
+            ));
+}
@@ -0,0 +1,191 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JdbcPatientRepository implements PatientRepository on top of the shared ConnectionPool;
+ * listing and search reads go through DataSourceRouter, so they can be served by a replica.
+ * Every committed insert, update and delete is published on the EntityEventBus.
+ * It has no Swing dependencies and can be used from batch jobs, services and benchmarks.
+ */
+
+public class JdbcPatientRepository implements PatientRepository {
+
+    static final String INSERT_SQL = "INSERT INTO PATIENTS (FirstName, LastName, DOB, Gender, Phone, Address, AdmissionDate) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE PATIENTS SET FirstName=?, LastName=?, DOB=?, Gender=?, Phone=?, Address=?, AdmissionDate=?, "
+            + "Version=Version+1 WHERE PatientID=? AND Version=?";
+    static final String VERSION_SQL = "SELECT Version FROM PATIENTS WHERE PatientID = ?";
+    static final String DELETE_SQL = "DELETE FROM PATIENTS WHERE PatientID = ?";
+
+    private final DataSourceRouter router;
+    private final EntityEventBus events;
+    private final BatchInserter<Patient> batchInserter;
+
+    public JdbcPatientRepository(ConnectionPool pool) {
+        this(DataSourceRouter.single(pool));
+    }
+
+    public JdbcPatientRepository(DataSourceRouter router) {
+        this(router, EntityEventBus.getInstance());
+    }
+
+    public JdbcPatientRepository(DataSourceRouter router, EntityEventBus events) {
+        this.router = router;
+        this.events = events;
+        this.batchInserter = new BatchInserter<>(router.writer(), INSERT_SQL, JdbcPatientRepository::bindInsert,
+                (patient, patientID) -> events.publish(EntityEvent.inserted(withID(patient, patientID))));
+    }
+
+    // ======================= INSERT =======================
+
+    @Override
+    public int insert(Patient patient) {
+        try (Connection conn = router.writeConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(stmt, patient);
+            stmt.executeUpdate();
+            router.writer().markWrite();
+
+            int patientID;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                patientID = keys.next() ? keys.getInt(1) : 0;
+            }
+            events.publish(EntityEvent.inserted(withID(patient, patientID)));
+            return patientID;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving patient: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Patient> patients, int batchSize) {
+        return batchInserter.insertAll(patients.iterator(), batchSize);
+    }
+
+    // Sets the INSERT_SQL parameters; shared by single and batched inserts
+    static void bindInsert(PreparedStatement stmt, Patient patient) throws SQLException {
+        stmt.setString(1, patient.getFirstName());
+        stmt.setString(2, patient.getLastName());
+        stmt.setDate(3, Date.valueOf(patient.getDob()));
+        stmt.setString(4, patient.getGender());
+        stmt.setString(5, patient.getPhone());
+        stmt.setString(6, patient.getAddress());
+        stmt.setDate(7, Date.valueOf(patient.getAdmissionDate()));
+    }
+
+    // ======================= READ =======================
+
+    @Override
+    public Optional<Patient> findById(int patientID) {
+        String sql = "SELECT " + MAPPER.selectList() + " FROM PATIENTS WHERE PatientID = ?";
+
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, patientID);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPER.readOne(rs);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading patient " + patientID + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Patient> findPage(int afterID, int limit) {
+        String sql = "SELECT " + MAPPER.selectList() + " FROM PATIENTS WHERE PatientID > ? ORDER BY PatientID LIMIT ?";
+        List<Patient> page = new ArrayList<>(limit);
+
+        try (Connection conn = router.readConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterID);
+            stmt.setInt(2, limit);
+
+            DatabaseWorker.trackStatement(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                MAPPER.readAll(rs, page);
+            } finally {
+                DatabaseWorker.trackStatement(null);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading patients: " + e.getMessage(), e);
+        }
+        return page;
+    }
+
+    // ======================= UPDATE / DELETE =======================
+
+    @Override
+    public void update(Patient patient) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(stmt, patient);
+
+            if (stmt.executeUpdate() == 0) {
+                throw OptimisticLockException.rejectedUpdate(conn, VERSION_SQL, "patient", patient.getPatientID(), patient.getVersion());
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.updated(updated(patient)));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating patient: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(int patientID) {
+        try (Connection conn = router.writeConnection(); PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+            stmt.setInt(1, patientID);
+
+            if (stmt.executeUpdate() == 0) {
+                throw new EntityNotFoundException("patient", patientID);
+            }
+            router.writer().markWrite();
+            events.publish(EntityEvent.deleted(EntityEvent.Kind.PATIENT, patientID));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting patient: " + e.getMessage(), e);
+        }
+    }
+
+    // Sets the UPDATE_SQL parameters; shared with UnitOfWork.
+    // The patient's version is the one it was read with; the row only changes if it is still current.
+    static void bindUpdate(PreparedStatement stmt, Patient patient) throws SQLException {
+        bindInsert(stmt, patient);
+        stmt.setInt(8, patient.getPatientID());
+        stmt.setInt(9, patient.getVersion());
+    }
+
+    // The patient as a successful update stored it (one version later)
+    static Patient updated(Patient patient) {
+        return withID(patient, patient.getPatientID(), patient.getVersion() + 1);
+    }
+
+    // The patient as inserted under its generated key
+    static Patient withID(Patient patient, int patientID) {
+        return withID(patient, patientID, 0);
+    }
+
+    private static Patient withID(Patient patient, int patientID, int version) {
+        return new Patient(patientID, patient.getFirstName(), patient.getLastName(), patient.getDob(),
+                patient.getGender(), patient.getPhone(), patient.getAddress(), patient.getAdmissionDate(), version);
+    }
+
+    // ======================= ROW MAPPING =======================
+
+    // Selected columns and their mapping; the indexes are resolved once per result set
+    static final EntityMapper<Patient> MAPPER = new EntityMapper<>(
+            new String[]{"PatientID", "FirstName", "LastName", "DOB", "Gender", "Phone", "Address", "AdmissionDate", "Version"},
+            (rs, c) -> new Patient(
+                    rs.getInt(c[0]),
+                    rs.getString(c[1]),
+                    rs.getString(c[2]),
+                    EntityMapper.localDate(rs, c[3]),
+                    rs.getString(c[4]),
+                    rs.getString(c[5]),
+                    rs.getString(c[6]),
+                    EntityMapper.localDate(rs, c[7]),
+                    rs.getInt(c[8])
+            ));
+}
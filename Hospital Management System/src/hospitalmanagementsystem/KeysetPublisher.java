@@ -0,0 +1,135 @@
+package hospitalmanagementsystem;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * KeysetPublisher publishes the rows of a keyset-paged query as a Flow.Publisher:
+ * Pages are fetched on the executor only when the subscriber has requested more rows
+ * Each page starts after the key of the last row published (WHERE id > lastKey ORDER BY id)
+ * Signals are delivered one at a time per subscription, as the Flow contract requires
+ * Cancelling stops the fetching; an error from the query ends the stream with onError
+ *
+ * Each subscribe() starts an independent pass over the query.
+ *
+ * @param <T> row type
+ */
+
+public class KeysetPublisher<T> implements Flow.Publisher<T> {
+
+    // Loads up to limit rows whose key is greater than afterKey, ordered by key
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        List<T> fetch(int afterKey, int limit);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final ToIntFunction<T> keyOf;
+    private final int pageSize;
+    private final Executor executor;
+
+    public KeysetPublisher(PageFetcher<T> fetcher, ToIntFunction<T> keyOf, int pageSize, Executor executor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.fetcher = fetcher;
+        this.keyOf = keyOf;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        PagingSubscription subscription = new PagingSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    // ======================= SUBSCRIPTION =======================
+
+    private final class PagingSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Only touched by the drain loop, which never runs concurrently with itself
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private int lastKey;
+        private boolean exhausted;
+        private volatile boolean done;
+        private volatile Throwable invalidRequest;
+
+        PagingSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Flow requests must be positive: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void scheduleDrain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // Emits buffered rows while there is demand, fetching the next page when the buffer runs dry
+        private void drain() {
+            int missed = 1;
+            do {
+                try {
+                    emit();
+                } catch (RuntimeException e) {
+                    if (!done) {
+                        done = true;
+                        subscriber.onError(e);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!done) {
+                if (invalidRequest != null) {
+                    done = true;
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (buffer.isEmpty()) {
+                    if (exhausted) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (demand.get() == 0) return;
+                    List<T> page = fetcher.fetch(lastKey, pageSize);
+                    exhausted = page.size() < pageSize;
+                    buffer.addAll(page);
+                    if (!page.isEmpty()) lastKey = keyOf.applyAsInt(page.get(page.size() - 1));
+                    continue;
+                }
+                if (demand.get() == 0) return;
+                T next = buffer.poll();
+                if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+                subscriber.onNext(next);
+            }
+        }
+    }
+}
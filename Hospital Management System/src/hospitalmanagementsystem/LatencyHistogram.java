@@ -0,0 +1,66 @@
+package hospitalmanagementsystem;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram records latencies in log-linear buckets of microseconds:
+ * Values below 16 us are exact; above that each power of two is split into 16 buckets (about 6% error)
+ * Covers up to about 2^40 us, which is far beyond any query timeout
+ * Recording is lock-free, so it can be shared by all threads calling the DAOs
+ */
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+
+    public void recordNanos(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos / 1000)));
+    }
+
+    // Returns the latency in microseconds below which the given fraction (0..1) of recordings fall
+    public long percentileMicros(double fraction) {
+        long total = getCount();
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) return upperBoundOf(i);
+        }
+        return upperBoundOf(counts.length() - 1);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) total += counts.get(i);
+        return total;
+    }
+
+    // Number of recordings at or below the given latency, for cumulative (Prometheus-style) buckets
+    public long countAtOrBelowMicros(long micros) {
+        int last = indexOf(micros);
+        long total = 0;
+        for (int i = 0; i <= last; i++) total += counts.get(i);
+        return total;
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT) return (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS - 1;
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,63 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.AppointmentDAO.AppointmentView;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * MeteredAppointmentRepository records QueryMetrics for every call to another AppointmentRepository,
+ * under operation names such as appointments.insert and appointments.findPage.
+ */
+
+public class MeteredAppointmentRepository implements AppointmentRepository {
+
+    private final AppointmentRepository delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredAppointmentRepository(AppointmentRepository delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int insert(Appointment appointment) {
+        return metrics.record("appointments.insert", () -> delegate.insert(appointment), id -> 1);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Appointment> appointments, int batchSize) {
+        return metrics.record("appointments.insertAll", () -> delegate.insertAll(appointments, batchSize), BatchResult::getInsertedCount);
+    }
+
+    @Override
+    public Optional<Appointment> findById(int appointmentID) {
+        return metrics.record("appointments.findById", () -> delegate.findById(appointmentID), found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Appointment> findPage(int afterID, int limit) {
+        return metrics.record("appointments.findPage", () -> delegate.findPage(afterID, limit), List::size);
+    }
+
+    @Override
+    public List<Appointment> search(AppointmentSearch criteria) {
+        return metrics.record("appointments.search", () -> delegate.search(criteria), List::size);
+    }
+
+    @Override
+    public List<AppointmentView> searchViews(AppointmentSearch criteria) {
+        return metrics.record("appointments.searchViews", () -> delegate.searchViews(criteria), List::size);
+    }
+
+    @Override
+    public void update(Appointment appointment) {
+        metrics.record("appointments.update", () -> delegate.update(appointment));
+    }
+
+    @Override
+    public void delete(int appointmentID) {
+        metrics.record("appointments.delete", () -> delegate.delete(appointmentID));
+    }
+}
@@ -0,0 +1,52 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * MeteredDoctorRepository records QueryMetrics for every call to another DoctorRepository,
+ * under operation names such as doctors.insert and doctors.findPage.
+ */
+
+public class MeteredDoctorRepository implements DoctorRepository {
+
+    private final DoctorRepository delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredDoctorRepository(DoctorRepository delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int insert(Doctor doctor) {
+        return metrics.record("doctors.insert", () -> delegate.insert(doctor), id -> 1);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Doctor> doctors, int batchSize) {
+        return metrics.record("doctors.insertAll", () -> delegate.insertAll(doctors, batchSize), BatchResult::getInsertedCount);
+    }
+
+    @Override
+    public Optional<Doctor> findById(int doctorID) {
+        return metrics.record("doctors.findById", () -> delegate.findById(doctorID), found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Doctor> findPage(int afterID, int limit) {
+        return metrics.record("doctors.findPage", () -> delegate.findPage(afterID, limit), List::size);
+    }
+
+    @Override
+    public void update(Doctor doctor) {
+        metrics.record("doctors.update", () -> delegate.update(doctor));
+    }
+
+    @Override
+    public void delete(int doctorID) {
+        metrics.record("doctors.delete", () -> delegate.delete(doctorID));
+    }
+}
@@ -0,0 +1,52 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * MeteredPatientRepository records QueryMetrics for every call to another PatientRepository,
+ * under operation names such as patients.insert and patients.findPage.
+ */
+
+public class MeteredPatientRepository implements PatientRepository {
+
+    private final PatientRepository delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredPatientRepository(PatientRepository delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int insert(Patient patient) {
+        return metrics.record("patients.insert", () -> delegate.insert(patient), id -> 1);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Patient> patients, int batchSize) {
+        return metrics.record("patients.insertAll", () -> delegate.insertAll(patients, batchSize), BatchResult::getInsertedCount);
+    }
+
+    @Override
+    public Optional<Patient> findById(int patientID) {
+        return metrics.record("patients.findById", () -> delegate.findById(patientID), found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Patient> findPage(int afterID, int limit) {
+        return metrics.record("patients.findPage", () -> delegate.findPage(afterID, limit), List::size);
+    }
+
+    @Override
+    public void update(Patient patient) {
+        metrics.record("patients.update", () -> delegate.update(patient));
+    }
+
+    @Override
+    public void delete(int patientID) {
+        metrics.record("patients.delete", () -> delegate.delete(patientID));
+    }
+}
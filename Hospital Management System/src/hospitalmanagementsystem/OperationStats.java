@@ -0,0 +1,59 @@
+package hospitalmanagementsystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationStats holds the metrics of one named DAO operation such as appointments.search:
+ * Call, error, slow-call and row counts
+ * A latency histogram with p50/p99
+ */
+
+public class OperationStats implements OperationStatsMXBean {
+
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public OperationStats(String operation) {
+        this.operation = operation;
+    }
+
+    void record(long nanos, int rowCount, boolean failed, boolean wasSlow) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        latency.recordNanos(nanos);
+        if (rowCount > 0) rows.add(rowCount);
+        if (failed) errors.increment();
+        if (wasSlow) slow.increment();
+    }
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    @Override public String getOperation() { return operation; }
+    @Override public long getCount() { return count.sum(); }
+    @Override public long getErrorCount() { return errors.sum(); }
+    @Override public long getRowCount() { return rows.sum(); }
+    @Override public long getSlowCount() { return slow.sum(); }
+    @Override public double getMaxMillis() { return maxNanos.get() / 1e6; }
+    @Override public double getP50Millis() { return Math.min(latency.percentileMicros(0.50) / 1e3, getMaxMillis()); }
+    @Override public double getP99Millis() { return Math.min(latency.percentileMicros(0.99) / 1e3, getMaxMillis()); }
+
+    @Override
+    public double getMeanMillis() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : totalNanos.sum() / 1e6 / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[count=%d, errors=%d, rows=%d, p50=%.3f ms, p99=%.3f ms, max=%.3f ms]",
+                operation, getCount(), getErrorCount(), getRowCount(), getP50Millis(), getP99Millis(), getMaxMillis());
+    }
+}
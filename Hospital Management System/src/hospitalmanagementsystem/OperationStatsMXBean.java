@@ -0,0 +1,18 @@
+package hospitalmanagementsystem;
+
+/**
+ * OperationStatsMXBean is the JMX view of one DAO operation's metrics,
+ * registered as hospitalmanagementsystem:type=QueryMetrics,operation=NAME.
+ */
+
+public interface OperationStatsMXBean {
+    String getOperation();
+    long getCount();
+    long getErrorCount();
+    long getRowCount();
+    long getSlowCount();
+    double getMeanMillis();
+    double getMaxMillis();
+    double getP50Millis();
+    double getP99Millis();
+}
@@ -0,0 +1,50 @@
+package hospitalmanagementsystem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * OptimisticLockException is thrown when an update was based on an out-of-date copy of a row:
+ * the row's Version no longer matches the version that was read, because someone else changed it.
+ * Reload the row, reapply the change and update again.
+ */
+
+public class OptimisticLockException extends DataAccessException {
+
+    private final String entity;
+    private final int id;
+    private final int expectedVersion;
+    private final int actualVersion;
+
+    public OptimisticLockException(String entity, int id, int expectedVersion, int actualVersion) {
+        super("The " + entity + " with ID " + id + " was changed by someone else (version "
+                + expectedVersion + " was edited, the current version is " + actualVersion + ")");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getEntity() { return entity; }
+    public int getId() { return id; }
+    public int getExpectedVersion() { return expectedVersion; }
+    public int getActualVersion() { return actualVersion; }
+
+    // Explains a versioned update that matched no row: EntityNotFoundException if the row is gone,
+    // otherwise OptimisticLockException with its current version.
+    // versionSql selects the Version column of the row with the given ID.
+
+    static DataAccessException rejectedUpdate(Connection conn, String versionSql, String entity, int id,
+                                              int expectedVersion) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(versionSql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next()
+                        ? new OptimisticLockException(entity, id, expectedVersion, rs.getInt(1))
+                        : new EntityNotFoundException(entity, id);
+            }
+        }
+    }
+}
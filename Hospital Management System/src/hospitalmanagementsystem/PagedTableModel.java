@@ -0,0 +1,409 @@
+package hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * PagedTableModel is a lazy TableModel for the DAO listing screens:
+ * Reads rows one keyset page at a time (WHERE id > lastId ORDER BY id LIMIT pageSize)
+ * Fetches the next page in the background when the table scrolls near the end of the loaded rows
+ * Prefetches one page ahead so scrolling rarely waits on the database
+ * Discards pages from a query that has been superseded by reload()
+ * Keeps only the pages near the rows on screen; others keep just their keys and are read again
+ * when scrolled back to, so memory stays bounded however far the table is scrolled
+ * Single changed, deleted or added rows can be patched in without reloading (see ROW PATCHES)
+ *
+ * The first column of every row must be the integer key used for paging.
+ */
+
+public class PagedTableModel extends AbstractTableModel {
+
+    // Page size used by the DAO screens, configurable with -Dhms.pageSize=N
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("hms.pageSize", 200);
+
+    // Loaded pages kept on each side of the last page shown, configurable with -Dhms.keptPages=N
+    private static final int KEPT_PAGES = Math.max(1, Integer.getInteger("hms.keptPages", 2));
+
+    // Loads up to limit rows whose key is greater than afterKey, ordered by key
+    @FunctionalInterface
+    public interface PageLoader {
+        List<Object[]> load(int afterKey, int limit) throws SQLException;
+    }
+
+    private final String[] columnNames;
+    private final int pageSize;
+    private final BusyIndicator busy;
+
+    private final List<Page> pages = new ArrayList<>();
+    // Page of each row key in the loaded pages
+    private final Map<Integer, Page> pageByKey = new HashMap<>();
+    private int rowCount;
+    private int shownPage;
+    private PageLoader loader;
+    private DatabaseWorker<List<Object[]>, Void> pending;
+    private boolean exhausted = true;
+    private boolean prefetchScheduled;
+    // rows were added while a page was loading, so a short page does not mean the end
+    private boolean tailChanged;
+
+    public PagedTableModel(String[] columnNames, int pageSize, BusyIndicator busy) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.columnNames = columnNames.clone();
+        this.pageSize = pageSize;
+        this.busy = busy;
+    }
+
+    // Replaces the current query and loads its first page. Must be called on the EDT.
+    public void load(PageLoader loader) {
+        if (pending != null) {
+            pending.abort();
+            pending = null;
+        }
+        for (Page page : pages) {
+            if (page.reloading != null) {
+                page.reloading.abort();
+                page.reloading = null;
+            }
+        }
+        this.loader = loader;
+        pages.clear();
+        pageByKey.clear();
+        rowCount = 0;
+        shownPage = 0;
+        exhausted = false;
+        tailChanged = false;
+        fireTableDataChanged();
+        fetchNextPage();
+    }
+
+    // Reloads the current query from the first page
+    public void reload() {
+        if (loader != null) {
+            load(loader);
+        }
+    }
+
+    public int getPageSize() { return pageSize; }
+
+    public boolean isFullyLoaded() { return exhausted; }
+
+    // Copy of a row, e.g. the one selected for editing; null while its page is being read again
+    public Object[] getRow(int rowIndex) {
+        Page page = pageOf(rowIndex);
+        return page.rows == null ? null : page.rows.get(rowIndex - page.start).clone();
+    }
+
+    // ======================= PAGE LOADING =======================
+
+    // Starts loading the page after the last loaded row, unless one is already loading
+
+    private void fetchNextPage() {
+        if (pending != null || exhausted || loader == null) {
+            return;
+        }
+        PageLoader query = loader;
+        int afterKey = pages.isEmpty() ? 0 : pages.get(pages.size() - 1).lastKey();
+
+        pending = new DatabaseWorker<List<Object[]>, Void>(busy) {
+            @Override
+            protected List<Object[]> doInBackground() throws SQLException {
+                return query.load(afterKey, pageSize);
+            }
+
+            @Override
+            protected void succeeded(List<Object[]> page) {
+                if (pending != this) return;
+                pending = null;
+                appendPage(afterKey, page);
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                if (pending != this) return;
+                pending = null;
+                exhausted = true;
+                JOptionPane.showMessageDialog(null, "Error loading rows: " + error.getMessage());
+            }
+        };
+        pending.start();
+    }
+
+    private void appendPage(int afterKey, List<Object[]> page) {
+        if (page.size() < pageSize) {
+            exhausted = !tailChanged;
+            tailChanged = false;
+        }
+        if (!page.isEmpty()) {
+            int first = rowCount;
+            Page added = new Page(pages.size(), afterKey, first);
+            pages.add(added);
+            fill(added, new ArrayList<>(page));
+            rowCount += page.size();
+            fireTableRowsInserted(first, rowCount - 1);
+        }
+        // keep one page ahead of what has been shown so far
+        if (!exhausted && rowCount < 2 * pageSize) {
+            fetchNextPage();
+        }
+    }
+
+    // Called while painting; once the table shows rows from the last loaded page,
+    // the next page is requested after the current paint finishes.
+
+    private void prefetchIfNear(int rowIndex) {
+        if (exhausted || pending != null || prefetchScheduled || rowIndex < rowCount - pageSize) {
+            return;
+        }
+        prefetchScheduled = true;
+        SwingUtilities.invokeLater(() -> {
+            prefetchScheduled = false;
+            fetchNextPage();
+        });
+    }
+
+    // ======================= PAGE EVICTION =======================
+
+    // Called while painting when the rows shown move to another page
+    private void show(Page page) {
+        if (page.number == shownPage) return;
+        shownPage = page.number;
+        for (Page other : pages) {
+            if (other.rows != null && isFar(other)) evict(other);
+        }
+    }
+
+    private boolean isFar(Page page) {
+        return Math.abs(page.number - shownPage) > KEPT_PAGES;
+    }
+
+    // Drops the rows of a page, keeping its keys to read the same rows again later
+    private void evict(Page page) {
+        for (int key : page.keys) pageByKey.remove(key);
+        page.rows = null;
+    }
+
+    // Reads an evicted page again after the current paint finishes. Rows that are no longer
+    // returned are dropped; rows added since belong to later pages and are not taken.
+    private void reloadLater(Page page) {
+        if (page.reloadScheduled || page.reloading != null || page.failed) return;
+        page.reloadScheduled = true;
+        SwingUtilities.invokeLater(() -> {
+            page.reloadScheduled = false;
+            boolean current = page.number < pages.size() && pages.get(page.number) == page;
+            if (current && page.rows == null) reload(page);
+        });
+    }
+
+    private void reload(Page page) {
+        if (page.reloading != null || loader == null) return;
+        PageLoader query = loader;
+        int afterKey = page.afterKey, limit = Math.max(1, page.keys.length);
+        page.reloading = new DatabaseWorker<List<Object[]>, Void>(busy) {
+            @Override
+            protected List<Object[]> doInBackground() throws SQLException {
+                return query.load(afterKey, limit);
+            }
+
+            @Override
+            protected void succeeded(List<Object[]> loaded) {
+                if (page.reloading != this) return;
+                page.reloading = null;
+                refill(page, loaded);
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                if (page.reloading != this) return;
+                page.reloading = null;
+                page.failed = true;
+                JOptionPane.showMessageDialog(null, "Error loading rows: " + error.getMessage());
+            }
+        };
+        page.reloading.start();
+    }
+
+    private void refill(Page page, List<Object[]> loaded) {
+        Set<Integer> wanted = new HashSet<>();
+        for (int key : page.keys) wanted.add(key);
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] row : loaded) {
+            if (wanted.contains((Integer) row[0])) rows.add(row);
+        }
+        int before = page.keys.length;
+        fill(page, rows);
+        if (rows.size() < before) {
+            shift(page.number + 1, rows.size() - before);
+            fireTableRowsDeleted(page.start + rows.size(), page.start + before - 1);
+        }
+        if (!rows.isEmpty()) {
+            fireTableRowsUpdated(page.start, page.start + rows.size() - 1);
+        }
+        if (isFar(page)) evict(page);
+    }
+
+    private void fill(Page page, List<Object[]> rows) {
+        page.rows = rows;
+        page.keys = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            page.keys[i] = (Integer) rows.get(i)[0];
+            pageByKey.put(page.keys[i], page);
+        }
+    }
+
+    // Moves the pages from this number on by delta rows
+    private void shift(int fromPage, int delta) {
+        for (int i = fromPage; i < pages.size(); i++) pages.get(i).start += delta;
+        rowCount += delta;
+    }
+
+    // The page holding the row: the last one starting at or before it, as emptied pages start
+    // where the next one does
+    private Page pageOf(int rowIndex) {
+        int low = 0, high = pages.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pages.get(mid).start <= rowIndex) low = mid;
+            else high = mid - 1;
+        }
+        return pages.get(low);
+    }
+
+    // ======================= ROW PATCHES =======================
+
+    // Applied on the EDT when one row changes, e.g. from an EntityEvent. A key is found through
+    // pageByKey and then among the at most pageSize keys of its page. Rows of evicted pages are
+    // not patched: the page is read again, with any changes, when it is shown.
+
+    // Position of the loaded row with this key, or -1
+    public int indexOfKey(int key) {
+        Page page = pageByKey.get(key);
+        return page == null ? -1 : page.start + page.indexOf(key);
+    }
+
+    // Positions of the loaded rows whose column holds value
+    public List<Integer> loadedRowsWith(int column, Object value) {
+        List<Integer> found = new ArrayList<>();
+        for (Page page : pages) {
+            if (page.rows == null) continue;
+            for (int i = 0; i < page.rows.size(); i++) {
+                if (Objects.equals(page.rows.get(i)[column], value)) found.add(page.start + i);
+            }
+        }
+        return found;
+    }
+
+    // Replaces the loaded row that has the same key as row; does nothing if it is not loaded
+    public void replaceRow(Object[] row) {
+        Page page = pageByKey.get((Integer) row[0]);
+        if (page != null) {
+            int i = page.indexOf((Integer) row[0]);
+            page.rows.set(i, row.clone());
+            fireTableRowsUpdated(page.start + i, page.start + i);
+        }
+    }
+
+    public void removeRow(int key) {
+        Page page = pageByKey.remove(key);
+        if (page != null) {
+            int i = page.indexOf(key);
+            page.rows.remove(i);
+            int[] keys = new int[page.keys.length - 1];
+            System.arraycopy(page.keys, 0, keys, 0, i);
+            System.arraycopy(page.keys, i + 1, keys, i, keys.length - i);
+            page.keys = keys;
+            shift(page.number + 1, -1);
+            fireTableRowsDeleted(page.start + i, page.start + i);
+        }
+    }
+
+    // A row was added with a key above every existing one. If the query has been read to
+    // the end it is asked for the rows after the last one, so the new row appears if it matches.
+    public void rowsAdded() {
+        if (loader == null) return;
+        if (pending != null) {
+            tailChanged = true;
+        } else if (exhausted) {
+            exhausted = false;
+            fetchNextPage();
+        }
+    }
+
+    // ======================= TABLE MODEL =======================
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        prefetchIfNear(rowIndex);
+        Page page = pageOf(rowIndex);
+        show(page);
+        if (page.rows == null) {
+            reloadLater(page);
+            return null;
+        }
+        return page.rows.get(rowIndex - page.start)[columnIndex];
+    }
+
+    // Cell of a loaded row, or null; unlike getValueAt it neither counts as shown nor loads pages
+    public Object loadedValueAt(int rowIndex, int columnIndex) {
+        Page page = pageOf(rowIndex);
+        return page.rows == null ? null : page.rows.get(rowIndex - page.start)[columnIndex];
+    }
+
+    // Patches one cell of a loaded row; the cells are still not editable from the table
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex) {
+        Page page = pageOf(rowIndex);
+        if (page.rows == null) return;
+        page.rows.get(rowIndex - page.start)[columnIndex] = value;
+        fireTableCellUpdated(rowIndex, columnIndex);
+    }
+
+    // ======================= PAGE =======================
+
+    // Rows read by one load call. Pages are never removed before the next load(), so their
+    // numbers stay positions in pages; a page whose rows were all removed is kept empty.
+    private static final class Page {
+        final int number;
+        final int afterKey; // the page was read as the rows after this key
+        int start;          // row index of its first row
+        int[] keys;         // row keys in order, also while evicted
+        List<Object[]> rows; // null while evicted
+        DatabaseWorker<List<Object[]>, Void> reloading;
+        boolean reloadScheduled, failed;
+
+        Page(int number, int afterKey, int start) {
+            this.number = number;
+            this.afterKey = afterKey;
+            this.start = start;
+        }
+
+        int lastKey() {
+            return keys.length == 0 ? afterKey : keys[keys.length - 1];
+        }
+
+        int indexOf(int key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -3,8 +3,15 @@ package hospitalmanagementsystem;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * PatientDAO is a Java Swing GUI application that allows user to:
@@ -12,24 +19,35 @@ import java.time.LocalDate;
  * Save patients to MySQL database
  * Display all saved patients
  * Delete patients by DoctorID
- * Update patients
+ * Update patients (select a row to edit it; changes made meanwhile by someone else are not overwritten)
+ * Search patients by name, phone or address
  */
 
 public class PatientDAO extends JFrame {
 
+    private static final Logger LOG = Logger.getLogger(PatientDAO.class.getName());
+
     // Swing input fields for patient data
     private JTextField firstNameField, lastNameField, dobField, genderField, phoneField, addressField, admissionDateField;
-    private JTextField deleteIdField, updateIdField;
-    private JTextArea displayArea;
+    private JTextField deleteIdField, updateIdField, searchField;
+    private JTable displayTable;
+    private PagedTableModel tableModel;
+    private BusyIndicator busyIndicator;
+
+    private static final String[] COLUMNS = {"PatientID", "FirstName", "LastName", "DOB", "Gender", "Phone", "Address", "AdmissionDate", "Version"};
+
+    // Patient shown in the form for editing and the row version it was loaded with
+    private int editingID;
+    private int editingVersion;
 
     //Constructor initializes the GUI layout and components.
-    private JButton saveButton, displayButton, deleteButton, updateButton;
+    private JButton saveButton, displayButton, deleteButton, updateButton, exportButton, importButton, searchButton;
 
     public PatientDAO() {
         setTitle("Patient Management");
         setSize(700, 700);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(new GridLayout(14, 2));
+        setLayout(new GridLayout(15, 2));
 
         // ===== INPUT FIELDS =====
 
@@ -82,14 +100,31 @@ public class PatientDAO extends JFrame {
         add(deleteIdField);
         add(deleteButton);
 
+        // ===== SEARCH SECTION =====
+        searchButton = new JButton("Search Patients");
+        add(new JLabel("Search (name, phone, address):"));
+        searchField = new JTextField();
+        add(searchField);
+        add(searchButton);
+
         // ===== DISPLAY AREA =====
-        displayArea = new JTextArea();
-        displayArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(displayArea);
+        busyIndicator = new BusyIndicator(this);
+        tableModel = new PagedTableModel(COLUMNS, PagedTableModel.DEFAULT_PAGE_SIZE, busyIndicator);
+
+        displayTable = new JTable(tableModel);
+        displayTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = displayTable.getSelectedRow();
+            Object[] selected = row >= 0 ? tableModel.getRow(row) : null; // null while its page is read again
+            if (!e.getValueIsAdjusting() && selected != null) edit(selected);
+        });
+        JScrollPane scrollPane = new JScrollPane(displayTable);
         add(scrollPane);
+        add(busyIndicator);
 
-        // filler
-        add(new JLabel());
+        exportButton = new JButton("Export Patients...");
+        importButton = new JButton("Import Patients...");
+        add(exportButton);
+        add(importButton);
 
         // ===== BUTTON ACTIONS =====
         saveButton.addActionListener(e -> savePatient());
@@ -105,141 +140,290 @@ public class PatientDAO extends JFrame {
         });
 
         updateButton.addActionListener(e -> updatePatient());
+        exportButton.addActionListener(e -> exportPatients());
+        importButton.addActionListener(e -> importPatients());
+        searchButton.addActionListener(e -> searchPatients());
+        searchField.addActionListener(e -> searchPatients());
+
+        // ===== LIVE UPDATES =====
+        EntityEventBus.Subscription events = EntityEventBus.getInstance().subscribe(EntityEvent.Kind.PATIENT,
+                event -> SwingUtilities.invokeLater(() -> applyEvent(event)));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                events.close();
+            }
+        });
 
         setVisible(true);
     }
 
-    // ===== DATABASE CONNECTION =====
+    // =========== ADD PATIENT =========
 
-    // Establishes connection to the MySQL database
-    // @return Connection object or null if connection fails
+    // Inserts a new patient record through the PatientRepository on a background thread.
 
-    public static Connection getConnection() {
-        String url = "jdbc:mysql://localhost:3306/hospital_management_system";
-        String user = "root";
-        String password = ""; // Your SQL password
+    public void addPatient(Patient patient) {
+        new DatabaseWorker<Integer, Void>(busyIndicator) {
+            @Override
+            protected Integer doInBackground() {
+                return Repositories.patients().insert(patient);
+            }
 
-        try {
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
-        }
+            @Override
+            protected void succeeded(Integer patientID) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Patient saved successfully!");
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                error.printStackTrace();
+            }
+        }.start();
     }
 
-    // =========== ADD PATIENT =========
+    // ===== DISPLAY PATIENTS =====
 
-    // Inserts a new patient record into the patient table.
+    // Shows all patient records in the table, loading them one page at a time.
 
-    public void addPatient(Patient patient) {
-        String sql = "INSERT INTO PATIENTS (FirstName, LastName, DOB, Gender, Phone, Address, AdmissionDate) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    public void displayPatients() {
+        tableModel.load((afterID, limit) -> toRows(Repositories.patients().findPage(afterID, limit)));
+    }
 
-        try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // ===== SEARCH PATIENTS =====
 
-            stmt.setString(1, patient.getFirstName());
-            stmt.setString(2, patient.getLastName());
-            stmt.setDate(3, Date.valueOf(patient.getDob()));
-            stmt.setString(4, patient.getGender());
-            stmt.setString(5, patient.getPhone());
-            stmt.setString(6, patient.getAddress());
-            stmt.setDate(7, Date.valueOf(patient.getAdmissionDate()));
+    // Shows the best matches for the search text from the PatientSearchIndex;
+    // an empty search shows all patients again.
 
-            stmt.executeUpdate();
-            JOptionPane.showMessageDialog(this, "Patient saved successfully!");
+    private void searchPatients() {
+        String query = searchField.getText();
+        if (query.trim().isEmpty()) {
+            displayPatients();
+            return;
+        }
+        // the matches fit in one page, so there is nothing after the first one
+        tableModel.load((afterID, limit) -> afterID > 0 ? new ArrayList<>() : toRows(findMatches(query)));
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    private static List<Patient> findMatches(String query) {
+        List<Patient> found = new ArrayList<>();
+        for (PatientSearchIndex.Match match : PatientSearchIndex.getInstance().search(query)) {
+            Repositories.patients().findById(match.getPatientID()).ifPresent(found::add);
         }
+        return found;
     }
 
-    // ===== DISPLAY PATIENTS =====
+    // Converts patients into table rows; the PatientID column is the paging key.
+
+    private static List<Object[]> toRows(List<Patient> patients) {
+        List<Object[]> rows = new ArrayList<>(patients.size());
+        for (Patient p : patients) {
+            rows.add(new Object[]{
+                    p.getPatientID(),
+                    p.getFirstName(),
+                    p.getLastName(),
+                    p.getDob(),
+                    p.getGender(),
+                    p.getPhone(),
+                    p.getAddress(),
+                    p.getAdmissionDate(),
+                    p.getVersion()
+            });
+        }
+        return rows;
+    }
 
-    // Queries and displays all patients records from the database in the text area.
+    // ===== LIVE UPDATES =====
+
+    // Patches the table from patient events (see EntityEventBus) instead of reloading it, so saves
+    // from this window, other windows and other instances show up where the user is scrolled.
+    // Remote events carry no patient, so a changed row is read again in the background.
+
+    private void applyEvent(EntityEvent event) {
+        switch (event.getType()) {
+            case INSERTED:
+                tableModel.rowsAdded();
+                break;
+            case DELETED:
+                tableModel.removeRow(event.getId());
+                break;
+            default:
+                if (tableModel.indexOfKey(event.getId()) < 0) {
+                    return;
+                }
+                if (event.isRemote()) {
+                    reloadRow(event.getId());
+                } else {
+                    tableModel.replaceRow(toRows(List.of(event.<Patient>getPayload())).get(0));
+                }
+        }
+    }
 
-    public void displayPatients() {
-        String sql = "SELECT * FROM PATIENTS";
-        displayArea.setText("PatientID | FirstName | LastName | DOB | Gender | Phone | Address | AdmissionDate\n");
-
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                displayArea.append(
-                        rs.getInt("PatientID") + " | " +
-                                rs.getString("FirstName") + " | " +
-                                rs.getString("LastName") + " | " +
-                                rs.getDate("DOB") + " | " +
-                                rs.getString("Gender") + " | " +
-                                rs.getString("Phone") + " | " +
-                                rs.getString("Address") + " | " +
-                                rs.getDate("AdmissionDate") + "\n"
-                );
+    private void reloadRow(int patientID) {
+        new DatabaseWorker<Optional<Patient>, Void>(busyIndicator) {
+            @Override
+            protected Optional<Patient> doInBackground() {
+                return Repositories.patients().findById(patientID);
             }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            @Override
+            protected void succeeded(Optional<Patient> patient) {
+                if (patient.isPresent()) {
+                    tableModel.replaceRow(toRows(List.of(patient.get())).get(0));
+                } else {
+                    tableModel.removeRow(patientID);
+                }
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                LOG.log(Level.WARNING, "Could not refresh patient " + patientID + " in the table", error);
+            }
+        }.start();
     }
 
     // ===== DELETE PATIENT =====
 
     // Deletes patient record into the PATIENTS table.
+    // The patient's appointments from today on are cancelled in the same transaction.
 
     public void deletePatient(int patientID) {
-        String sql = "DELETE FROM PATIENTS WHERE PatientID = ?";
-
-        try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, patientID);
-
-            int rows = stmt.executeUpdate();
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                try (UnitOfWork work = UnitOfWork.begin()) {
+                    work.cancelFutureAppointmentsForPatient(patientID, LocalDate.now());
+                    work.deletePatient(patientID);
+                    work.commit();
+                }
+                return null;
+            }
 
-            if (rows > 0) {
-                JOptionPane.showMessageDialog(this, "Patient deleted successfully!");
-                displayPatients();
-            } else {
-                JOptionPane.showMessageDialog(this, "No patient found with ID: " + patientID);
+            @Override
+            protected void succeeded(Void result) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Patient deleted successfully!");
             }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error deleting patient: " + e.getMessage());
-        }
+            @Override
+            protected void failed(Throwable error) {
+                if (!(error instanceof EntityNotFoundException)) {
+                    error.printStackTrace();
+                }
+                JOptionPane.showMessageDialog(PatientDAO.this, error.getMessage());
+            }
+        }.start();
     }
 
     // ===== UPDATE PATIENT =====
 
     // Update patients record on PATIENTS table
 
+    // Only the patient loaded into the form can be updated, and only while its version is current.
+    // Any other ID is loaded first so the user edits what is actually stored.
+
     private void updatePatient() {
+        int patientID;
         try {
-            int id = Integer.parseInt(updateIdField.getText());
+            patientID = Integer.parseInt(updateIdField.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Enter a valid Patient ID!");
+            return;
+        }
+        if (patientID != editingID) {
+            loadForEdit(patientID, "");
+            return;
+        }
 
-            String sql = "UPDATE PATIENTS SET FirstName=?, LastName=?, DOB=?, Gender=?, Phone=?, Address=?, AdmissionDate=? WHERE PatientID=?";
+        Patient patient;
+        try {
+            patient = new Patient(
+                    patientID,
+                    firstNameField.getText(),
+                    lastNameField.getText(),
+                    LocalDate.parse(dobField.getText()),
+                    genderField.getText(),
+                    phoneField.getText(),
+                    addressField.getText(),
+                    LocalDate.parse(admissionDateField.getText()),
+                    editingVersion
+            );
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error updating: " + e.getMessage());
+            return;
+        }
 
-            try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        new DatabaseWorker<Void, Void>(busyIndicator) {
+            @Override
+            protected Void doInBackground() {
+                Repositories.patients().update(patient);
+                return null;
+            }
 
-                stmt.setString(1, firstNameField.getText());
-                stmt.setString(2, lastNameField.getText());
-                stmt.setDate(3, Date.valueOf(LocalDate.parse(dobField.getText())));
-                stmt.setString(4, genderField.getText());
-                stmt.setString(5, phoneField.getText());
-                stmt.setString(6, addressField.getText());
-                stmt.setDate(7, Date.valueOf(LocalDate.parse(admissionDateField.getText())));
-                stmt.setInt(8, id);
+            @Override
+            protected void succeeded(Void result) {
+                editingVersion = patient.getVersion() + 1;
+                JOptionPane.showMessageDialog(PatientDAO.this, "Patient updated successfully!");
+            }
 
-                int rows = stmt.executeUpdate();
+            @Override
+            protected void failed(Throwable error) {
+                if (error instanceof OptimisticLockException) {
+                    loadForEdit(patientID, "Someone else changed this patient while you were editing it.\n");
+                    return;
+                }
+                JOptionPane.showMessageDialog(PatientDAO.this, error instanceof EntityNotFoundException
+                        ? "Patient ID not found!" : error.getMessage());
+            }
+        }.start();
+    }
 
-                if (rows > 0) {
-                    JOptionPane.showMessageDialog(this, "Patient updated successfully!");
-                    displayPatients();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Patient ID not found!");
+    // Loads the stored patient into the form for review before it is updated. It is read
+    // through a UnitOfWork, so it comes from the primary database rather than a cache or replica.
+
+    private void loadForEdit(int patientID, String reason) {
+        new DatabaseWorker<Optional<Patient>, Void>(busyIndicator) {
+            @Override
+            protected Optional<Patient> doInBackground() {
+                try (UnitOfWork work = UnitOfWork.begin()) {
+                    return work.findPatient(patientID);
                 }
             }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error updating: " + e.getMessage());
-        }
+            @Override
+            protected void succeeded(Optional<Patient> patient) {
+                if (!patient.isPresent()) {
+                    JOptionPane.showMessageDialog(PatientDAO.this, "Patient ID not found!");
+                    return;
+                }
+                edit(toRows(List.of(patient.get())).get(0));
+                JOptionPane.showMessageDialog(PatientDAO.this, reason + "The current details of patient " + patientID
+                        + " are in the form. Review them and press Update again.");
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(PatientDAO.this, error.getMessage());
+            }
+        }.start();
+    }
+
+    // Fills the form from a table row (see toRows) and remembers its version for the next update
+
+    private void edit(Object[] row) {
+        editingID = (Integer) row[0];
+        editingVersion = (Integer) row[8];
+        updateIdField.setText(String.valueOf(editingID));
+        deleteIdField.setText(String.valueOf(editingID));
+        firstNameField.setText(text(row[1]));
+        lastNameField.setText(text(row[2]));
+        dobField.setText(text(row[3]));
+        genderField.setText(text(row[4]));
+        phoneField.setText(text(row[5]));
+        addressField.setText(text(row[6]));
+        admissionDateField.setText(text(row[7]));
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
     }
 
     // ===== SAVE PATIENT =====
@@ -264,12 +448,75 @@ public class PatientDAO extends JFrame {
         }
     }
 
+    // ===== EXPORT PATIENTS =====
+
+    // Streams the patients table to a gzip CSV (.csv.gz) or columnar (.hmsc) file chosen by the user.
+    // If an earlier export left a watermark in that folder, the user can export only newer patients.
+
+    private void exportPatients() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("patients.csv.gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        Path output = chooser.getSelectedFile().toPath();
+        boolean incremental = TableExporter.hasWatermark(TableExporter.PATIENTS, output)
+                && JOptionPane.showConfirmDialog(this, "Export only patients added since the last export?",
+                "Export", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+
+        new DatabaseWorker<TableExporter.ExportResult, Void>(busyIndicator) {
+            @Override
+            protected TableExporter.ExportResult doInBackground() throws IOException {
+                return new TableExporter(DataSourceRouter.getInstance().readerPool()).export(TableExporter.PATIENTS, output, incremental);
+            }
+
+            @Override
+            protected void succeeded(TableExporter.ExportResult result) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Exported " + result);
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Export failed: " + error.getMessage());
+            }
+        }.start();
+    }
+
+    // ===== IMPORT PATIENTS =====
+
+    // Bulk-loads a patient CSV file chosen by the user through the PatientImporter.
+    // Rows that fail validation or already exist are skipped and reported.
+
+    private void importPatients() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        new DatabaseWorker<PatientImporter.ImportReport, Void>(busyIndicator) {
+            @Override
+            protected PatientImporter.ImportReport doInBackground() throws IOException {
+                return new PatientImporter().importFile(file);
+            }
+
+            @Override
+            protected void succeeded(PatientImporter.ImportReport report) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Imported " + report);
+                displayPatients();
+            }
+
+            @Override
+            protected void failed(Throwable error) {
+                JOptionPane.showMessageDialog(PatientDAO.this, "Import failed: " + error.getMessage());
+            }
+        }.start();
+    }
+
     // ===== MAIN METHOD =====
 
-    // To run the application
+    // To run this module on its own; HospitalManagementSystem opens all three
 
     public static void main(String[] args) {
-        new PatientDAO();
+        HospitalManagementSystem.startServices();
+        SwingUtilities.invokeLater(PatientDAO::new);
     }
 
     //  ======================= PATIENT MODEL CLASS =======================
@@ -278,13 +525,29 @@ public class PatientDAO extends JFrame {
     // matching the columns in the PATIENTS database table.
 
     public static class Patient {
+        private int patientID;
         private String firstName, lastName, gender, phone, address;
         private LocalDate dob, admissionDate;
+        private int version;
 
-        // Constructor
+        // Constructor for a new patient that has no PatientID yet
         public Patient(String firstName, String lastName, LocalDate dob, String gender,
                        String phone, String address, LocalDate admissionDate) {
+            this(0, firstName, lastName, dob, gender, phone, address, admissionDate);
+        }
+
+        // Constructor for a patient that has not been read from the database (version 0)
+        public Patient(int patientID, String firstName, String lastName, LocalDate dob, String gender,
+                       String phone, String address, LocalDate admissionDate) {
+            this(patientID, firstName, lastName, dob, gender, phone, address, admissionDate, 0);
+        }
+
+        // Constructor for a patient read from or written back to the database;
+        // version is the row version it was read with (see OptimisticLockException)
+        public Patient(int patientID, String firstName, String lastName, LocalDate dob, String gender,
+                       String phone, String address, LocalDate admissionDate, int version) {
 
+            this.patientID = patientID;
             this.firstName = firstName;
             this.lastName = lastName;
             this.dob = dob;
@@ -292,9 +555,11 @@ public class PatientDAO extends JFrame {
             this.phone = phone;
             this.address = address;
             this.admissionDate = admissionDate;
+            this.version = version;
         }
         // Getter methods
 
+        public int getPatientID() { return patientID; }
         public String getFirstName() { return firstName; }
         public String getLastName() { return lastName; }
         public LocalDate getDob() { return dob; }
@@ -302,5 +567,6 @@ public class PatientDAO extends JFrame {
         public String getPhone() { return phone; }
         public String getAddress() { return address; }
         public LocalDate getAdmissionDate() { return admissionDate; }
+        public int getVersion() { return version; }
     }
 }
@@ -0,0 +1,458 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * PatientImporter loads large patient CSV files into PATIENTS:
+ * Streams the file through NIO and cuts it into chunks of records
+ * Parses and validates the chunks in parallel (dates, gender, phone, field lengths)
+ * Skips patients that already exist (same first name, last name and DOB) or repeat within the file
+ * Inserts the valid rows through PatientRepository.insertAll in batches
+ * Applies back-pressure: at most a few chunks wait between the reader and the writer
+ * Reports throughput and writes rejected rows, with the reason, to <file>.rejected.csv
+ *
+ * The file needs a header row naming the columns FirstName, LastName, DOB, Gender, Phone, Address
+ * and AdmissionDate (any order, case-insensitive). Dates are YYYY-MM-DD.
+ */
+
+public class PatientImporter {
+
+    // Records per validation chunk, -Dhms.import.chunkSize=N
+    public static final int DEFAULT_CHUNK_SIZE = Integer.getInteger("hms.import.chunkSize", 2000);
+
+    private static final String[] COLUMNS = {"FirstName", "LastName", "DOB", "Gender", "Phone", "Address", "AdmissionDate"};
+    private static final int[] MAX_LENGTHS = {50, 50, 0, 10, 20, 100, 0};
+    private static final LocalDate EARLIEST_DOB = LocalDate.of(1900, 1, 1);
+
+    private final ConnectionPool pool;
+    private final PatientRepository patients;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int threads;
+
+    public PatientImporter(ConnectionPool pool, PatientRepository patients, int chunkSize, int batchSize, int threads) {
+        this.pool = pool;
+        this.patients = patients;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.threads = threads;
+    }
+
+    public PatientImporter() {
+        this(ConnectionPool.getInstance(), Repositories.patients(), DEFAULT_CHUNK_SIZE,
+                BatchInserter.DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    // ======================= REPORT =======================
+
+    // Outcome of one import
+    public static final class ImportReport {
+        private long read, inserted, duplicates, rejected;
+        private long elapsedMillis;
+        private Path rejectFile;
+
+        public long getRead() { return read; }
+        public long getInserted() { return inserted; }
+        public long getDuplicates() { return duplicates; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        // File listing the rejected rows, or null when every row was accepted
+        public Path getRejectFile() { return rejectFile; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? read : read * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows read, %,d inserted, %,d duplicates, %,d rejected in %,d ms (%,.0f rows/s)%s",
+                    read, inserted, duplicates, rejected, elapsedMillis, getRowsPerSecond(),
+                    rejectFile != null ? "; rejected rows in " + rejectFile : "");
+        }
+    }
+
+    // ======================= PIPELINE =======================
+
+    // A raw CSV record and the line it started on
+    private static final class Record {
+        final long line;
+        final String[] fields;
+
+        Record(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    // Validated chunk: patients ready to insert (with their lines) and rejected records
+    private static final class Chunk {
+        final List<Patient> valid = new ArrayList<>();
+        final List<Long> validLines = new ArrayList<>();
+        final List<String> rejects = new ArrayList<>();
+        int read;
+    }
+
+    private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+    // Imports one CSV file; rows that fail validation or the insert are reported, not fatal
+    public ImportReport importFile(Path file) throws IOException {
+        try {
+            return QueryMetrics.getInstance().record("patients.import", () -> {
+                try {
+                    return run(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, report -> (int) Math.min(Integer.MAX_VALUE, report.getInserted()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ImportReport run(Path file) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        Set<String> known = loadExistingKeys();
+
+        ExecutorService validators = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "patient-import-validator");
+            t.setDaemon(true);
+            return t;
+        });
+        // Bounded hand-off: the reader blocks once the writer is this many chunks behind
+        BlockingQueue<Future<Chunk>> pending = new ArrayBlockingQueue<>(threads * 2);
+        Path rejectFile = file.resolveSibling(file.getFileName() + ".rejected.csv");
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+
+            rejects.write("Line,Reason,Record");
+            rejects.newLine();
+
+            CsvReader csv = new CsvReader(in);
+            int[] columnIndex = mapHeader(csv.next());
+
+            ExecutorService writerThread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "patient-import-writer");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                Future<?> writer = writerThread.submit(() -> {
+                    write(pending, known, rejects, report);
+                    return null;
+                });
+
+                List<Record> batch = new ArrayList<>(chunkSize);
+                Record record;
+                while ((record = csv.next()) != null) {
+                    batch.add(record);
+                    if (batch.size() == chunkSize) {
+                        submit(validators, pending, batch, columnIndex, writer);
+                        batch = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    submit(validators, pending, batch, columnIndex, writer);
+                }
+                putBlocking(pending, END, writer);
+                writer.get();
+            } finally {
+                // the writer uses rejects, so it must have stopped before the resources close
+                stopAndJoin(writerThread);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Patient import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            validators.shutdownNow();
+        }
+
+        if (report.rejected == 0) {
+            Files.deleteIfExists(rejectFile);
+        } else {
+            report.rejectFile = rejectFile;
+        }
+        report.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return report;
+    }
+
+    // Interrupts the writer if it is still running and waits for it to finish. A pending
+    // interrupt of the calling thread is kept for the caller.
+    private static void stopAndJoin(ExecutorService writerThread) {
+        writerThread.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (writerThread.awaitTermination(1, TimeUnit.SECONDS)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void submit(ExecutorService validators, BlockingQueue<Future<Chunk>> pending, List<Record> records,
+                        int[] columnIndex, Future<?> writer) throws InterruptedException, ExecutionException {
+        putBlocking(pending, validators.submit(() -> validate(records, columnIndex)), writer);
+    }
+
+    // Waits for room in the queue, giving up if the writer has already failed
+    private static void putBlocking(BlockingQueue<Future<Chunk>> pending, Future<Chunk> chunk, Future<?> writer)
+            throws InterruptedException, ExecutionException {
+        while (!pending.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("Patient import writer stopped early");
+            }
+        }
+    }
+
+    // Writer loop: takes validated chunks in file order, removes duplicates and inserts the rest
+    private void write(BlockingQueue<Future<Chunk>> pending, Set<String> known, BufferedWriter rejects,
+                       ImportReport report) throws Exception {
+        Future<Chunk> next;
+        while ((next = pending.take()) != END) {
+            Chunk chunk = next.get();
+            report.read += chunk.read;
+            for (String reject : chunk.rejects) {
+                rejects.write(reject);
+                rejects.newLine();
+                report.rejected++;
+            }
+
+            List<Patient> fresh = new ArrayList<>(chunk.valid.size());
+            List<Long> freshLines = new ArrayList<>(chunk.valid.size());
+            for (int i = 0; i < chunk.valid.size(); i++) {
+                Patient p = chunk.valid.get(i);
+                if (known.add(naturalKey(p.getFirstName(), p.getLastName(), p.getDob()))) {
+                    fresh.add(p);
+                    freshLines.add(chunk.validLines.get(i));
+                } else {
+                    report.duplicates++;
+                }
+            }
+            if (fresh.isEmpty()) continue;
+
+            BatchResult result = patients.insertAll(fresh, batchSize);
+            report.inserted += result.getInsertedCount();
+            for (BatchResult.Failure failure : result.getFailures()) {
+                rejects.write(freshLines.get(failure.getIndex()) + "," + quote(failure.getMessage()) + ",");
+                rejects.newLine();
+                report.rejected++;
+            }
+        }
+    }
+
+    // ======================= VALIDATION =======================
+
+    private static Chunk validate(List<Record> records, int[] columnIndex) {
+        Chunk chunk = new Chunk();
+        chunk.read = records.size();
+        for (Record record : records) {
+            try {
+                chunk.valid.add(toPatient(record.fields, columnIndex));
+                chunk.validLines.add(record.line);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                chunk.rejects.add(record.line + "," + quote(e.getMessage()) + "," + quote(String.join(",", record.fields)));
+            }
+        }
+        return chunk;
+    }
+
+    private static Patient toPatient(String[] fields, int[] columnIndex) {
+        String[] v = new String[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            int i = columnIndex[c];
+            v[c] = i < fields.length ? fields[i].trim() : "";
+            if (MAX_LENGTHS[c] > 0 && v[c].length() > MAX_LENGTHS[c]) {
+                throw new IllegalArgumentException(COLUMNS[c] + " longer than " + MAX_LENGTHS[c] + " characters");
+            }
+        }
+        if (v[0].isEmpty() || v[1].isEmpty()) {
+            throw new IllegalArgumentException("FirstName and LastName are required");
+        }
+
+        LocalDate dob = LocalDate.parse(v[2]);
+        LocalDate admission = LocalDate.parse(v[6]);
+        LocalDate today = LocalDate.now();
+        if (dob.isBefore(EARLIEST_DOB) || dob.isAfter(today)) {
+            throw new IllegalArgumentException("DOB out of range: " + dob);
+        }
+        if (admission.isBefore(dob)) {
+            throw new IllegalArgumentException("AdmissionDate before DOB: " + admission);
+        }
+
+        return new Patient(v[0], v[1], dob, normalizeGender(v[3]), normalizePhone(v[4]), v[5], admission);
+    }
+
+    private static String normalizeGender(String gender) {
+        switch (gender.toLowerCase(Locale.ROOT)) {
+            case "m": case "male": return "Male";
+            case "f": case "female": return "Female";
+            case "o": case "other": case "x": return "Other";
+            default: throw new IllegalArgumentException("Unknown gender: " + gender);
+        }
+    }
+
+    // Keeps a leading + and the digits; 7 to 15 digits are accepted
+    private static String normalizePhone(String phone) {
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch >= '0' && ch <= '9') digits.append(ch);
+            else if (ch == '+' && digits.length() == 0 && i == phone.indexOf('+')) digits.append(ch);
+            else if (" -().".indexOf(ch) < 0) throw new IllegalArgumentException("Invalid phone: " + phone);
+        }
+        int count = digits.length() - (digits.length() > 0 && digits.charAt(0) == '+' ? 1 : 0);
+        if (count < 7 || count > 15) {
+            throw new IllegalArgumentException("Invalid phone: " + phone);
+        }
+        return digits.toString();
+    }
+
+    private static int[] mapHeader(Record header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        int[] index = new int[COLUMNS.length];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < header.fields.length; i++) {
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (COLUMNS[c].equalsIgnoreCase(header.fields[i].trim())) index[c] = i;
+            }
+        }
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (index[c] < 0) throw new IllegalArgumentException("Missing column " + COLUMNS[c]);
+        }
+        return index;
+    }
+
+    // ======================= DEDUPLICATION =======================
+
+    // Streams the natural keys of the existing patients
+    private Set<String> loadExistingKeys() {
+        Set<String> keys = new HashSet<>();
+        String sql = "SELECT FirstName, LastName, DOB FROM PATIENTS";
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            conn.setAutoCommit(false);
+            stmt.setFetchSize(TableExporter.streamingFetchSize(conn, TableExporter.DEFAULT_FETCH_SIZE));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Date dob = rs.getDate(3);
+                    keys.add(naturalKey(rs.getString(1), rs.getString(2), dob == null ? null : dob.toLocalDate()));
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading existing patients: " + e.getMessage(), e);
+        }
+        return keys;
+    }
+
+    private static String naturalKey(String firstName, String lastName, LocalDate dob) {
+        return String.valueOf(firstName).trim().toLowerCase(Locale.ROOT) + '\u0000'
+                + String.valueOf(lastName).trim().toLowerCase(Locale.ROOT) + '\u0000' + dob;
+    }
+
+    // ======================= CSV =======================
+
+    private static String quote(String value) {
+        if (value == null) return "";
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // RFC 4180 record reader: quoted fields may contain commas, quotes and line breaks
+    private static final class CsvReader {
+        private final BufferedReader in;
+        private long line;
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        Record next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                line++;
+                if (text == null) return null;
+            } while (text.isEmpty());
+
+            long startLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) break;
+                    String more = in.readLine();
+                    if (more == null) break;
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char ch = text.charAt(i++);
+                if (quoted) {
+                    if (ch == '"') {
+                        if (i < text.length() && text.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(ch);
+                }
+            }
+            fields.add(field.toString());
+            return new Record(startLine, fields.toArray(new String[0]));
+        }
+    }
+
+    // ======================= MAIN =======================
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PatientImporter <patients.csv>");
+            System.exit(2);
+        }
+        ImportReport report = new PatientImporter().importFile(Paths.get(args[0]));
+        System.out.println("Imported " + args[0] + ": " + report);
+        ConnectionPool.getInstance().close();
+    }
+}
@@ -0,0 +1,38 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * PatientRepository is the headless data-access API for the PATIENTS table.
+ * Implementations throw DataAccessException when the database operation fails.
+ */
+
+public interface PatientRepository {
+
+    // Inserts a patient and returns the generated PatientID
+    int insert(Patient patient);
+
+    // Inserts all patients with JDBC batching, batchSize rows per transaction.
+    // Failed rows are reported in the result instead of aborting the whole load.
+    BatchResult insertAll(Iterable<? extends Patient> patients, int batchSize);
+
+    default BatchResult insertAll(Stream<Patient> patients, int batchSize) {
+        return insertAll(patients::iterator, batchSize);
+    }
+
+    Optional<Patient> findById(int patientID);
+
+    // Returns up to limit patients with PatientID greater than afterID, ordered by PatientID
+    List<Patient> findPage(int afterID, int limit);
+
+    // Overwrites the patient row with the given PatientID if its version is still the one the patient was read with.
+    // Throws EntityNotFoundException if the row does not exist, OptimisticLockException if it has changed since.
+    void update(Patient patient);
+
+    // Deletes the patient row; throws EntityNotFoundException if it does not exist
+    void delete(int patientID);
+}
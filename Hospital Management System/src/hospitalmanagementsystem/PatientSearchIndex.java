@@ -0,0 +1,641 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PatientSearchIndex answers patient lookups by name, phone and address from memory:
+ * An inverted index from lower-case words to sorted PatientIDs, in a sorted map so a prefix is a range
+ * Phone numbers are indexed as their digit groups and as the full digit string
+ * Words of four or more letters also match one typo away ("Jonh" finds John), and any word
+ * matches words with the same Soundex code ("Smyth" finds Smith)
+ * Every query word must match; exact words rank above prefixes, typos and sound-alikes
+ *
+ * The index is loaded in the background by start() and kept current by the patient events on the
+ * EntityEventBus; searches made while it loads only see the patients loaded so far.
+ */
+
+public class PatientSearchIndex {
+
+    private static final Logger LOG = Logger.getLogger(PatientSearchIndex.class.getName());
+
+    // Number of matches returned by the search screens, configurable with -Dhms.patientSearch.limit=N
+    public static final int DEFAULT_LIMIT = Integer.getInteger("hms.patientSearch.limit", 20);
+
+    private static final int LOAD_PAGE_SIZE = 5_000;
+    // Shorter words are too ambiguous to match with a typo
+    private static final int TYPO_MIN_LENGTH = 4;
+    // Candidates examined looking for patients that contain every query word exactly
+    private static final int EXACT_SCAN_LIMIT = 10_000;
+    // Above this many matching terms a prefix or sound-alike is checked against the
+    // patient's words rather than by searching each term's postings
+    private static final int MAX_PREFIX_PROBES = 16;
+
+    // How well one query word matches a patient, best first
+    static final int EXACT = 4, PREFIX = 3, TYPO = 2, PHONETIC = 1, NONE = 0;
+
+    private static PatientSearchIndex instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    // the same postings twice: hashed for exact and one-typo lookups, sorted for prefix ranges
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final NavigableMap<String, Postings> sortedTerms = new TreeMap<>();
+    private final Map<String, List<String>> phonetic = new HashMap<>();
+
+    private volatile boolean ready;
+    private Set<Integer> changedWhileLoading;
+    private Thread loader;
+
+    public static synchronized PatientSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new PatientSearchIndex();
+        }
+        return instance;
+    }
+
+    // ======================= LIFECYCLE =======================
+
+    // Loads every patient from the repository on a background thread and follows the patient
+    // events from then on; later calls do nothing
+    public synchronized void start(PatientRepository source) {
+        if (loader != null) return;
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        EntityEventBus.getInstance().subscribe(EntityEvent.Kind.PATIENT, event -> apply(event, source));
+        loader = new Thread(() -> load(source), "patient-search-index");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public boolean isReady() { return ready; }
+
+    private void load(PatientRepository source) {
+        long start = System.nanoTime();
+        try {
+            int afterID = 0;
+            List<Patient> page;
+            do {
+                page = source.findPage(afterID, LOAD_PAGE_SIZE);
+                lock.writeLock().lock();
+                try {
+                    for (Patient patient : page) {
+                        // a local change made during the load is newer than the row read here
+                        if (!changedWhileLoading.contains(patient.getPatientID())) {
+                            replace(new Entry(patient));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!page.isEmpty()) afterID = page.get(page.size() - 1).getPatientID();
+            } while (page.size() == LOAD_PAGE_SIZE);
+            ready = true;
+            LOG.info(String.format("Patient search index loaded %d patients in %d ms",
+                    size(), (System.nanoTime() - start) / 1_000_000));
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Patient search index could not be loaded", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedWhileLoading = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ======================= UPDATES =======================
+
+    // Local events carry the patient as stored; for a remote insert or update it is read
+    // back from the source on the DatabaseExecutor
+
+    private void apply(EntityEvent event, PatientRepository source) {
+        if (event.isDelete()) {
+            remove(event.getId());
+        } else if (!event.isRemote()) {
+            put(event.getPayload());
+        } else {
+            DatabaseExecutor.execute(() -> source.findById(event.getId()).ifPresent(this::put));
+        }
+    }
+
+    // Adds a patient or replaces the indexed version of it
+    public void put(Patient patient) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) changedWhileLoading.add(patient.getPatientID());
+            replace(new Entry(patient));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int patientID) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) changedWhileLoading.add(patientID);
+            Entry previous = entries.remove(patientID);
+            if (previous != null) unindex(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void replace(Entry entry) {
+        Entry previous = entries.put(entry.patientID, entry);
+        if (previous != null) unindex(previous);
+        for (String term : entry.words()) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                sortedTerms.put(term, postings);
+                if (isAlphabetic(term)) {
+                    phonetic.computeIfAbsent(soundex(term), k -> new ArrayList<>(2)).add(term);
+                }
+            }
+            postings.add(entry.patientID);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (String term : entry.words()) {
+            Postings postings = terms.get(term);
+            if (postings == null) continue;
+            postings.remove(entry.patientID);
+            if (postings.size == 0) {
+                terms.remove(term);
+                sortedTerms.remove(term);
+                if (isAlphabetic(term)) {
+                    String code = soundex(term);
+                    List<String> sameSound = phonetic.get(code);
+                    sameSound.remove(term);
+                    if (sameSound.isEmpty()) phonetic.remove(code);
+                }
+            }
+        }
+    }
+
+    // ======================= SEARCH =======================
+
+    // Returns up to limit patients matching every word of the query, best matches first.
+    // Candidates come from the word with the fewest matching patients, best quality first;
+    // the other words are checked against each candidate, and the scan stops as soon as no
+    // remaining candidate can score higher than the matches already found.
+
+    public List<Match> search(String query, int limit) {
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (queryWords.isEmpty() || limit < 1) return Collections.emptyList();
+
+        lock.readLock().lock();
+        try {
+            List<WordMatch> matches = new ArrayList<>(queryWords.size());
+            for (String word : queryWords) {
+                WordMatch match = new WordMatch(word);
+                if (match.estimate == 0) return Collections.emptyList();
+                matches.add(match);
+            }
+            // the most selective word drives; the others are checked in order of selectivity,
+            // so most candidates are rejected by the first check
+            matches.sort(Comparator.comparingLong(match -> match.estimate));
+            WordMatch driver = matches.get(0);
+
+            List<Match> exactMatches = exactMatches(matches, limit);
+            if (exactMatches != null) return exactMatches;
+
+            int othersBest = 0;
+            for (WordMatch match : matches) {
+                if (match != driver) othersBest += match.best();
+            }
+
+            Collector top = new Collector(limit);
+            for (int quality = EXACT; quality > NONE; quality--) {
+                // candidates of this quality score at most this much
+                int bound = othersBest + quality;
+                if (top.isSettled(bound)) break;
+
+                for (Postings postings : driver.postings(quality)) {
+                    for (int i = 0; i < postings.size && !top.isSettled(bound); i++) {
+                        int patientID = postings.ids[i];
+                        if (!top.firstVisit(patientID)) continue;
+                        int score = quality;
+                        for (WordMatch match : matches) {
+                            if (match == driver) continue;
+                            int other = match.quality(patientID);
+                            if (other == NONE) {
+                                score = NONE;
+                                break;
+                            }
+                            score += other;
+                        }
+                        if (score != NONE) top.offer(entries.get(patientID), score);
+                    }
+                    if (top.isSettled(bound)) break;
+                }
+            }
+            return top.sorted();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Match> search(String query) {
+        return search(query, DEFAULT_LIMIT);
+    }
+
+    // When at least limit patients contain every query word as a whole word, nothing can
+    // outrank them and the exact postings are enough to find them. Returns null otherwise.
+
+    private List<Match> exactMatches(List<WordMatch> matches, int limit) {
+        Postings smallest = null;
+        for (WordMatch match : matches) {
+            if (match.exact == null) return null;
+            if (smallest == null || match.exact.size < smallest.size) smallest = match.exact;
+        }
+        int score = EXACT * matches.size();
+        Collector top = new Collector(limit);
+        for (int i = 0; i < smallest.size && i < EXACT_SCAN_LIMIT && !top.isSettled(score); i++) {
+            int patientID = smallest.ids[i];
+            boolean inAll = true;
+            for (WordMatch match : matches) {
+                if (match.exact != smallest && !match.exact.contains(patientID)) {
+                    inAll = false;
+                    break;
+                }
+            }
+            if (inAll) top.offer(entries.get(patientID), score);
+        }
+        return top.isSettled(score) ? top.sorted() : null;
+    }
+
+    // The indexed terms one query word matches, grouped by match quality; each term is
+    // only listed under its best quality. Only used under the read lock.
+
+    private final class WordMatch {
+        final String word;
+        final Postings exact;
+        final NavigableMap<String, Postings> prefixed;
+        final boolean fewPrefixes;
+        final long estimate;
+        // looked up on first use
+        private List<Postings> typos, soundAlikes;
+        private final Set<String> typoTerms = new HashSet<>();
+
+        WordMatch(String word) {
+            this.word = word;
+            this.exact = terms.get(word);
+            this.prefixed = sortedTerms.subMap(word, false, word + Character.MAX_VALUE, false);
+
+            long total = exact == null ? 0 : exact.size;
+            int prefixTerms = 0;
+            for (Iterator<Postings> it = prefixed.values().iterator(); it.hasNext() && prefixTerms <= MAX_PREFIX_PROBES; prefixTerms++) {
+                total += it.next().size;
+            }
+            this.fewPrefixes = prefixTerms <= MAX_PREFIX_PROBES;
+
+            // typos and sound-alikes are only looked up when the word matches nothing better
+            if (total == 0) {
+                for (Postings postings : typos()) total += postings.size;
+            }
+            if (total == 0) {
+                for (Postings postings : soundAlikes()) total += postings.size;
+            }
+            // a short prefix of many terms is not counted in full; it is a poor driver anyway
+            this.estimate = fewPrefixes ? total : Long.MAX_VALUE - entries.size() + total;
+        }
+
+        // Terms one edit away, and terms with the same Soundex code, that match no better
+        List<Postings> typos() {
+            if (typos == null) {
+                typos = new ArrayList<>();
+                if (isAlphabetic(word) && word.length() >= TYPO_MIN_LENGTH) {
+                    for (String edit : oneEditAway(word)) {
+                        Postings postings = terms.get(edit);
+                        if (postings != null && !edit.startsWith(word) && typoTerms.add(edit)) typos.add(postings);
+                    }
+                }
+            }
+            return typos;
+        }
+
+        List<Postings> soundAlikes() {
+            if (soundAlikes == null) {
+                soundAlikes = new ArrayList<>();
+                if (isAlphabetic(word)) {
+                    typos();
+                    for (String term : phonetic.getOrDefault(soundex(word), Collections.emptyList())) {
+                        if (!term.startsWith(word) && !typoTerms.contains(term)) soundAlikes.add(terms.get(term));
+                    }
+                }
+            }
+            return soundAlikes;
+        }
+
+        int best() {
+            if (exact != null) return EXACT;
+            if (!prefixed.isEmpty()) return PREFIX;
+            if (!typos().isEmpty()) return TYPO;
+            return soundAlikes().isEmpty() ? NONE : PHONETIC;
+        }
+
+        Iterable<Postings> postings(int quality) {
+            switch (quality) {
+                case EXACT: return exact == null ? Collections.emptyList() : Collections.singletonList(exact);
+                case PREFIX: return prefixed.values();
+                case TYPO: return typos();
+                default: return soundAlikes();
+            }
+        }
+
+        // Best quality with which this word matches the patient
+        int quality(int patientID) {
+            if (exact != null && exact.contains(patientID)) return EXACT;
+            if (fewPrefixes) {
+                for (Postings postings : prefixed.values()) {
+                    if (postings.contains(patientID)) return PREFIX;
+                }
+            } else if (entries.get(patientID).hasLongerWordStartingWith(word)) {
+                return PREFIX;
+            }
+            for (Postings postings : typos()) {
+                if (postings.contains(patientID)) return TYPO;
+            }
+            List<Postings> sameSound = soundAlikes();
+            if (sameSound.size() <= MAX_PREFIX_PROBES) {
+                for (Postings postings : sameSound) {
+                    if (postings.contains(patientID)) return PHONETIC;
+                }
+            } else if (!sameSound.isEmpty()) {
+                String code = soundex(word);
+                for (String term : entries.get(patientID).words()) {
+                    if (isAlphabetic(term) && !term.startsWith(word) && !typoTerms.contains(term)
+                            && code.equals(soundex(term))) return PHONETIC;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    // Keeps the limit best-scoring matches seen so far
+    private static final class Collector {
+        private final int limit;
+        private final PriorityQueue<Match> top = new PriorityQueue<>(Comparator.comparingInt(Match::getScore));
+        private final Set<Integer> visited = new HashSet<>();
+
+        Collector(int limit) {
+            this.limit = limit;
+        }
+
+        boolean firstVisit(int patientID) {
+            return visited.add(patientID);
+        }
+
+        void offer(Entry entry, int score) {
+            if (top.size() < limit) {
+                top.add(new Match(entry, score));
+            } else if (score > top.peek().getScore()) {
+                top.poll();
+                top.add(new Match(entry, score));
+            }
+        }
+
+        // True once no candidate scoring at most bound can improve the result
+        boolean isSettled(int bound) {
+            return top.size() == limit && top.peek().getScore() >= bound;
+        }
+
+        List<Match> sorted() {
+            List<Match> matches = new ArrayList<>(top);
+            matches.sort(Comparator.comparingInt(Match::getScore).reversed()
+                    .thenComparing(Match::getLastName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Match::getFirstName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparingInt(Match::getPatientID));
+            return matches;
+        }
+    }
+
+    // ======================= TEXT =======================
+
+    // Lower-case runs of letters and digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) return false;
+        }
+        return !word.isEmpty();
+    }
+
+    // American Soundex: first letter plus three digits for the following consonant groups
+    static String soundex(String word) {
+        final String codes = "01230120022455012623010202";
+        char[] out = {Character.toUpperCase(word.charAt(0)), '0', '0', '0'};
+        int length = 1;
+        char previous = code(codes, word.charAt(0));
+        for (int i = 1; i < word.length() && length < 4; i++) {
+            char c = word.charAt(i);
+            char digit = code(codes, c);
+            if (digit != '0' && digit != previous) out[length++] = digit;
+            // h and w do not separate letters with the same code
+            if (c != 'h' && c != 'w') previous = digit;
+        }
+        return new String(out);
+    }
+
+    private static char code(String codes, char c) {
+        return c >= 'a' && c <= 'z' ? codes.charAt(c - 'a') : '0';
+    }
+
+    // Every word one deletion, swap of neighbouring letters, substitution or insertion
+    // (of a letter a-z) away; looking these up is cheaper than comparing against every term
+    static Set<String> oneEditAway(String word) {
+        Set<String> edits = new HashSet<>();
+        StringBuilder sb = new StringBuilder(word.length() + 1);
+        for (int i = 0; i < word.length(); i++) {
+            edits.add(sb.append(word, 0, i).append(word, i + 1, word.length()).toString());
+            sb.setLength(0);
+            if (i + 1 < word.length()) {
+                edits.add(sb.append(word, 0, i).append(word.charAt(i + 1)).append(word.charAt(i))
+                        .append(word, i + 2, word.length()).toString());
+                sb.setLength(0);
+            }
+        }
+        for (int i = 0; i <= word.length(); i++) {
+            for (char c = 'a'; c <= 'z'; c++) {
+                edits.add(sb.append(word, 0, i).append(c).append(word, i, word.length()).toString());
+                sb.setLength(0);
+                if (i < word.length() && c != word.charAt(i)) {
+                    edits.add(sb.append(word, 0, i).append(c).append(word, i + 1, word.length()).toString());
+                    sb.setLength(0);
+                }
+            }
+        }
+        edits.remove(word);
+        return edits;
+    }
+
+    // ======================= ENTRIES =======================
+
+    // The searchable fields of one patient
+    private static final class Entry {
+        final int patientID;
+        final String firstName, lastName, phone, address;
+
+        Entry(Patient patient) {
+            this.patientID = patient.getPatientID();
+            this.firstName = patient.getFirstName();
+            this.lastName = patient.getLastName();
+            this.phone = patient.getPhone();
+            this.address = patient.getAddress();
+        }
+
+        // True if one of the indexed words of this patient starts with prefix and is longer;
+        // the same test as words() but without building the words
+        boolean hasLongerWordStartingWith(String prefix) {
+            return longerWordStartsWith(firstName, prefix) || longerWordStartsWith(lastName, prefix)
+                    || longerWordStartsWith(phone, prefix) || longerWordStartsWith(address, prefix)
+                    || digitsStartWith(phone, prefix);
+        }
+
+        // The distinct indexed words of this patient
+        List<String> words() {
+            List<String> words = PatientSearchIndex.words(firstName);
+            words.addAll(PatientSearchIndex.words(lastName));
+            List<String> phoneGroups = PatientSearchIndex.words(phone);
+            if (phoneGroups.size() > 1) words.add(String.join("", phoneGroups));
+            words.addAll(phoneGroups);
+            words.addAll(PatientSearchIndex.words(address));
+            return words.size() > 1 ? new ArrayList<>(new LinkedHashSet<>(words)) : words;
+        }
+    }
+
+    private static boolean longerWordStartsWith(String text, String prefix) {
+        if (text == null) return false;
+        int n = text.length(), p = prefix.length();
+        for (int i = 0; i + p < n; i++) {
+            if (!Character.isLetterOrDigit(text.charAt(i)) || (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1)))) continue;
+            if (text.regionMatches(true, i, prefix, 0, p) && Character.isLetterOrDigit(text.charAt(i + p))) {
+                // the word must not end inside the prefix
+                boolean whole = true;
+                for (int k = i; k < i + p && whole; k++) whole = Character.isLetterOrDigit(text.charAt(k));
+                if (whole) return true;
+            }
+        }
+        return false;
+    }
+
+    // The full digit string of a phone written in several groups, e.g. 082 555 1234
+    private static boolean digitsStartWith(String phone, String prefix) {
+        if (phone == null) return false;
+        int matched = 0, length = 0, groups = 0;
+        boolean inGroup = false;
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                inGroup = false;
+                continue;
+            }
+            if (!inGroup) groups++;
+            inGroup = true;
+            if (matched == length && matched < prefix.length()
+                    && Character.toLowerCase(c) == prefix.charAt(matched)) matched++;
+            length++;
+        }
+        return groups > 1 && matched == prefix.length() && length > prefix.length();
+    }
+
+    // Sorted PatientIDs of the patients containing one term
+    private static final class Postings {
+        int[] ids = new int[1];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) return;
+                insert(-at - 1, id);
+            } else {
+                insert(size, id);
+            }
+        }
+
+        private void insert(int at, int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    // One search result; the other patient columns can be loaded with PatientRepository.findById
+    public static final class Match {
+        private final int patientID;
+        private final String firstName, lastName, phone, address;
+        private final int score;
+
+        private Match(Entry entry, int score) {
+            this.patientID = entry.patientID;
+            this.firstName = entry.firstName;
+            this.lastName = entry.lastName;
+            this.phone = entry.phone;
+            this.address = entry.address;
+            this.score = score;
+        }
+
+        public int getPatientID() { return patientID; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public String getPhone() { return phone; }
+        public String getAddress() { return address; }
+        public int getScore() { return score; }
+
+        @Override
+        public String toString() {
+            return patientID + " " + firstName + " " + lastName + " (" + score + ")";
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package hospitalmanagementsystem;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * QueryMetrics collects timing metrics for every DAO operation:
+ * Latency histograms (p50/p99), call counts, error counts and rows returned, per operation name
+ * Logs calls slower than a threshold (-Dhms.metrics.slowQueryMillis, default 500)
+ * Registers each operation as a JMX MXBean
+ * Renders everything, plus gauges such as pool sizes, in Prometheus text format,
+ * optionally served on http://localhost:PORT/metrics (-Dhms.metrics.port=PORT)
+ */
+
+public class QueryMetrics {
+
+    private static final Logger LOG = Logger.getLogger(QueryMetrics.class.getName());
+
+    // Upper bounds of the Prometheus histogram buckets, in microseconds
+    private static final long[] BUCKETS_MICROS = {500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 5_000_000};
+
+    private static QueryMetrics instance;
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private HttpServer httpServer;
+
+    public QueryMetrics(long slowThresholdMillis) {
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000;
+    }
+
+    public static synchronized QueryMetrics getInstance() {
+        if (instance == null) {
+            instance = new QueryMetrics(Long.getLong("hms.metrics.slowQueryMillis", 500));
+            Integer port = Integer.getInteger("hms.metrics.port");
+            if (port != null) {
+                instance.startHttpEndpoint(port);
+            }
+        }
+        return instance;
+    }
+
+    // ======================= RECORDING =======================
+
+    // Runs a DAO call, recording its latency, outcome and the number of rows it returned
+    public <T> T record(String operation, Supplier<T> call, ToIntFunction<? super T> rowCount) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            recordCall(operation, System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        recordCall(operation, System.nanoTime() - start, rowCount.applyAsInt(result), false);
+        return result;
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        return record(operation, call, result -> 0);
+    }
+
+    public void record(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Records a call timed by the caller (e.g. connection acquisition inside ConnectionPool)
+    public void recordCall(String operation, long nanos, int rows, boolean failed) {
+        boolean slow = nanos >= slowThresholdNanos;
+        stats(operation).record(nanos, rows, failed, slow);
+        if (slow) {
+            LOG.warning(String.format("Slow DAO call: %s took %.1f ms%s", operation, nanos / 1e6, failed ? " and failed" : ""));
+        }
+    }
+
+    // Registers a value that is read each time metrics are rendered, e.g. active connections
+    public void registerGauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public OperationStats stats(String operation) {
+        return operations.computeIfAbsent(operation, this::register);
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    private OperationStats register(String operation) {
+        OperationStats stats = new OperationStats(operation);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("hospitalmanagementsystem:type=QueryMetrics,operation=" + ObjectName.quote(operation));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException | SecurityException e) {
+            LOG.fine("Could not register JMX bean for " + operation + ": " + e);
+        }
+        return stats;
+    }
+
+    // ======================= EXPORT =======================
+
+    // Renders all operations and gauges in the Prometheus text exposition format
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE hms_dao_call_seconds histogram\n");
+        for (OperationStats stats : getOperations().values()) {
+            String label = "operation=\"" + stats.getOperation() + "\"";
+            for (long bound : BUCKETS_MICROS) {
+                out.append(String.format(Locale.ROOT, "hms_dao_call_seconds_bucket{%s,le=\"%s\"} %d%n",
+                        label, BigDecimal.valueOf(bound, 6).stripTrailingZeros().toPlainString(),
+                        stats.getLatency().countAtOrBelowMicros(bound)));
+            }
+            out.append(String.format(Locale.ROOT, "hms_dao_call_seconds_bucket{%s,le=\"+Inf\"} %d%n", label, stats.getCount()));
+            out.append(String.format(Locale.ROOT, "hms_dao_call_seconds_count{%s} %d%n", label, stats.getCount()));
+            out.append(String.format(Locale.ROOT, "hms_dao_call_seconds_sum{%s} %.6f%n", label, stats.getMeanMillis() * stats.getCount() / 1e3));
+        }
+        appendCounter(out, "hms_dao_errors_total", OperationStats::getErrorCount);
+        appendCounter(out, "hms_dao_rows_total", OperationStats::getRowCount);
+        appendCounter(out, "hms_dao_slow_calls_total", OperationStats::getSlowCount);
+
+        for (Map.Entry<String, DoubleSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            out.append("# TYPE ").append(gauge.getKey()).append(" gauge\n");
+            out.append(String.format(Locale.ROOT, "%s %s%n", gauge.getKey(), gauge.getValue().getAsDouble()));
+        }
+        return out.toString();
+    }
+
+    private void appendCounter(StringBuilder out, String name, ToLongFunction<OperationStats> value) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (OperationStats stats : getOperations().values()) {
+            out.append(String.format(Locale.ROOT, "%s{operation=\"%s\"} %d%n", name, stats.getOperation(), value.applyAsLong(stats)));
+        }
+    }
+
+    // Serves toPrometheusText() on http://localhost:port/metrics
+    public synchronized void startHttpEndpoint(int port) {
+        if (httpServer != null) return;
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            httpServer.createContext("/metrics", exchange -> {
+                byte[] body = toPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            httpServer.setExecutor(null);
+            httpServer.start();
+        } catch (IOException e) {
+            LOG.warning("Could not start metrics endpoint on port " + port + ": " + e.getMessage());
+            httpServer = null;
+        }
+    }
+
+    public synchronized void stopHttpEndpoint() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+}
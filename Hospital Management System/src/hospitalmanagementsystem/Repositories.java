@@ -0,0 +1,88 @@
+package hospitalmanagementsystem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositories holds the repository instances shared by the GUIs and headless callers.
+ * By default they are JDBC implementations backed by DataSourceRouter.getInstance(), metered
+ * with QueryMetrics, with read-through EntityCaches in front of the patient and doctor lookups
+ * and the AppointmentRoster in front of upcoming appointment searches; the caches also drop
+ * rows changed elsewhere (UnitOfWork, other instances) as their EntityEvents arrive;
+ * other implementations can be installed before the first lookup (e.g. for benchmarks).
+ */
+
+public final class Repositories {
+
+    private static PatientRepository patients;
+    private static DoctorRepository doctors;
+    private static AppointmentRepository appointments;
+    private static EntityCache<PatientDAO.Patient> patientCache;
+    private static EntityCache<DoctorDAO.Doctor> doctorCache;
+
+    private Repositories() {
+    }
+
+    public static synchronized PatientRepository patients() {
+        if (patients == null) {
+            patientCache = newCache("patients", EntityEvent.Kind.PATIENT);
+            patients = new CachingPatientRepository(
+                    new MeteredPatientRepository(new JdbcPatientRepository(DataSourceRouter.getInstance()), QueryMetrics.getInstance()),
+                    patientCache);
+        }
+        return patients;
+    }
+
+    public static synchronized DoctorRepository doctors() {
+        if (doctors == null) {
+            doctorCache = newCache("doctors", EntityEvent.Kind.DOCTOR);
+            doctors = new CachingDoctorRepository(
+                    new MeteredDoctorRepository(new JdbcDoctorRepository(DataSourceRouter.getInstance()), QueryMetrics.getInstance()),
+                    doctorCache);
+        }
+        return doctors;
+    }
+
+    public static synchronized AppointmentRepository appointments() {
+        if (appointments == null) {
+            appointments = new RosterAppointmentRepository(new MeteredAppointmentRepository(
+                    new JdbcAppointmentRepository(DataSourceRouter.getInstance()), QueryMetrics.getInstance()),
+                    AppointmentRoster.getInstance(), DataSourceRouter.getInstance());
+        }
+        return appointments;
+    }
+
+    // ======================= ASYNC =======================
+
+    // CompletableFuture/Flow views of the shared repositories, running on the DatabaseExecutor
+
+    public static AsyncPatientRepository asyncPatients() {
+        return new AsyncPatientRepository(patients(), DatabaseExecutor.get());
+    }
+
+    public static AsyncDoctorRepository asyncDoctors() {
+        return new AsyncDoctorRepository(doctors(), DatabaseExecutor.get());
+    }
+
+    public static AsyncAppointmentRepository asyncAppointments() {
+        return new AsyncAppointmentRepository(appointments(), DatabaseExecutor.get());
+    }
+
+    // Creates a cache with the default size and TTL that drops updated and deleted rows of
+    // the given kind, and publishes its counters as metrics gauges
+    private static <V> EntityCache<V> newCache(String name, EntityEvent.Kind kind) {
+        EntityCache<V> cache = new EntityCache<>(name, EntityCache.DEFAULT_MAX_SIZE, EntityCache.DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+        EntityEventBus.getInstance().subscribe(kind, event -> {
+            if (event.getType() != EntityEvent.Type.INSERTED) cache.invalidate(event.getId());
+        });
+        QueryMetrics metrics = QueryMetrics.getInstance();
+        metrics.registerGauge("hms_cache_" + name + "_size", cache::size);
+        metrics.registerGauge("hms_cache_" + name + "_hits", cache::getHitCount);
+        metrics.registerGauge("hms_cache_" + name + "_misses", cache::getMissCount);
+        metrics.registerGauge("hms_cache_" + name + "_evictions", cache::getEvictionCount);
+        return cache;
+    }
+
+    public static synchronized void setPatients(PatientRepository repository) { patients = repository; }
+    public static synchronized void setDoctors(DoctorRepository repository) { doctors = repository; }
+    public static synchronized void setAppointments(AppointmentRepository repository) { appointments = repository; }
+}
@@ -0,0 +1,147 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.AppointmentDAO.AppointmentView;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * RosterAppointmentRepository serves appointment searches from the AppointmentRoster
+ * when their date range lies inside the roster window (the roster follows this process's
+ * own writes through their EntityEvents), e.g. the upcoming appointments listing.
+ * searchViews inside the window reads the page's patient and doctor names with one IN query
+ * per table; everything else goes to the wrapped repository.
+ */
+
+public class RosterAppointmentRepository implements AppointmentRepository {
+
+    // Most IDs per IN list; the lists are padded to a power of two so few statement texts are cached
+    private static final int MAX_IN_LIST = 512;
+
+    private final AppointmentRepository delegate;
+    private final AppointmentRoster roster;
+    private final DataSourceRouter router;
+
+    public RosterAppointmentRepository(AppointmentRepository delegate, AppointmentRoster roster, DataSourceRouter router) {
+        this.delegate = delegate;
+        this.roster = roster;
+        this.router = router;
+    }
+
+    @Override
+    public int insert(Appointment appointment) {
+        return delegate.insert(appointment);
+    }
+
+    @Override
+    public BatchResult insertAll(Iterable<? extends Appointment> appointments, int batchSize) {
+        return delegate.insertAll(appointments, batchSize);
+    }
+
+    @Override
+    public Optional<Appointment> findById(int appointmentID) {
+        return delegate.findById(appointmentID);
+    }
+
+    @Override
+    public List<Appointment> findPage(int afterID, int limit) {
+        return delegate.findPage(afterID, limit);
+    }
+
+    @Override
+    public List<Appointment> search(AppointmentSearch criteria) {
+        if (roster.covers(criteria)) {
+            return QueryMetrics.getInstance().record("appointments.search.roster", () -> roster.search(criteria), List::size);
+        }
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public List<AppointmentView> searchViews(AppointmentSearch criteria) {
+        if (roster.covers(criteria)) {
+            return QueryMetrics.getInstance().record("appointments.searchViews.roster", () -> toViews(roster.search(criteria)), List::size);
+        }
+        return delegate.searchViews(criteria);
+    }
+
+    // Adds the names the joined query would return, read for the whole page at once.
+    // A patient or doctor that no longer exists is shown without a name, like the LEFT JOIN does.
+
+    private List<AppointmentView> toViews(List<Appointment> appointments) {
+        Set<Integer> patientIDs = new LinkedHashSet<>(), doctorIDs = new LinkedHashSet<>();
+        for (Appointment a : appointments) {
+            patientIDs.add(a.getPatientID());
+            doctorIDs.add(a.getDoctorID());
+        }
+        Map<Integer, String[]> patients = names("PATIENTS", "PatientID", "FirstName, LastName", patientIDs);
+        Map<Integer, String[]> doctors = names("DOCTORS", "DoctorID", "FirstName, LastName, Specialty", doctorIDs);
+
+        String[] none = new String[3];
+        List<AppointmentView> views = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            String[] p = patients.getOrDefault(a.getPatientID(), none);
+            String[] d = doctors.getOrDefault(a.getDoctorID(), none);
+            views.add(new AppointmentView(a.getAppointmentID(), a.getPatientID(), p[0], p[1],
+                    a.getDoctorID(), d[0], d[1], d[2],
+                    a.getAppointmentDate(), a.getDescription(), a.getAppointmentStatus(), a.getVersion()));
+        }
+        return views;
+    }
+
+    // Reads the columns for the IDs with WHERE idColumn IN (...), MAX_IN_LIST IDs per query;
+    // a short list repeats its last ID up to the next power of two.
+    // @return the column values (up to three) by ID
+
+    private Map<Integer, String[]> names(String table, String idColumn, String columns, Set<Integer> ids) {
+        Map<Integer, String[]> names = new HashMap<>();
+        if (ids.isEmpty()) return names;
+        Integer[] all = ids.toArray(new Integer[0]);
+
+        try (Connection conn = router.readConnection()) {
+            for (int start = 0; start < all.length; start += MAX_IN_LIST) {
+                int count = Math.min(MAX_IN_LIST, all.length - start);
+                int slots = count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+                String sql = "SELECT " + idColumn + ", " + columns + " FROM " + table + " WHERE " + idColumn
+                        + " IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slots; i++) stmt.setInt(i + 1, all[start + Math.min(i, count - 1)]);
+                    DatabaseWorker.trackStatement(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        int width = rs.getMetaData().getColumnCount() - 1;
+                        while (rs.next()) {
+                            String[] values = new String[3];
+                            for (int c = 0; c < width; c++) values[c] = rs.getString(c + 2);
+                            names.put(rs.getInt(1), values);
+                        }
+                    } finally {
+                        DatabaseWorker.trackStatement(null);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading " + table.toLowerCase() + " names: " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    @Override
+    public void update(Appointment appointment) {
+        delegate.update(appointment);
+    }
+
+    @Override
+    public void delete(int appointmentID) {
+        delegate.delete(appointmentID);
+    }
+}
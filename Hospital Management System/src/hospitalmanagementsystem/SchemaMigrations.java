@@ -0,0 +1,161 @@
+package hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SchemaMigrations brings an existing hospital_management_system database up to date:
+ * Each migration has a version number and one or more DDL statements
+ * Applied versions are recorded in the schema_version table
+ * Only migrations newer than the recorded version are run, in order
+ * Each statement is skipped if the index or column it adds already exists. MySQL commits DDL
+ * implicitly, so a migration that failed part-way cannot roll back; running it again resumes
+ * it instead of failing on the statements that did take effect
+ *
+ * The base tables are created by the SQL in README.md; migrations only change them.
+ */
+
+public final class SchemaMigrations {
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    // The statement forms a migration may use, as their effect can be looked up
+    private static final Pattern CREATE_INDEX =
+            Pattern.compile("CREATE INDEX (\\w+) ON (\\w+) .*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ADD_COLUMN =
+            Pattern.compile("ALTER TABLE (\\w+) ADD COLUMN (\\w+) .*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    static {
+        // Composite indexes used by AppointmentRepository.search. InnoDB appends the primary key
+        // to every secondary index, so each one also serves the (date, AppointmentID) keyset order.
+        MIGRATIONS.add(new Migration(1, "Appointment search indexes",
+                "CREATE INDEX idx_appointments_doctor_date ON appointments (DoctorID, AppointmentDate)",
+                "CREATE INDEX idx_appointments_patient_date ON appointments (PatientID, AppointmentDate)",
+                "CREATE INDEX idx_appointments_status_date ON appointments (AppointmentStatus, AppointmentDate)"));
+
+        // Change tracking for AppointmentRoster: it polls for rows modified since its last refresh,
+        // and reconciles deletions with a covering scan of the date index.
+        MIGRATIONS.add(new Migration(2, "Appointment change tracking",
+                "ALTER TABLE appointments ADD COLUMN LastModified TIMESTAMP(3) NOT NULL "
+                        + "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)",
+                "CREATE INDEX idx_appointments_modified ON appointments (LastModified)",
+                "CREATE INDEX idx_appointments_date ON appointments (AppointmentDate)"));
+
+        // Optimistic locking: every update checks and increments the row's Version, so an edit
+        // based on a stale copy matches no row instead of overwriting someone else's change.
+        MIGRATIONS.add(new Migration(3, "Optimistic locking versions",
+                "ALTER TABLE patients ADD COLUMN Version INT NOT NULL DEFAULT 0",
+                "ALTER TABLE doctors ADD COLUMN Version INT NOT NULL DEFAULT 0",
+                "ALTER TABLE appointments ADD COLUMN Version INT NOT NULL DEFAULT 0"));
+    }
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> getMigrations() {
+        return Collections.unmodifiableList(MIGRATIONS);
+    }
+
+    // Applies every pending migration and returns the schema version afterwards
+    public static int migrate(ConnectionPool pool) {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "Version INT PRIMARY KEY, Description VARCHAR(100), AppliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+            int current = currentVersion(stmt);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= current) continue;
+
+                for (String ddl : migration.statements) {
+                    if (!hasTakenEffect(conn, ddl)) stmt.executeUpdate(ddl);
+                }
+                try (PreparedStatement record = conn.prepareStatement(
+                        "INSERT INTO schema_version (Version, Description) VALUES (?, ?)")) {
+                    record.setInt(1, migration.getVersion());
+                    record.setString(2, migration.getDescription());
+                    record.executeUpdate();
+                }
+                current = migration.getVersion();
+            }
+            return current;
+        } catch (SQLException e) {
+            throw new DataAccessException("Schema migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static int currentVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(Version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Whether the index or column the statement adds is already there, through the driver's
+    // metadata (information_schema on MySQL)
+    private static boolean hasTakenEffect(Connection conn, String ddl) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        Matcher index = CREATE_INDEX.matcher(ddl);
+        if (index.matches()) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, identifier(meta, index.group(2)), false, true)) {
+                while (rs.next()) {
+                    if (index.group(1).equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+            return false;
+        }
+        Matcher column = ADD_COLUMN.matcher(ddl);
+        if (!column.matches()) {
+            throw new IllegalStateException("Not a CREATE INDEX or ADD COLUMN statement: " + ddl);
+        }
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null,
+                pattern(meta, identifier(meta, column.group(1))), pattern(meta, identifier(meta, column.group(2))))) {
+            return rs.next();
+        }
+    }
+
+    // An unquoted name in the case the database stores it
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesUpperCaseIdentifiers()) return name.toUpperCase(Locale.ROOT);
+        if (meta.storesLowerCaseIdentifiers()) return name.toLowerCase(Locale.ROOT);
+        return name;
+    }
+
+    // A metadata search pattern matching only this name
+    private static String pattern(DatabaseMetaData meta, String name) throws SQLException {
+        String escape = meta.getSearchStringEscape();
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    // Runs the migrations against the default database
+    public static void main(String[] args) {
+        System.out.println("Schema version: " + migrate(ConnectionPool.getInstance()));
+    }
+
+    // One versioned schema change
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        // Each statement must be a CREATE INDEX or ALTER TABLE ... ADD COLUMN, so migrate() can
+        // tell whether it has already run
+        public Migration(int version, String description, String... statements) {
+            for (String ddl : statements) {
+                if (!CREATE_INDEX.matcher(ddl).matches() && !ADD_COLUMN.matcher(ddl).matches()) {
+                    throw new IllegalArgumentException("Migration " + version
+                            + ": only CREATE INDEX and ALTER TABLE ... ADD COLUMN are supported: " + ddl);
+                }
+            }
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+    }
+}
@@ -0,0 +1,208 @@
+package hospitalmanagementsystem;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StatementCache keeps the prepared statements of one physical connection open for reuse:
+ * Keyed by SQL text plus the prepareStatement options (generated keys, result set type, ...)
+ * Closing a statement handed out by the cache clears its parameters and returns it to the cache
+ * Statements whose fetch size, max rows, timeout and similar settings were changed are closed instead
+ * The least recently used statements are closed once the cache is over its size
+ *
+ * With server-side prepared statements (useServerPrepStmts on MySQL) a cache hit skips the
+ * parse and plan step on the server as well as the round-trip to prepare.
+ */
+
+public class StatementCache {
+
+    // Statements kept per connection, configurable with -Dhms.pool.statementCacheSize=N (0 disables)
+    public static final int DEFAULT_SIZE = Integer.getInteger("hms.pool.statementCacheSize", 64);
+
+    // Statement settings that make a statement unsuitable for reuse by the next caller
+    private static final List<String> STATEFUL_SETTERS = Arrays.asList(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize",
+            "setQueryTimeout", "setEscapeProcessing", "setCursorName", "setPoolable", "closeOnCompletion");
+
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits, misses;
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    // True for the prepareStatement overloads the cache can key: (sql) and (sql, int...)
+    static boolean isCacheable(Object[] args) {
+        for (int i = 1; i < args.length; i++) {
+            if (!(args[i] instanceof Integer)) return false;
+        }
+        return args.length > 0 && args[0] instanceof String;
+    }
+
+    // Returns a cached statement for the prepareStatement call, preparing it on a miss.
+    // owner is the pooled connection the caller sees through Statement.getConnection().
+    synchronized PreparedStatement prepare(Connection owner, Method method, Object[] args) throws Throwable {
+        List<Object> key = Arrays.asList(args);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+            return entry.lease(owner);
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement statement = (PreparedStatement) invoke(physical, method, args);
+        if (entry != null) {
+            // the same SQL is already open on this connection; this copy is not cached
+            return statement;
+        }
+        entry = new Entry(key, statement);
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.lease(owner);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Closes statements a borrower left open; called when the connection goes back to the pool
+    synchronized void releaseAll() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.inUse) {
+                it.remove();
+                closeQuietly(entry.statement);
+            }
+        }
+    }
+
+    // Closes every statement; called before the physical connection is closed
+    synchronized void closeAll() {
+        for (Entry entry : entries.values()) closeQuietly(entry.statement);
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            if (!eldest.inUse) {
+                it.remove();
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    // Called when a leased statement is closed by its user
+    private synchronized void giveBack(Entry entry, boolean reusable) {
+        entry.inUse = false;
+        if (reusable && entries.get(entry.key) == entry) {
+            try {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                evictOverflow();
+                return;
+            } catch (SQLException e) {
+                // fall through and discard it
+            }
+        }
+        if (entries.get(entry.key) == entry) entries.remove(entry.key);
+        closeQuietly(entry.statement);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // the statement is being thrown away anyway
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ======================= ENTRIES =======================
+
+    private final class Entry {
+        final List<Object> key;
+        final PreparedStatement statement;
+        boolean inUse;
+
+        Entry(List<Object> key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        PreparedStatement lease(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Lease(this, owner));
+        }
+    }
+
+    // One checkout of a cached statement; close() hands the statement back instead of closing it
+    private final class Lease implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed, dirty;
+
+        Lease(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(entry, !dirty);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + entry.statement + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    if (STATEFUL_SETTERS.contains(name)) {
+                        dirty = true;
+                    }
+            }
+            return StatementCache.invoke(entry.statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.ColumnarFile.Type;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * TableExporter streams a whole table, or the rows after a watermark, to a file for analysis:
+ * Reads through a forward-only, read-only cursor with a tuned fetch size (row streaming on MySQL)
+ * Writes gzip-compressed CSV (.csv.gz) or the ColumnarFile format (.hmsc)
+ * Keeps memory constant: rows go straight from the ResultSet to the output
+ * Returns the watermark reached so the next export only picks up newer rows
+ *
+ * Usage: java hospitalmanagementsystem.TableExporter appointments|patients <file.csv.gz|file.hmsc> [--incremental | --since YYYY-MM-DD]
+ * (incremental exports keep their watermark in <table>.watermark beside the output file;
+ * --since exports rows whose appointment or admission date is on or after the given date)
+ */
+
+public class TableExporter {
+
+    // Rows per round-trip on drivers that support cursor fetching, -Dhms.export.fetchSize=N
+    public static final int DEFAULT_FETCH_SIZE = Integer.getInteger("hms.export.fetchSize", 1000);
+
+    public enum Format {
+        CSV_GZIP, COLUMNAR;
+
+        // Chooses the format from the file name: *.hmsc is columnar, anything else gzip CSV
+        public static Format forPath(Path path) {
+            return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ColumnarFile.EXTENSION) ? COLUMNAR : CSV_GZIP;
+        }
+    }
+
+    // Describes an exportable table: its key, its date column and the exported columns in order
+    public static final class Table {
+        private final String name, keyColumn, dateColumn;
+        private final String[] columns;
+        private final Type[] types;
+
+        public Table(String name, String keyColumn, String dateColumn, String[] columns, Type[] types) {
+            this.name = name;
+            this.keyColumn = keyColumn;
+            this.dateColumn = dateColumn;
+            this.columns = columns.clone();
+            this.types = types.clone();
+        }
+
+        public String getName() { return name; }
+    }
+
+    public static final Table APPOINTMENTS = new Table("appointments", "AppointmentID", "AppointmentDate",
+            new String[]{"AppointmentID", "PatientID", "DoctorID", "AppointmentDate", "Description", "AppointmentStatus"},
+            new Type[]{Type.INT, Type.INT, Type.INT, Type.DATE, Type.STRING, Type.STRING});
+
+    public static final Table PATIENTS = new Table("PATIENTS", "PatientID", "AdmissionDate",
+            new String[]{"PatientID", "FirstName", "LastName", "DOB", "Gender", "Phone", "Address", "AdmissionDate"},
+            new Type[]{Type.INT, Type.STRING, Type.STRING, Type.DATE, Type.STRING, Type.STRING, Type.STRING, Type.DATE});
+
+    // Summary of one export
+    public static final class ExportResult {
+        private final long rows, bytes, elapsedMillis;
+        private final ExportWatermark watermark;
+
+        ExportResult(long rows, long bytes, long elapsedMillis, ExportWatermark watermark) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+            this.watermark = watermark;
+        }
+
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        // Watermark to pass to the next incremental export
+        public ExportWatermark getWatermark() { return watermark; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %,d bytes in %,d ms (%s)", rows, bytes, elapsedMillis, watermark);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final int fetchSize;
+
+    public TableExporter(ConnectionPool pool, int fetchSize) {
+        this.pool = pool;
+        this.fetchSize = fetchSize;
+    }
+
+    public TableExporter(ConnectionPool pool) {
+        this(pool, DEFAULT_FETCH_SIZE);
+    }
+
+    // ======================= EXPORT =======================
+
+    // Exports the rows after since.getLastID() (and on or after since.getLastDate(), if set) in key order
+    public ExportResult export(Table table, Path output, ExportWatermark since) throws IOException {
+        try {
+            return QueryMetrics.getInstance().record("export." + table.getName().toLowerCase(Locale.ROOT),
+                    () -> {
+                        try {
+                            return run(table, output, since);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, result -> (int) Math.min(Integer.MAX_VALUE, result.getRows()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Full or incremental export that keeps the table's watermark in the output's directory:
+    // an incremental export starts after the saved key, and either kind saves the new watermark,
+    // so each increment goes to its own output file
+    public ExportResult export(Table table, Path output, boolean incremental) throws IOException {
+        Path watermarkFile = watermarkFile(table, output);
+        ExportWatermark since = incremental ? ExportWatermark.afterID(ExportWatermark.load(watermarkFile).getLastID()) : ExportWatermark.NONE;
+        ExportResult result = export(table, output, since);
+        result.getWatermark().save(watermarkFile);
+        return result;
+    }
+
+    // True when an earlier export to the output's directory left a watermark to continue from
+    public static boolean hasWatermark(Table table, Path output) {
+        return Files.exists(watermarkFile(table, output));
+    }
+
+    private static Path watermarkFile(Table table, Path output) {
+        return ExportWatermark.fileFor(output.toAbsolutePath().getParent(), table.getName());
+    }
+
+    private ExportResult run(Table table, Path output, ExportWatermark since) throws IOException {
+        long start = System.nanoTime();
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", table.columns))
+                .append(" FROM ").append(table.name).append(" WHERE ").append(table.keyColumn).append(" > ?");
+        if (since.getLastDate() != null) {
+            sql.append(" AND ").append(table.dateColumn).append(" >= ?");
+        }
+        sql.append(" ORDER BY ").append(table.keyColumn);
+
+        long rows = 0;
+        int lastID = since.getLastID();
+        LocalDate lastDate = since.getLastDate();
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             RowSink sink = openSink(table, output)) {
+
+            // PostgreSQL and others only use a cursor inside a transaction; the pool restores auto-commit
+            conn.setAutoCommit(false);
+            stmt.setFetchSize(streamingFetchSize(conn, fetchSize));
+            stmt.setInt(1, since.getLastID());
+            if (since.getLastDate() != null) {
+                stmt.setDate(2, Date.valueOf(since.getLastDate()));
+            }
+
+            int dateIndex = indexOf(table.columns, table.dateColumn);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.write(rs);
+                    lastID = rs.getInt(1);
+                    Date date = rs.getDate(dateIndex + 1);
+                    if (date != null && (lastDate == null || date.toLocalDate().isAfter(lastDate))) {
+                        lastDate = date.toLocalDate();
+                    }
+                    rows++;
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error exporting " + table.name + ": " + e.getMessage(), e);
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new ExportResult(rows, Files.size(output), elapsed, new ExportWatermark(lastID, lastDate));
+    }
+
+    // MySQL Connector/J buffers whole result sets unless the fetch size is Integer.MIN_VALUE
+    // (row streaming) or the URL enables useCursorFetch; other drivers use the given fetch size
+    static int streamingFetchSize(Connection conn, int fetchSize) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        boolean mysql = meta.getDriverName().toLowerCase(Locale.ROOT).contains("mysql");
+        if (mysql && !meta.getURL().contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static int indexOf(String[] columns, String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(column)) return i;
+        }
+        throw new IllegalArgumentException("Unknown column " + column);
+    }
+
+    // ======================= SINKS =======================
+
+    private interface RowSink extends Closeable {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static RowSink openSink(Table table, Path output) throws IOException {
+        OutputStream file = Files.newOutputStream(output);
+        try {
+            return Format.forPath(output) == Format.COLUMNAR
+                    ? new ColumnarSink(table, file)
+                    : new CsvSink(table, file);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // RFC 4180 CSV with a header row; dates are ISO-8601
+    private static final class CsvSink implements RowSink {
+        private final Writer out;
+        private final Type[] types;
+
+        CsvSink(Table table, OutputStream file) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(file, 1 << 16), StandardCharsets.UTF_8), 1 << 16);
+            this.types = table.types;
+            for (int c = 0; c < table.columns.length; c++) {
+                if (c > 0) out.write(',');
+                out.write(table.columns[c]);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int c = 0; c < types.length; c++) {
+                if (c > 0) out.write(',');
+                switch (types[c]) {
+                    case INT:
+                        int value = rs.getInt(c + 1);
+                        if (!rs.wasNull()) out.write(Integer.toString(value));
+                        break;
+                    case DATE:
+                        Date date = rs.getDate(c + 1);
+                        if (date != null) out.write(date.toLocalDate().toString());
+                        break;
+                    default:
+                        writeField(rs.getString(c + 1));
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) return;
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class ColumnarSink implements RowSink {
+        private final ColumnarFile.Writer writer;
+        private final Type[] types;
+
+        ColumnarSink(Table table, OutputStream file) throws IOException {
+            this.writer = new ColumnarFile.Writer(file, table.columns, table.types, ColumnarFile.DEFAULT_ROW_GROUP_SIZE);
+            this.types = table.types;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int c = 0; c < types.length; c++) {
+                switch (types[c]) {
+                    case INT:
+                        int value = rs.getInt(c + 1);
+                        if (rs.wasNull()) writer.setNull(c);
+                        else writer.setInt(c, value);
+                        break;
+                    case DATE:
+                        Date date = rs.getDate(c + 1);
+                        writer.setDate(c, date == null ? null : date.toLocalDate());
+                        break;
+                    default:
+                        writer.setString(c, rs.getString(c + 1));
+                }
+            }
+            writer.endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    // ======================= MAIN =======================
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TableExporter appointments|patients <file.csv.gz|file" + ColumnarFile.EXTENSION
+                    + "> [--incremental | --since YYYY-MM-DD]");
+            System.exit(2);
+        }
+        Table table = args[0].equalsIgnoreCase("patients") ? PATIENTS : APPOINTMENTS;
+        Path output = Paths.get(args[1]);
+        String mode = args.length > 2 ? args[2] : "";
+
+        TableExporter exporter = new TableExporter(DataSourceRouter.getInstance().readerPool());
+        ExportResult result = mode.equals("--since") && args.length > 3
+                ? exporter.export(table, output, ExportWatermark.fromDate(LocalDate.parse(args[3])))
+                : exporter.export(table, output, mode.equals("--incremental"));
+        System.out.println("Exported " + table.getName() + " to " + output + ": " + result);
+        DataSourceRouter.getInstance().close();
+        ConnectionPool.getInstance().close();
+    }
+}
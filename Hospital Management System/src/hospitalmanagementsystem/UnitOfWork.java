@@ -0,0 +1,356 @@
+package hospitalmanagementsystem;
+
+import hospitalmanagementsystem.AppointmentDAO.Appointment;
+import hospitalmanagementsystem.DoctorDAO.Doctor;
+import hospitalmanagementsystem.PatientDAO.Patient;
+
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * UnitOfWork groups changes to patients, doctors and appointments into one transaction:
+ * Every operation runs on a single pooled connection with auto-commit off
+ * Updates and deletes are queued; consecutive statements with the same SQL go to the
+ * database as one JDBC batch when the unit is flushed or committed
+ * commit() flushes and commits once; close() rolls back anything not committed
+ * Updates are versioned like the repositories' (OptimisticLockException on a stale copy)
+ * The isolation level is chosen when the unit begins
+ * EntityEvents for the changed rows are published (and the booking index refreshed) only after a successful commit
+ *
+ * try (UnitOfWork work = UnitOfWork.begin()) {
+ *     work.cancelFutureAppointmentsForDoctor(doctorID, LocalDate.now());
+ *     work.deleteDoctor(doctorID);
+ *     work.commit();
+ * }
+ *
+ * Inserts and reads flush the queue first, so they see the earlier operations of the unit.
+ * Inserted appointments are not conflict-checked; use BookingEngine for bookings.
+ */
+
+public class UnitOfWork implements AutoCloseable {
+
+    // Isolation used by begin(), configurable with -Dhms.tx.isolation=READ_COMMITTED|REPEATABLE_READ|SERIALIZABLE
+    public static final int DEFAULT_ISOLATION = isolationLevel(System.getProperty("hms.tx.isolation", "READ_COMMITTED"));
+
+    private static final String CANCEL_DOCTOR_SQL = "UPDATE appointments SET AppointmentStatus = '" + BookingEngine.CANCELLED
+            + "', Version = Version + 1 WHERE DoctorID = ? AND AppointmentDate >= ? AND (AppointmentStatus IS NULL OR AppointmentStatus <> '" + BookingEngine.CANCELLED + "')";
+    private static final String CANCEL_PATIENT_SQL = "UPDATE appointments SET AppointmentStatus = '" + BookingEngine.CANCELLED
+            + "', Version = Version + 1 WHERE PatientID = ? AND AppointmentDate >= ? AND (AppointmentStatus IS NULL OR AppointmentStatus <> '" + BookingEngine.CANCELLED + "')";
+
+    // Binds the parameters of one queued statement
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    // A queued statement; required rows are checked against its update count.
+    // Versioned updates also keep the query that tells a stale version from a missing row.
+    private static final class Pending {
+        final String sql;
+        final Binder binder;
+        final String entity;
+        final int id;
+        final String versionSql;
+        final int version;
+
+        Pending(String sql, Binder binder, String entity, int id, String versionSql, int version) {
+            this.sql = sql;
+            this.binder = binder;
+            this.entity = entity;
+            this.id = id;
+            this.versionSql = versionSql;
+            this.version = version;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Connection conn;
+    private final int previousIsolation;
+    private final List<Pending> pending = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private int statementCount;
+    private boolean finished;
+
+    private UnitOfWork(ConnectionPool pool, Connection conn, int isolation) throws SQLException {
+        this.pool = pool;
+        this.conn = conn;
+        this.previousIsolation = conn.getTransactionIsolation();
+        conn.setAutoCommit(false);
+        if (isolation != previousIsolation) {
+            conn.setTransactionIsolation(isolation);
+        }
+    }
+
+    // Starts a unit on the shared pool with the default isolation level
+    public static UnitOfWork begin() {
+        return begin(ConnectionPool.getInstance(), DEFAULT_ISOLATION);
+    }
+
+    // Starts a unit with one of the Connection.TRANSACTION_* isolation levels
+    public static UnitOfWork begin(ConnectionPool pool, int isolation) {
+        Connection conn = null;
+        try {
+            conn = pool.getConnection();
+            return new UnitOfWork(pool, conn, isolation);
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw new DataAccessException("Error starting transaction: " + e.getMessage(), e);
+        }
+    }
+
+    // ======================= PATIENTS =======================
+
+    public int insertPatient(Patient patient) {
+        int patientID = insert(JdbcPatientRepository.INSERT_SQL, stmt -> JdbcPatientRepository.bindInsert(stmt, patient), "patient");
+        publishAfterCommit(EntityEvent.inserted(JdbcPatientRepository.withID(patient, patientID)));
+        return patientID;
+    }
+
+    public void updatePatient(Patient patient) {
+        queueVersioned(JdbcPatientRepository.UPDATE_SQL, stmt -> JdbcPatientRepository.bindUpdate(stmt, patient),
+                JdbcPatientRepository.VERSION_SQL, "patient", patient.getPatientID(), patient.getVersion());
+        publishAfterCommit(EntityEvent.updated(JdbcPatientRepository.updated(patient)));
+    }
+
+    public void deletePatient(int patientID) {
+        queue(JdbcPatientRepository.DELETE_SQL, stmt -> stmt.setInt(1, patientID), "patient", patientID);
+        publishAfterCommit(EntityEvent.deleted(EntityEvent.Kind.PATIENT, patientID));
+    }
+
+    public Optional<Patient> findPatient(int patientID) {
+        return find("SELECT " + JdbcPatientRepository.MAPPER.selectList() + " FROM PATIENTS WHERE PatientID = ?",
+                JdbcPatientRepository.MAPPER, patientID);
+    }
+
+    // ======================= DOCTORS =======================
+
+    public int insertDoctor(Doctor doctor) {
+        int doctorID = insert(JdbcDoctorRepository.INSERT_SQL, stmt -> JdbcDoctorRepository.bindInsert(stmt, doctor), "doctor");
+        publishAfterCommit(EntityEvent.inserted(JdbcDoctorRepository.withID(doctor, doctorID)));
+        return doctorID;
+    }
+
+    public void updateDoctor(Doctor doctor) {
+        queueVersioned(JdbcDoctorRepository.UPDATE_SQL, stmt -> JdbcDoctorRepository.bindUpdate(stmt, doctor),
+                JdbcDoctorRepository.VERSION_SQL, "doctor", doctor.getDoctorID(), doctor.getVersion());
+        publishAfterCommit(EntityEvent.updated(JdbcDoctorRepository.updated(doctor)));
+    }
+
+    public void deleteDoctor(int doctorID) {
+        queue(JdbcDoctorRepository.DELETE_SQL, stmt -> stmt.setInt(1, doctorID), "doctor", doctorID);
+        publishAfterCommit(EntityEvent.deleted(EntityEvent.Kind.DOCTOR, doctorID));
+    }
+
+    public Optional<Doctor> findDoctor(int doctorID) {
+        return find("SELECT " + JdbcDoctorRepository.MAPPER.selectList() + " FROM DOCTORS WHERE DoctorID = ?",
+                JdbcDoctorRepository.MAPPER, doctorID);
+    }
+
+    // ======================= APPOINTMENTS =======================
+
+    public int insertAppointment(Appointment appointment) {
+        int appointmentID = insert(JdbcAppointmentRepository.INSERT_SQL,
+                stmt -> JdbcAppointmentRepository.bindInsert(stmt, appointment), "appointment");
+        afterCommit.add(() -> BookingEngine.getInstance().getIndex().invalidate(appointment.getDoctorID()));
+        publishAfterCommit(EntityEvent.inserted(JdbcAppointmentRepository.withID(appointment, appointmentID)));
+        return appointmentID;
+    }
+
+    public void updateAppointment(Appointment appointment) {
+        queueVersioned(JdbcAppointmentRepository.UPDATE_SQL, stmt -> JdbcAppointmentRepository.bindUpdate(stmt, appointment),
+                JdbcAppointmentRepository.VERSION_SQL, "appointment", appointment.getAppointmentID(), appointment.getVersion());
+        afterCommit.add(() -> BookingEngine.getInstance().getIndex().invalidateAll());
+        publishAfterCommit(EntityEvent.updated(JdbcAppointmentRepository.updated(appointment)));
+    }
+
+    public void deleteAppointment(int appointmentID) {
+        queue(JdbcAppointmentRepository.DELETE_SQL, stmt -> stmt.setInt(1, appointmentID), "appointment", appointmentID);
+        afterCommit.add(() -> BookingEngine.getInstance().getIndex().invalidateAll());
+        publishAfterCommit(EntityEvent.deleted(EntityEvent.Kind.APPOINTMENT, appointmentID));
+    }
+
+    // Cancels the doctor's appointments dated on or after from (any number, including none)
+    public void cancelFutureAppointmentsForDoctor(int doctorID, LocalDate from) {
+        queue(CANCEL_DOCTOR_SQL, stmt -> {
+            stmt.setInt(1, doctorID);
+            stmt.setDate(2, Date.valueOf(from));
+        }, null, 0);
+        afterCommit.add(() -> BookingEngine.getInstance().getIndex().invalidate(doctorID));
+    }
+
+    // Cancels the patient's appointments dated on or after from (any number, including none)
+    public void cancelFutureAppointmentsForPatient(int patientID, LocalDate from) {
+        queue(CANCEL_PATIENT_SQL, stmt -> {
+            stmt.setInt(1, patientID);
+            stmt.setDate(2, Date.valueOf(from));
+        }, null, 0);
+        afterCommit.add(() -> BookingEngine.getInstance().getIndex().invalidateAll());
+    }
+
+    public Optional<Appointment> findAppointment(int appointmentID) {
+        return find("SELECT " + JdbcAppointmentRepository.MAPPER.selectList() + " FROM appointments WHERE AppointmentID = ?",
+                JdbcAppointmentRepository.MAPPER, appointmentID);
+    }
+
+    // ======================= TRANSACTION =======================
+
+    // Sends the queued statements, one JDBC batch per run of identical SQL.
+    // Throws EntityNotFoundException if an update or delete of a single row matched nothing,
+    // or OptimisticLockException if an update was made to a row that has changed since it was read.
+
+    public void flush() {
+        checkOpen();
+        try {
+            int start = 0;
+            while (start < pending.size()) {
+                int end = start;
+                String sql = pending.get(start).sql;
+                while (end < pending.size() && pending.get(end).sql.equals(sql)) end++;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = start; i < end; i++) {
+                        pending.get(i).binder.bind(stmt);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = start; i < end; i++) {
+                        Pending op = pending.get(i);
+                        int count = counts.length > i - start ? counts[i - start] : Statement.SUCCESS_NO_INFO;
+                        if (op.entity != null && count == 0) {
+                            throw op.versionSql == null
+                                    ? new EntityNotFoundException(op.entity, op.id)
+                                    : OptimisticLockException.rejectedUpdate(conn, op.versionSql, op.entity, op.id, op.version);
+                        }
+                    }
+                }
+                statementCount += end - start;
+                start = end;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error writing changes: " + e.getMessage(), e);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    // Flushes and commits; on failure the whole unit is rolled back
+    public void commit() {
+        try {
+            flush();
+            conn.commit();
+            pool.markWrite();
+        } catch (SQLException e) {
+            rollback();
+            throw new DataAccessException("Error committing changes: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        finished = true;
+        for (Runnable hook : afterCommit) hook.run();
+        afterCommit.clear();
+    }
+
+    // Discards every change made in this unit
+    public void rollback() {
+        if (finished) return;
+        finished = true;
+        pending.clear();
+        afterCommit.clear();
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error rolling back changes: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean isFinished() { return finished; }
+
+    // Statements sent so far (queued ones are counted when flushed)
+    public int getStatementCount() { return statementCount; }
+
+    // Rolls back if commit() was not called, restores the isolation level and returns the connection
+    @Override
+    public void close() {
+        try {
+            if (!finished) rollback();
+        } finally {
+            try {
+                if (conn.getTransactionIsolation() != previousIsolation) {
+                    conn.setTransactionIsolation(previousIsolation);
+                }
+            } catch (SQLException ignored) {
+                // the pool validates the connection before reusing it
+            }
+            closeQuietly(conn);
+        }
+    }
+
+    // ======================= HELPERS =======================
+
+    private void publishAfterCommit(EntityEvent event) {
+        afterCommit.add(() -> EntityEventBus.getInstance().publish(event));
+    }
+
+    private void queue(String sql, Binder binder, String entity, int id) {
+        checkOpen();
+        pending.add(new Pending(sql, binder, entity, id, null, 0));
+    }
+
+    private void queueVersioned(String sql, Binder binder, String versionSql, String entity, int id, int version) {
+        checkOpen();
+        pending.add(new Pending(sql, binder, entity, id, versionSql, version));
+    }
+
+    private int insert(String sql, Binder binder, String entity) {
+        flush();
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            binder.bind(stmt);
+            stmt.executeUpdate();
+            statementCount++;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving " + entity + ": " + e.getMessage(), e);
+        }
+    }
+
+    private <T> Optional<T> find(String sql, EntityMapper<T> mapper, int id) {
+        flush();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return mapper.readOne(rs);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading row " + id + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("Unit of work has already been committed or rolled back");
+        }
+    }
+
+    private static int isolationLevel(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "READ_UNCOMMITTED": return Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "REPEATABLE_READ": return Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE": return Connection.TRANSACTION_SERIALIZABLE;
+            default: return Connection.TRANSACTION_READ_COMMITTED;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // returning the connection to the pool does not fail
+        }
+    }
+}